@@ -0,0 +1,200 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.tasks.Comment;
+import com.intellij.tasks.Task;
+import com.intellij.tasks.TaskType;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the heap retained by the Issue table and its search index against the full Tasks.
+ */
+public final class HeapFootprint {
+
+    /** The number of issues measured when none are given */
+    private static final int[] DEFAULT_ISSUE_COUNTS = {500, 2000};
+    /** The length of the description of every issue */
+    static final int DESCRIPTION_LENGTH = 10_000;
+    /** The number of distinct words of the descriptions */
+    static final int VOCABULARY_SIZE = 20_000;
+    /** The number of times the garbage collector is run before the heap is measured */
+    private static final int GC_RUNS = 5;
+
+    /** Keeps what is measured reachable until the heap is measured */
+    private static Object sRetained;
+
+    private HeapFootprint() {
+    }
+
+    /**
+     * @param args the numbers of issues to measure, separated by commas
+     */
+    public static void main(String[] args) {
+        final int[] issueCounts = args.length > 0 ? parseCounts(args[0]) : DEFAULT_ISSUE_COUNTS;
+        final String[] vocabulary = vocabulary(new Random(42));
+        System.out.println("issues  full tasks    table        search index  (retained MB, KB per issue)");
+        for (int issueCount : issueCounts) {
+            final long tasks = measureTasks(issueCount, vocabulary);
+            final long table = measureTable(issueCount, vocabulary);
+            final long index = measureSearchIndex(issueCount, vocabulary);
+            System.out.println(String.format(Locale.US, "%-7d %s %s %s", issueCount, format(tasks, issueCount),
+                    format(table, issueCount), format(index, issueCount)));
+        }
+    }
+
+    /**
+     * @param issueCount the number of issues
+     * @param vocabulary the words of the descriptions
+     * @return the heap retained by the full Tasks, as the table held them before the rows
+     */
+    private static long measureTasks(int issueCount, @NotNull String[] vocabulary) {
+        final long before = usedHeap();
+        sRetained = issues(issueCount, vocabulary);
+        final long retained = usedHeap() - before;
+        sRetained = null;
+        return retained;
+    }
+
+    /**
+     * @param issueCount the number of issues
+     * @param vocabulary the words of the descriptions
+     * @return the heap retained by an {@link IssueTableModel} holding the issues, with its rows and search index
+     */
+    private static long measureTable(int issueCount, @NotNull String[] vocabulary) {
+        final long before = usedHeap();
+        // The Tasks are no longer reachable once merged, only what the table kept of them is measured
+        sRetained = tableModel(issues(issueCount, vocabulary));
+        final long retained = usedHeap() - before;
+        sRetained = null;
+        return retained;
+    }
+
+    /**
+     * @param issues the issues
+     * @return a table holding the issues
+     */
+    @NotNull
+    private static IssueTableModel tableModel(@NotNull List<Task> issues) {
+        final IssueTableModel model = new IssueTableModel();
+        model.merge(issues, false);
+        return model;
+    }
+
+    /**
+     * @param issueCount the number of issues
+     * @param vocabulary the words of the descriptions
+     * @return the heap retained by an {@link IssueSearchIndex} of the issues on its own
+     */
+    private static long measureSearchIndex(int issueCount, @NotNull String[] vocabulary) {
+        final long before = usedHeap();
+        sRetained = searchIndex(issues(issueCount, vocabulary));
+        final long retained = usedHeap() - before;
+        sRetained = null;
+        return retained;
+    }
+
+    /**
+     * Index the issues in a method of its own, so that no local variable keeps them reachable once they are indexed
+     *
+     * @param issues the issues
+     * @return the search index of the issues
+     */
+    @NotNull
+    private static IssueSearchIndex searchIndex(@NotNull List<Task> issues) {
+        final IssueSearchIndex index = new IssueSearchIndex();
+        for (Task issue : issues) {
+            index.add(issue);
+        }
+        return index;
+    }
+
+    /**
+     * Build the issues, the same ones on every call
+     *
+     * @param issueCount the number of issues
+     * @param vocabulary the words of the descriptions
+     * @return the issues
+     */
+    @NotNull
+    private static List<Task> issues(int issueCount, @NotNull String[] vocabulary) {
+        final Random random = new Random(1);
+        final List<Task> issues = new ArrayList<>(issueCount);
+        for (int i = 0; i < issueCount; i++) {
+            final StringBuilder description = new StringBuilder(DESCRIPTION_LENGTH + 16);
+            while (description.length() < DESCRIPTION_LENGTH) {
+                // Skewed towards the common words, like natural text
+                description.append(vocabulary[(int) (vocabulary.length * Math.pow(random.nextDouble(), 3))])
+                        .append(' ');
+            }
+            final long created = SyntheticIssues.BASE_TIME + TimeUnit.MINUTES.toMillis(i);
+            issues.add(new SyntheticIssues.SyntheticTask("ISSUE-" + i, "Summary of issue " + i + " "
+                    + vocabulary[i % 100], description.toString(), created, created + TimeUnit.HOURS.toMillis(1),
+                    TaskType.BUG, false, Comment.EMPTY_ARRAY, null));
+        }
+        return issues;
+    }
+
+    /**
+     * @param random the source of the words
+     * @return the words of the descriptions
+     */
+    @NotNull
+    private static String[] vocabulary(@NotNull Random random) {
+        final String[] vocabulary = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < vocabulary.length; i++) {
+            final StringBuilder word = new StringBuilder();
+            final int length = 3 + random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            vocabulary[i] = word.toString();
+        }
+        return vocabulary;
+    }
+
+    /**
+     * @return the heap in use once the garbage collector has run
+     */
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < GC_RUNS; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * @param bytes      the heap retained
+     * @param issueCount the number of issues
+     * @return the heap retained in MB, and per issue in KB
+     */
+    @NotNull
+    private static String format(long bytes, int issueCount) {
+        return String.format(Locale.US, "%7.1f %5.1f", bytes / 1048576.0, bytes / 1024.0 / issueCount);
+    }
+
+    /**
+     * @param counts the numbers of issues, separated by commas
+     * @return the numbers
+     */
+    @NotNull
+    private static int[] parseCounts(@NotNull String counts) {
+        final String[] parts = counts.split(",");
+        final int[] issueCounts = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            issueCounts[i] = Integer.parseInt(parts[i].trim());
+        }
+        return issueCounts;
+    }
+}
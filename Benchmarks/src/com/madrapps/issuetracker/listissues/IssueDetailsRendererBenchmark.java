@@ -0,0 +1,78 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.tasks.Comment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the html of the details panel of an issue with a long comment thread, with commonmark 0.7.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IssueDetailsRendererBenchmark {
+
+    /** Number of comments of the issue */
+    @Param({"100", "1000", "10000"})
+    int commentCount;
+
+    /** The description of the issue */
+    private String mDescription;
+    /** The comments of the issue */
+    private Comment[] mComments;
+    /** A renderer whose cache holds the html of the issue */
+    private IssueDetailsRenderer mCachingRenderer;
+    /** The indicator the html is built under */
+    private final ProgressIndicator mIndicator = new EmptyProgressIndicator();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mDescription = SyntheticIssues.markdown(new Random(1), 2000);
+        mComments = SyntheticIssues.comments(commentCount, 500, 1);
+        mCachingRenderer = new IssueDetailsRenderer();
+        mCachingRenderer.render("ISSUE-1", mDescription, null, mComments, mIndicator);
+    }
+
+    /**
+     * The details with the newest comments, as shown when an issue is selected for the first time
+     */
+    @Benchmark
+    public String renderDetails() {
+        return new IssueDetailsRenderer().render("ISSUE-1", mDescription, null, mComments, mIndicator);
+    }
+
+    /**
+     * The details with the newest comments, as shown when an issue is selected again
+     */
+    @Benchmark
+    public String renderCachedDetails() {
+        return mCachingRenderer.render("ISSUE-1", mDescription, null, mComments, mIndicator);
+    }
+
+    /**
+     * Every comment of the thread, as shown once the user has asked for all the older comments
+     */
+    @Benchmark
+    public String renderAllComments() {
+        return new IssueDetailsRenderer().renderComments("ISSUE-1", mComments, 0, mComments.length, mIndicator);
+    }
+}
@@ -0,0 +1,91 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.tasks.Task;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures merging a sync into the Issue table, which is what updateIssueList does
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IssueTableModelBenchmark {
+
+    /** Number of issues in the table and in each sync */
+    @Param({"100", "1000", "10000", "100000"})
+    int issueCount;
+
+    /** The issues of the first sync */
+    private List<Task> mIssues;
+    /** The issues of a sync in which one issue in ten was updated */
+    private List<Task> mUpdatedIssues;
+    /** A table holding the issues of the first sync */
+    private IssueTableModel mModel;
+    /** Whether the next merge into {@link #mModel} is of the updated issues */
+    private boolean mMergeUpdated;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mIssues = SyntheticIssues.issues(issueCount, 1);
+        mUpdatedIssues = new ArrayList<>(mIssues);
+        for (int i = 0; i < mUpdatedIssues.size(); i += 10) {
+            final SyntheticIssues.SyntheticTask issue = (SyntheticIssues.SyntheticTask) mUpdatedIssues.get(i);
+            mUpdatedIssues.set(i, issue.withSummary(issue.getSummary() + " again", SyntheticIssues.BASE_TIME));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void fillTable() {
+        mModel = new IssueTableModel();
+        mModel.merge(mIssues, false);
+        mMergeUpdated = true;
+    }
+
+    /**
+     * The first sync, into an empty table
+     */
+    @Benchmark
+    public IssueTableModel mergeIntoEmptyTable() {
+        final IssueTableModel model = new IssueTableModel();
+        model.merge(mIssues, false);
+        return model;
+    }
+
+    /**
+     * A sync that returns the issues already in the table
+     */
+    @Benchmark
+    public IssueTableModel mergeUnchanged() {
+        mModel.merge(mIssues, true);
+        return mModel;
+    }
+
+    /**
+     * A sync in which one issue in ten was updated, alternating with the sync before the update
+     */
+    @Benchmark
+    public IssueTableModel mergeUpdated() {
+        mModel.merge(mMergeUpdated ? mUpdatedIssues : mIssues, true);
+        mMergeUpdated = !mMergeUpdated;
+        return mModel;
+    }
+}
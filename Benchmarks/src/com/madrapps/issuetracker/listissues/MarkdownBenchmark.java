@@ -0,0 +1,61 @@
+package com.madrapps.issuetracker.listissues;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures converting a description from markdown to html with commonmark 0.7.1, with and without the html cache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkdownBenchmark {
+
+    /** Length of the description, in characters */
+    @Param({"100", "1000", "10000", "100000"})
+    int length;
+
+    /** The description */
+    private String mMarkdown;
+    /** A renderer whose cache holds the html of the description */
+    private IssueDetailsRenderer mCachingRenderer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mMarkdown = SyntheticIssues.markdown(new Random(1), length);
+        mCachingRenderer = new IssueDetailsRenderer();
+        mCachingRenderer.fromMarkDownToHtml("ISSUE-1", "description", mMarkdown);
+    }
+
+    /**
+     * Parse and render the markdown
+     */
+    @Benchmark
+    public String toHtml() {
+        return mCachingRenderer.fromMarkDownToHtml(null, "description", mMarkdown);
+    }
+
+    /**
+     * Look up the html cached for the description, which fingerprints the markdown
+     */
+    @Benchmark
+    public String toCachedHtml() {
+        return mCachingRenderer.fromMarkDownToHtml("ISSUE-1", "description", mMarkdown);
+    }
+}
@@ -0,0 +1,98 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.tasks.Task;
+import com.intellij.util.ui.ColumnInfo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures sorting the Issue table by each column, and formatting the dates shown in it
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableColumnsBenchmark {
+
+    /** Number of rows sorted */
+    @Param({"100", "1000", "10000", "100000"})
+    int issueCount;
+
+    /** The rows, in the order of the sync */
+    private List<IssueRow> mRows;
+    /** The dates of the issues */
+    private List<Date> mDates;
+    @Setup(Level.Trial)
+    public void setUp() {
+        final List<Task> issues = SyntheticIssues.issues(issueCount, 1);
+        mRows = new ArrayList<>(issues.size());
+        mDates = new ArrayList<>(issues.size());
+        for (Task issue : issues) {
+            mRows.add(new IssueRow(issue));
+            mDates.add(issue.getUpdated());
+        }    }
+
+    /**
+     * Sort the rows by the column
+     */
+    @Benchmark
+    public List<IssueRow> sort(Column column) {
+        final List<IssueRow> rows = new ArrayList<>(mRows);
+        Collections.sort(rows, column.mComparator);
+        return rows;
+    }
+
+    /**
+     * Format the dates of every row
+     */
+    @Benchmark
+    public void formatDates(Blackhole blackhole) {
+        for (Date date : mDates) {
+            blackhole.consume(TableColumns.getValueOfDate(date));
+        }
+    }
+
+    /**
+     * The column sorted, which only the sort is measured for
+     */
+    @State(Scope.Benchmark)
+    public static class Column {
+        /** The name of the column */
+        @Param({"Name", "Created On", "Last Updated On", "Repository"})
+        String column;
+
+        /** The comparator of the column */
+        private Comparator<IssueRow> mComparator;
+
+        @Setup(Level.Trial)
+        @SuppressWarnings("unchecked")
+        public void setUp() {
+            for (ColumnInfo columnInfo : TableColumns.COLUMN_NAMES) {
+                if (column.equals(columnInfo.getName())) {
+                    mComparator = columnInfo.getComparator();
+                }
+            }
+        }
+    }
+}
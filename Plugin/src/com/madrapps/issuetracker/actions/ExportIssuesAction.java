@@ -0,0 +1,50 @@
+package com.madrapps.issuetracker.actions;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import com.madrapps.issuetracker.listissues.IListIssuesContract.IPresenter;
+import com.madrapps.issuetracker.listissues.IssueExporter;
+import com.madrapps.issuetracker.listissues.ListIssuesPresenter;
+
+/**
+ * Action to export the issues shown in the table, in the order they are shown, to a CSV or a JSON lines file
+ */
+public class ExportIssuesAction extends AnAction {
+
+    /** Action ID. This should be the same as in the Plugin xml */
+    public static final String ACTION_ID = "IssueTracker.ExportIssues";
+
+    /** Title of the dialogs */
+    private static final String TITLE = "Export Issues";
+
+    @Override
+    public void actionPerformed(AnActionEvent e) {
+        final Project project = e.getProject();
+        if (project == null) {
+            return;
+        }
+        final int option = Messages.showDialog(project, "Export the issues shown in the table as", TITLE,
+                new String[]{"CSV", "JSON Lines", "Cancel"}, 0, Messages.getQuestionIcon());
+        if (option != 0 && option != 1) {
+            return;
+        }
+        final IssueExporter.Format format = option == 0 ? IssueExporter.Format.CSV : IssueExporter.Format.JSON_LINES;
+        final boolean includeDetails = Messages.showYesNoDialog(project,
+                "Include the descriptions and comments? They are pulled from the repositories, which takes longer.",
+                TITLE, Messages.getQuestionIcon()) == Messages.YES;
+
+        final FileSaverDescriptor descriptor = new FileSaverDescriptor(TITLE, "", format.getExtension());
+        final VirtualFileWrapper fileWrapper = FileChooserFactory.getInstance()
+                .createSaveFileDialog(descriptor, project).save(null, "issues." + format.getExtension());
+        if (fileWrapper != null) {
+            final IPresenter presenter = ListIssuesPresenter.getInstance(project);
+            presenter.setView(project);
+            presenter.exportIssues(project, fileWrapper.getFile(), format, includeDetails);
+        }
+    }
+}
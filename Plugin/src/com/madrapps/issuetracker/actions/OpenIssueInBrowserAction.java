@@ -4,7 +4,6 @@ import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.Presentation;
 import com.intellij.openapi.project.Project;
-import com.intellij.tasks.Task;
 import com.madrapps.issuetracker.listissues.IListIssuesContract;
 import com.madrapps.issuetracker.listissues.ListIssuesPresenter;
 
@@ -23,30 +22,30 @@ public class OpenIssueInBrowserAction extends AnAction {
     @Override
     public void update(AnActionEvent e) {
         final Presentation presentation = e.getPresentation();
-        final Task selectedIssue = getSelectedIssue(e);
-        presentation.setEnabled(selectedIssue != null);
+        presentation.setEnabled(getSelectedIssueId(e) != null);
     }
 
     @Override
     public void actionPerformed(AnActionEvent e) {
-        final Task selectedIssue = getSelectedIssue(e);
-        if (selectedIssue != null) {
-            ListIssuesPresenter.getInstance().openUrl(selectedIssue);
+        final Project project = e.getProject();
+        final String selectedIssueId = getSelectedIssueId(e);
+        if (project != null && selectedIssueId != null) {
+            ListIssuesPresenter.getInstance(project).openUrl(project, selectedIssueId);
         }
     }
 
     /**
-     * Get the issue currently selected, or null if nothing is selected
+     * Get the id of the issue currently selected, or null if nothing is selected
      *
      * @param e the actionEvent to get the Project
-     * @return selected issue or null
+     * @return id of the selected issue or null
      */
     @Nullable
-    private Task getSelectedIssue(AnActionEvent e) {
+    private String getSelectedIssueId(AnActionEvent e) {
         final Project project = e.getProject();
         if (project != null) {
-            final IListIssuesContract.IView view = ListIssuesPresenter.getInstance().setView(project);
-            return view.getSelectedIssue();
+            final IListIssuesContract.IView view = ListIssuesPresenter.getInstance(project).setView(project);
+            return view.getSelectedIssueId();
         }
         return null;
     }
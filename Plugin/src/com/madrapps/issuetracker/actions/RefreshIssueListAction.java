@@ -20,9 +20,9 @@ public class RefreshIssueListAction extends AnAction {
     public void actionPerformed(AnActionEvent e) {
         final Project project = e.getProject();
         if (project != null) {
-            final IPresenter presenter = ListIssuesPresenter.getInstance();
+            final IPresenter presenter = ListIssuesPresenter.getInstance(project);
             presenter.setView(project);
-            presenter.pullIssues(project, null, true);
+            presenter.refreshIssues(project);
         }
     }
 }
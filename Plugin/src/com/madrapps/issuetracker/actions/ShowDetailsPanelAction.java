@@ -2,6 +2,7 @@ package com.madrapps.issuetracker.actions;
 
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.ToggleAction;
+import com.intellij.openapi.project.Project;
 import com.madrapps.issuetracker.listissues.ListIssuesPresenter;
 
 /**
@@ -16,11 +17,15 @@ public class ShowDetailsPanelAction extends ToggleAction {
 
     @Override
     public boolean isSelected(AnActionEvent e) {
-        return ListIssuesPresenter.getInstance().isDetailsPanelShown();
+        final Project project = e.getProject();
+        return project != null && ListIssuesPresenter.getInstance(project).isDetailsPanelShown();
     }
 
     @Override
     public void setSelected(AnActionEvent e, boolean state) {
-        ListIssuesPresenter.getInstance().showDetailsPanel(state);
+        final Project project = e.getProject();
+        if (project != null) {
+            ListIssuesPresenter.getInstance(project).showDetailsPanel(state);
+        }
     }
 }
@@ -0,0 +1,73 @@
+package com.madrapps.issuetracker.actions;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import com.madrapps.issuetracker.diagnostics.Timings;
+import com.madrapps.issuetracker.listissues.CommentCache;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Action to show how long syncing and showing the issues takes and how well the comments are cached, and to export
+ * the timeline of the recent stages as a Chrome trace file
+ */
+public class ShowDiagnosticsAction extends AnAction {
+
+    /** Action ID. This should be the same as in the Plugin xml */
+    public static final String ACTION_ID = "IssueTracker.ShowDiagnostics";
+
+    /** Title of the dialogs */
+    private static final String TITLE = "Issue Tracker Diagnostics";
+
+    @Override
+    public void actionPerformed(AnActionEvent e) {
+        final Project project = e.getProject();
+        if (project == null) {
+            return;
+        }
+        // The counters of the comment cache of this project, besides those of every project in the Timings
+        final String report = Timings.getReport() + "\n" + CommentCache.getInstance(project);
+        if (!Timings.isEnabled()) {
+            Messages.showInfoMessage(project, report, TITLE);
+            return;
+        }
+        final int option = Messages.showDialog(project, report, TITLE,
+                new String[]{"Export Trace...", "Close"}, 1, Messages.getInformationIcon());
+        if (option == 0) {
+            exportTrace(project);
+        }
+    }
+
+    /**
+     * Ask for a file and write the timeline to it
+     *
+     * @param project the current project
+     */
+    private static void exportTrace(@NotNull Project project) {
+        final FileSaverDescriptor descriptor = new FileSaverDescriptor("Export Trace",
+                "Open the file in chrome://tracing", "json");
+        final VirtualFileWrapper fileWrapper = FileChooserFactory.getInstance()
+                .createSaveFileDialog(descriptor, project).save(null, "issue-tracker-trace.json");
+        if (fileWrapper == null) {
+            return;
+        }
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(fileWrapper.getFile()), StandardCharsets.UTF_8))) {
+            Timings.exportTrace(writer);
+        } catch (IOException e) {
+            Messages.showErrorDialog(project, "Could not export the trace: " + e.getMessage(), TITLE);
+        }
+    }
+}
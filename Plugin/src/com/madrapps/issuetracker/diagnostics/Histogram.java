@@ -0,0 +1,101 @@
+package com.madrapps.issuetracker.diagnostics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of positive values, with buckets growing exponentially.
+ */
+final class Histogram {
+
+    /** Number of bits of a value, after its highest bit, that select its bucket within a power of two */
+    private static final int SUB_BUCKET_BITS = 3;
+    /** Number of buckets in each power of two */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Number of buckets needed to hold every positive long */
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /** The number of values recorded in each bucket */
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKETS);
+    /** The number of values recorded */
+    private final AtomicLong mCount = new AtomicLong();
+    /** The largest value recorded */
+    private final AtomicLong mMax = new AtomicLong();
+
+    /**
+     * Record a value. Negative values are recorded as 0.
+     *
+     * @param value the value
+     */
+    void record(long value) {
+        final long positiveValue = Math.max(value, 0);
+        mCounts.incrementAndGet(bucketOf(positiveValue));
+        mCount.incrementAndGet();
+        long max = mMax.get();
+        while (positiveValue > max && !mMax.compareAndSet(max, positiveValue)) {
+            max = mMax.get();
+        }
+    }
+
+    /**
+     * @return the number of values recorded
+     */
+    long getCount() {
+        return mCount.get();
+    }
+
+    /**
+     * @return the largest value recorded
+     */
+    long getMax() {
+        return mMax.get();
+    }
+
+    /**
+     * Get the value below which the given percentage of the values fall
+     *
+     * @param percentile the percentage, from 0 to 100
+     * @return the lowest value of the bucket holding the percentile, or 0 if nothing was recorded
+     */
+    long getPercentile(double percentile) {
+        final long count = mCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += mCounts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(lowestValueOf(bucket), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * @param value a positive value
+     * @return the bucket of the value
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int highestBit = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (highestBit - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return ((highestBit - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    /**
+     * @param bucket a bucket
+     * @return the lowest value held by the bucket
+     */
+    private static long lowestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int highestBit = (bucket >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+        final long subBucket = bucket & (SUB_BUCKETS - 1);
+        return (SUB_BUCKETS | subBucket) << (highestBit - SUB_BUCKET_BITS);
+    }
+}
@@ -0,0 +1,233 @@
+package com.madrapps.issuetracker.diagnostics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how long each stage of syncing and showing the issues takes.
+ */
+public final class Timings {
+
+    /** Whether the timings are recorded */
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("issuetracker.timings", "true"));
+    /** Maximum number of stages kept in the timeline, the oldest are dropped first */
+    static final int MAX_TRACE_EVENTS = 10_000;
+    /** The time from which the timeline starts */
+    private static final long ORIGIN_NANOS = System.nanoTime();
+
+    /** The durations of each stage, in microseconds */
+    private static final ConcurrentMap<String, Histogram> DURATIONS = new ConcurrentHashMap<>();
+    /** The other values recorded, like the number of issues pulled */
+    private static final ConcurrentMap<String, Histogram> VALUES = new ConcurrentHashMap<>();
+    /** The number of times each event happened, like a cache hit */
+    private static final ConcurrentMap<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    /** The most recent stages, used as a ring buffer */
+    private static final TraceEvent[] TRACE_EVENTS = new TraceEvent[MAX_TRACE_EVENTS];
+    /** The number of stages added to the timeline */
+    private static long sTraceEventCount;
+
+    private Timings() {
+    }
+
+    /**
+     * @return true if the timings are recorded
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Start timing a stage
+     *
+     * @return the start time to be passed to {@link #stop(String, long)}, or 0 if the timings are disabled
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Record the duration of a stage
+     *
+     * @param stage the name of the stage
+     * @param start the time returned by {@link #start()}
+     */
+    public static void stop(@NotNull String stage, long start) {
+        stop(stage, start, null);
+    }
+
+    /**
+     * Record the duration of a stage
+     *
+     * @param stage  the name of the stage
+     * @param start  the time returned by {@link #start()}
+     * @param detail what the stage worked on, shown in the timeline, like the name of a repository
+     */
+    public static void stop(@NotNull String stage, long start, @Nullable String detail) {
+        if (start == 0) {
+            return;
+        }
+        final long end = System.nanoTime();
+        final long durationMicros = (end - start) / 1000;
+        DURATIONS.computeIfAbsent(stage, key -> new Histogram()).record(durationMicros);
+
+        final Thread thread = Thread.currentThread();
+        final TraceEvent event = new TraceEvent(stage, detail, thread.getId(), thread.getName(),
+                (start - ORIGIN_NANOS) / 1000, durationMicros);
+        synchronized (TRACE_EVENTS) {
+            TRACE_EVENTS[(int) (sTraceEventCount++ % MAX_TRACE_EVENTS)] = event;
+        }
+    }
+
+    /**
+     * Record a value that is not a duration, like the number of issues in a list
+     *
+     * @param name  the name of the value
+     * @param value the value
+     */
+    public static void count(@NotNull String name, long value) {
+        if (ENABLED) {
+            VALUES.computeIfAbsent(name, key -> new Histogram()).record(value);
+        }
+    }
+
+    /**
+     * Count an event, like a cache hit
+     *
+     * @param name the name of the event
+     */
+    public static void increment(@NotNull String name) {
+        if (ENABLED) {
+            COUNTERS.computeIfAbsent(name, key -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Get the percentiles of every stage and value recorded, and the number of each event counted
+     *
+     * @return a human readable report
+     */
+    @NotNull
+    public static String getReport() {
+        if (!ENABLED) {
+            return "Timings are disabled. Remove -Dissuetracker.timings=false from the VM options to enable them.";
+        }
+        final StringBuilder report = new StringBuilder();
+        report.append("Durations in ms (count, p50, p95, p99, max)\n");
+        new TreeMap<>(DURATIONS).forEach((stage, histogram) -> report.append(String.format(Locale.US,
+                "%s: %d, %.1f, %.1f, %.1f, %.1f\n", stage, histogram.getCount(),
+                histogram.getPercentile(50) / 1000.0, histogram.getPercentile(95) / 1000.0,
+                histogram.getPercentile(99) / 1000.0, histogram.getMax() / 1000.0)));
+        if (!VALUES.isEmpty()) {
+            report.append("\nValues (count, p50, p95, p99, max)\n");
+            new TreeMap<>(VALUES).forEach((name, histogram) -> report.append(String.format(Locale.US,
+                    "%s: %d, %d, %d, %d, %d\n", name, histogram.getCount(), histogram.getPercentile(50),
+                    histogram.getPercentile(95), histogram.getPercentile(99), histogram.getMax())));
+        }
+        if (!COUNTERS.isEmpty()) {
+            report.append("\nCounters\n");
+            new TreeMap<>(COUNTERS).forEach((name, counter) -> report.append(name).append(": ")
+                    .append(counter.sum()).append('\n'));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Write the timeline of the most recent stages in the Chrome trace format
+     *
+     * @param writer the writer, which is not closed
+     * @throws IOException if writing fails
+     */
+    public static void exportTrace(@NotNull Writer writer) throws IOException {
+        final TraceEvent[] events;
+        synchronized (TRACE_EVENTS) {
+            final int size = (int) Math.min(sTraceEventCount, MAX_TRACE_EVENTS);
+            events = new TraceEvent[size];
+            for (int i = 0; i < size; i++) {
+                events[i] = TRACE_EVENTS[(int) ((sTraceEventCount - size + i) % MAX_TRACE_EVENTS)];
+            }
+        }
+        final Map<Long, String> threadNames = new HashMap<>();
+        writer.write("{\"traceEvents\":[");
+        boolean first = true;
+        for (TraceEvent event : events) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+            writer.write("\n{\"name\":" + quote(event.mStage) + ",\"cat\":\"issuetracker\",\"ph\":\"X\",\"pid\":1"
+                    + ",\"tid\":" + event.mThreadId + ",\"ts\":" + event.mStartMicros + ",\"dur\":" + event.mDurationMicros);
+            if (event.mDetail != null) {
+                writer.write(",\"args\":{\"detail\":" + quote(event.mDetail) + "}");
+            }
+            writer.write('}');
+            threadNames.put(event.mThreadId, event.mThreadName);
+        }
+        for (Map.Entry<Long, String> thread : threadNames.entrySet()) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+            writer.write("\n{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":" + thread.getKey()
+                    + ",\"args\":{\"name\":" + quote(thread.getValue()) + "}}");
+        }
+        writer.write("\n]}\n");
+    }
+
+    /**
+     * @param text the text
+     * @return the text as a JSON string
+     */
+    @NotNull
+    private static String quote(@NotNull String text) {
+        final StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format(Locale.US, "\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * A stage in the timeline
+     */
+    private static final class TraceEvent {
+        /** The name of the stage */
+        private final String mStage;
+        /** What the stage worked on */
+        private final String mDetail;
+        /** The thread that ran the stage */
+        private final long mThreadId;
+        /** The name of the thread */
+        private final String mThreadName;
+        /** When the stage started, from the start of the timeline */
+        private final long mStartMicros;
+        /** How long the stage took */
+        private final long mDurationMicros;
+
+        private TraceEvent(@NotNull String stage, @Nullable String detail, long threadId, @NotNull String threadName,
+                           long startMicros, long durationMicros) {
+            mStage = stage;
+            mDetail = detail;
+            mThreadId = threadId;
+            mThreadName = threadName;
+            mStartMicros = startMicros;
+            mDurationMicros = durationMicros;
+        }
+    }
+}
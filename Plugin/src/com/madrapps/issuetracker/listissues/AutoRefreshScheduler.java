@@ -0,0 +1,114 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.openapi.application.ApplicationActivationListener;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.wm.IdeFrame;
+import com.intellij.util.Alarm;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refreshes the issues of a project in the background, at an interval adapted to how often they change.
+ */
+final class AutoRefreshScheduler {
+
+    /** The interval between refreshes, before it is adapted */
+    static final long INTERVAL_MS =
+            TimeUnit.SECONDS.toMillis(Long.getLong("issuetracker.refresh.interval.seconds", 300));
+    /** Shortest interval between refreshes, reached while the repositories are active */
+    static final long MIN_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+    /** Longest interval between refreshes, reached while the repositories are idle or failing */
+    static final long MAX_INTERVAL_MS = TimeUnit.MINUTES.toMillis(30);
+
+    /** Runs the next refresh, on the EDT */
+    private final Alarm mAlarm;
+    /** Starts a refresh */
+    private final Runnable mRefresh;
+    /** The current interval between refreshes */
+    private long mInterval = Math.max(MIN_INTERVAL_MS, Math.min(INTERVAL_MS, MAX_INTERVAL_MS));
+    /** The time the last refresh finished, or was started by this scheduler */
+    private long mLastRefreshTime = System.currentTimeMillis();
+    /** Whether the ToolWindow is shown */
+    private boolean mToolWindowShown;
+    /** Whether the IDE is the active application */
+    private boolean mApplicationActive;
+
+    /**
+     * Constructor. Nothing is refreshed until the ToolWindow is shown.
+     *
+     * @param project the current project, refreshing stops when it is closed
+     * @param refresh starts a refresh, and is expected to report back through {@link #onRefreshed(boolean, boolean)}
+     */
+    AutoRefreshScheduler(@NotNull Project project, @NotNull Runnable refresh) {
+        mAlarm = new Alarm(Alarm.ThreadToUse.SWING_THREAD, project);
+        mRefresh = refresh;
+        mApplicationActive = ApplicationManager.getApplication().isActive();
+        ApplicationManager.getApplication().getMessageBus().connect(project)
+                .subscribe(ApplicationActivationListener.TOPIC, new ApplicationActivationListener() {
+                    @Override
+                    public void applicationActivated(IdeFrame ideFrame) {
+                        mApplicationActive = true;
+                        reschedule();
+                    }
+
+                    @Override
+                    public void applicationDeactivated(IdeFrame ideFrame) {
+                        mApplicationActive = false;
+                        reschedule();
+                    }
+                });
+    }
+
+    /**
+     * Pause or resume refreshing as the ToolWindow is hidden or shown
+     *
+     * @param shown true if the ToolWindow is shown
+     */
+    void setToolWindowShown(boolean shown) {
+        if (mToolWindowShown != shown) {
+            mToolWindowShown = shown;
+            reschedule();
+        }
+    }
+
+    /**
+     * Adapt the interval to the outcome of a refresh, whether it was started by this scheduler or by the user, and
+     * schedule the next refresh
+     *
+     * @param changed true if updated issues were found
+     * @param failed  true if a repository could not be synced
+     */
+    void onRefreshed(boolean changed, boolean failed) {
+        mLastRefreshTime = System.currentTimeMillis();
+        if (failed || !changed) {
+            mInterval = Math.min(mInterval * 2, MAX_INTERVAL_MS);
+        } else {
+            mInterval = Math.max(mInterval / 2, MIN_INTERVAL_MS);
+        }
+        reschedule();
+    }
+
+    /**
+     * Schedule the next refresh, unless refreshing is disabled or paused
+     */
+    private void reschedule() {
+        mAlarm.cancelAllRequests();
+        if (INTERVAL_MS <= 0 || !mToolWindowShown || !mApplicationActive) {
+            return;
+        }
+        final long delay = Math.max(0, mLastRefreshTime + mInterval - System.currentTimeMillis());
+        mAlarm.addRequest(this::refresh, delay);
+    }
+
+    /**
+     * Start a refresh. The next one is scheduled right away, in case this refresh is skipped or never reports back.
+     */
+    private void refresh() {
+        mLastRefreshTime = System.currentTimeMillis();
+        reschedule();
+        mRefresh.run();
+    }
+}
@@ -0,0 +1,302 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The threads on which the background work of every project runs, in the order of its {@link Priority}.
+ */
+public final class BackgroundExecutor implements Disposable {
+
+    /** Maximum number of tasks running at the same time */
+    static final int MAX_TASKS = 4;
+    /** Maximum number of bulk tasks running at the same time */
+    static final int MAX_BULK_TASKS = 2;
+    /** Maximum number of requests running at the same time */
+    static final int MAX_REQUESTS = 4;
+    /** Time a request is given to run, counted from when it gets a thread */
+    static final long REQUEST_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+    /** Time a request may wait for a thread */
+    static final long QUEUE_TIMEOUT_MS = 2 * REQUEST_TIMEOUT_MS;
+
+    /**
+     * The priorities of the work, from the highest
+     */
+    enum Priority {
+        /** Work the user is waiting for, like the details of the selected issue */
+        INTERACTIVE,
+        /** Work done ahead of time, like the comments of the issues next to the selected one */
+        PREFETCH,
+        /** Long running work, like syncs and exports */
+        BULK
+    }
+
+    /**
+     * The threads, which are handed no more work than {@link #MAX_TASKS} plus {@link #MAX_REQUESTS}, besides the
+     * requests that were cancelled but have not returned yet
+     */
+    @NotNull
+    private final ThreadPoolExecutor mPool = createPool();
+    /** The interactive and prefetch tasks waiting for a thread, in the order of their priority */
+    private final PriorityQueue<Work> mWaitingTasks = new PriorityQueue<>();
+    /** The bulk tasks waiting for a thread, in the order they were scheduled */
+    private final Deque<Work> mWaitingBulkTasks = new ArrayDeque<>();
+    /** The requests waiting for a thread, in the order of their priority */
+    private final PriorityQueue<Work> mWaitingRequests = new PriorityQueue<>();
+    /** Number of tasks running, guarded by this */
+    private int mRunningTaskCount;
+    /** Number of bulk tasks running, guarded by this */
+    private int mRunningBulkTaskCount;
+    /** Number of requests running, guarded by this */
+    private int mRunningRequestCount;
+    /** Orders the work of the same priority by the time it was scheduled */
+    private final AtomicLong mSequence = new AtomicLong();
+
+    /**
+     * Get the executor of the IDE, shared by the projects
+     *
+     * @return the executor
+     */
+    @NotNull
+    public static BackgroundExecutor getInstance() {
+        return ServiceManager.getService(BackgroundExecutor.class);
+    }
+
+    /**
+     * Run a task once a thread is free for it
+     *
+     * @param runnable the task
+     * @param priority the priority of the task
+     */
+    void executeTask(@NotNull Runnable runnable, @NotNull Priority priority) {
+        final Work work = new Work(runnable, priority, false);
+        synchronized (this) {
+            if (priority == Priority.BULK) {
+                mWaitingBulkTasks.add(work);
+            } else {
+                mWaitingTasks.add(work);
+            }
+        }
+        dispatch();
+    }
+
+    /**
+     * Run a request to a repository once a thread is free for it. Cancelling the request frees its place among the
+     * {@link #MAX_REQUESTS} at once, even if the repository does not respond to the interrupt, so that a request
+     * that hangs does not hold up the others.
+     *
+     * @param callable the request
+     * @param priority the priority of the task the request is made for
+     * @param <T>      the type of the result
+     * @return the request, to wait for and to cancel once it has timed out
+     */
+    @NotNull
+    <T> Request<T> submitRequest(@NotNull Callable<T> callable, @NotNull Priority priority) {
+        final Request<T> request = new Request<>(callable, priority);
+        synchronized (this) {
+            mWaitingRequests.add(request.mWork);
+        }
+        dispatch();
+        return request;
+    }
+
+    @Override
+    public void dispose() {
+        synchronized (this) {
+            mWaitingTasks.clear();
+            mWaitingBulkTasks.clear();
+            mWaitingRequests.clear();
+        }
+        mPool.shutdownNow();
+    }
+
+    /**
+     * Hand the waiting work to the threads, as long as there are threads free for it
+     */
+    private void dispatch() {
+        while (true) {
+            final Work next;
+            synchronized (this) {
+                next = pollNext();
+                if (next == null) {
+                    return;
+                }
+                next.mRunning = true;
+            }
+            mPool.execute(next);
+        }
+    }
+
+    /**
+     * Take the next work that can be run, and count it as running
+     *
+     * @return the work, or null if no work can be run now
+     */
+    @Nullable
+    private Work pollNext() {
+        if (mRunningRequestCount < MAX_REQUESTS && !mWaitingRequests.isEmpty()) {
+            mRunningRequestCount++;
+            return mWaitingRequests.poll();
+        }
+        if (mRunningTaskCount >= MAX_TASKS) {
+            return null;
+        }
+        if (!mWaitingTasks.isEmpty()) {
+            mRunningTaskCount++;
+            return mWaitingTasks.poll();
+        }
+        if (mRunningBulkTaskCount < MAX_BULK_TASKS && !mWaitingBulkTasks.isEmpty()) {
+            mRunningTaskCount++;
+            mRunningBulkTaskCount++;
+            return mWaitingBulkTasks.poll();
+        }
+        return null;
+    }
+
+    /**
+     * Free the thread of work that has finished or was cancelled, and hand the waiting work to it
+     *
+     * @param work the work
+     */
+    private void onFinished(@NotNull Work work) {
+        synchronized (this) {
+            if (work.mFinished) {
+                return;
+            }
+            work.mFinished = true;
+            if (!work.mRunning) {
+                // Cancelled while waiting for a thread
+                mWaitingRequests.remove(work);
+            } else if (work.mRequest) {
+                mRunningRequestCount--;
+            } else {
+                mRunningTaskCount--;
+                if (work.mPriority == Priority.BULK) {
+                    mRunningBulkTaskCount--;
+                }
+            }
+        }
+        dispatch();
+    }
+
+    /**
+     * @return a pool of daemon threads that are released when idle, and that drops work once it is shut down. It
+     * starts a thread whenever all of them are busy, as the number of threads is bounded by {@link #dispatch()}.
+     */
+    @NotNull
+    private static ThreadPoolExecutor createPool() {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "Issue Tracker worker " + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * A request to a repository, which frees its place among the {@link #MAX_REQUESTS} once it returns or is cancelled
+     *
+     * @param <T> the type of the result
+     */
+    final class Request<T> extends FutureTask<T> {
+        /** The work that runs the request */
+        @NotNull
+        private final Work mWork;
+        /** The time the request was submitted */
+        private final long mSubmitTime = System.currentTimeMillis();
+        /** The time the request got a thread, or 0 while it is waiting for one */
+        private volatile long mStartTime;
+
+        private Request(@NotNull Callable<T> callable, @NotNull Priority priority) {
+            super(callable);
+            mWork = new Work(this, priority, true);
+        }
+
+        @Override
+        public void run() {
+            mStartTime = System.currentTimeMillis();
+            super.run();
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                onFinished(mWork);
+            }
+        }
+
+        /**
+         * @param now the current time
+         * @return the time left before the request times out, which is {@link #REQUEST_TIMEOUT_MS} once it has a
+         * thread and {@link #QUEUE_TIMEOUT_MS} while it waits for one
+         */
+        long getRemainingMs(long now) {
+            final long startTime = mStartTime;
+            return startTime != 0 ? startTime + REQUEST_TIMEOUT_MS - now : mSubmitTime + QUEUE_TIMEOUT_MS - now;
+        }
+
+        /**
+         * @return true if the request has got a thread
+         */
+        boolean isStarted() {
+            return mStartTime != 0;
+        }
+    }
+
+    /**
+     * A task or a request
+     */
+    private final class Work implements Runnable, Comparable<Work> {
+        /** The work */
+        @NotNull
+        private final Runnable mRunnable;
+        /** The priority */
+        @NotNull
+        private final Priority mPriority;
+        /** Whether this is a request rather than a task */
+        private final boolean mRequest;
+        /** The order in which the work was scheduled */
+        private final long mSequence;
+        /** Whether the work was handed to a thread, guarded by the executor */
+        private boolean mRunning;
+        /** Whether the work has finished or was cancelled, guarded by the executor */
+        private boolean mFinished;
+
+        private Work(@NotNull Runnable runnable, @NotNull Priority priority, boolean request) {
+            mRunnable = runnable;
+            mPriority = priority;
+            mRequest = request;
+            mSequence = BackgroundExecutor.this.mSequence.getAndIncrement();
+        }
+
+        @Override
+        public void run() {
+            try {
+                mRunnable.run();
+            } finally {
+                onFinished(this);
+            }
+        }
+
+        @Override
+        public int compareTo(@NotNull Work work) {
+            final int byPriority = mPriority.compareTo(work.mPriority);
+            return byPriority != 0 ? byPriority : Long.compare(mSequence, work.mSequence);
+        }
+    }
+}
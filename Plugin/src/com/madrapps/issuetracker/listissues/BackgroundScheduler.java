@@ -0,0 +1,366 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.ide.util.DelegatingProgressIndicator;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task.Backgroundable;
+import com.intellij.openapi.progress.impl.BackgroundableProcessIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.Alarm;
+import com.madrapps.issuetracker.listissues.BackgroundExecutor.Priority;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs the background tasks of a project on the shared {@link BackgroundExecutor}.
+ */
+final class BackgroundScheduler implements Disposable {
+
+    private static final Logger LOG = Logger.getInstance(BackgroundScheduler.class);
+
+    /** Time the tasks have to be running before their progress is shown in the status bar */
+    static final int PROGRESS_DELAY_MS = 500;
+
+    /** The project of the tasks */
+    @NotNull
+    private final Project mProject;
+    /** The shared progress of the interactive and prefetch tasks */
+    private final ProgressGroup mLightProgress = new ProgressGroup();
+    /** The shared progress of the bulk tasks */
+    private final ProgressGroup mBulkProgress = new ProgressGroup();
+    /** Delays showing the shared progress */
+    private final Alarm mProgressAlarm = new Alarm();
+    /** Whether the project is closed, after which nothing is run or reported */
+    private volatile boolean mDisposed;
+
+    /**
+     * Constructor
+     *
+     * @param project the project of the tasks
+     */
+    BackgroundScheduler(@NotNull Project project) {
+        mProject = project;
+    }
+
+    /**
+     * Schedule a task, whose progress is shown in the status bar with the other tasks of its group
+     *
+     * @param task      the task
+     * @param priority  the priority of the task
+     * @param indicator the indicator the task is run under, cancelling it cancels the task
+     */
+    void run(@NotNull Backgroundable task, @NotNull Priority priority, @NotNull ProgressIndicator indicator) {
+        final ProgressGroup group = priority == Priority.BULK ? mBulkProgress : mLightProgress;
+        final ProgressIndicator reportingIndicator = new ReportingIndicator(indicator, group);
+        final Job job = new Job(task, () -> task.run(reportingIndicator), priority, reportingIndicator, group);
+        if (group.add(job)) {
+            mProgressAlarm.addRequest(group::showIfRunning, PROGRESS_DELAY_MS);
+        }
+        schedule(job);
+    }
+
+    /**
+     * Schedule work that is too short to be shown in the status bar, like rendering the details of an issue
+     *
+     * @param runnable  the work
+     * @param priority  the priority of the work
+     * @param indicator the indicator the work is run under, cancelling it cancels the work
+     */
+    void execute(@NotNull Runnable runnable, @NotNull Priority priority, @NotNull ProgressIndicator indicator) {
+        schedule(new Job(null, runnable, priority, indicator, null));
+    }
+
+    @Override
+    public void dispose() {
+        mDisposed = true;
+        mProgressAlarm.dispose();
+        mLightProgress.cancelAll();
+        mBulkProgress.cancelAll();
+    }
+
+    /**
+     * Hand the job to the executor shared by the projects. A job that starts after the project is closed does nothing.
+     *
+     * @param job the job
+     */
+    private void schedule(@NotNull Job job) {
+        BackgroundExecutor.getInstance().executeTask(job, job.mPriority);
+    }
+
+    /**
+     * A scheduled task
+     */
+    private final class Job implements Runnable {
+        /** The task to report to, or null if the work is not reported */
+        @Nullable
+        private final Backgroundable mTask;
+        /** The work */
+        @NotNull
+        private final Runnable mRunnable;
+        /** The priority */
+        @NotNull
+        private final Priority mPriority;
+        /** The indicator the work is run under */
+        @NotNull
+        private final ProgressIndicator mIndicator;
+        /** The group sharing the progress, or null if the progress is not shown */
+        @Nullable
+        private final ProgressGroup mGroup;
+        /** Whether the job has started running */
+        private volatile boolean mStarted;
+
+        private Job(@Nullable Backgroundable task, @NotNull Runnable runnable, @NotNull Priority priority,
+                    @NotNull ProgressIndicator indicator, @Nullable ProgressGroup group) {
+            mTask = task;
+            mRunnable = runnable;
+            mPriority = priority;
+            mIndicator = indicator;
+            mGroup = group;
+        }
+
+        @Override
+        public void run() {
+            boolean canceled = mIndicator.isCanceled() || mDisposed;
+            Throwable error = null;
+            if (!canceled) {
+                mStarted = true;
+                if (mGroup != null) {
+                    mGroup.onChanged();
+                }
+                try {
+                    ProgressManager.getInstance().executeProcessUnderProgress(mRunnable, mIndicator);
+                } catch (ProcessCanceledException e) {
+                    canceled = true;
+                } catch (Throwable t) {
+                    error = t;
+                }
+            }
+            if (mGroup != null) {
+                mGroup.remove(this);
+            }
+            report(canceled || mIndicator.isCanceled(), error);
+        }
+
+        /**
+         * Report the outcome of the work to its task on the EDT
+         *
+         * @param canceled true if the work was cancelled
+         * @param error    what the work threw, or null
+         */
+        private void report(boolean canceled, @Nullable Throwable error) {
+            final Backgroundable task = mTask;
+            if (task == null) {
+                if (error != null) {
+                    LOG.error(error);
+                }
+                return;
+            }
+            ApplicationManager.getApplication().invokeLater(() -> {
+                if (mDisposed) {
+                    return;
+                }
+                if (error != null) {
+                    task.onThrowable(error);
+                } else if (canceled) {
+                    task.onCancel();
+                } else {
+                    task.onSuccess();
+                }
+            });
+        }
+    }
+
+    /**
+     * The indicator a task of a group is run under, which has the progress shown in the status bar updated as the
+     * task reports its progress
+     */
+    private static final class ReportingIndicator extends DelegatingProgressIndicator {
+        /** The group sharing the progress */
+        @NotNull
+        private final ProgressGroup mGroup;
+
+        private ReportingIndicator(@NotNull ProgressIndicator indicator, @NotNull ProgressGroup group) {
+            super(indicator);
+            mGroup = group;
+        }
+
+        @Override
+        public void setFraction(double fraction) {
+            super.setFraction(fraction);
+            mGroup.onChanged();
+        }
+
+        @Override
+        public void setIndeterminate(boolean indeterminate) {
+            super.setIndeterminate(indeterminate);
+            mGroup.onChanged();
+        }
+    }
+
+    /**
+     * Tasks whose progress is shown in the status bar as a single indicator
+     */
+    private final class ProgressGroup {
+        /** The tasks scheduled and not finished yet, in the order they were scheduled */
+        private final List<Job> mJobs = new ArrayList<>();
+        /** Number of tasks finished since the progress was shown */
+        private int mFinishedCount;
+        /** Whether the progress is shown */
+        private boolean mShown;
+        /** Whether the tasks have started, finished or reported their progress since the progress was updated */
+        private boolean mChanged;
+
+        /**
+         * Add a scheduled task
+         *
+         * @param job the task
+         * @return true if the progress is not shown yet, and has to be shown if the task takes long enough
+         */
+        synchronized boolean add(@NotNull Job job) {
+            mJobs.add(job);
+            onChanged();
+            return !mShown;
+        }
+
+        /**
+         * Remove a task that has finished or was cancelled
+         *
+         * @param job the task
+         */
+        synchronized void remove(@NotNull Job job) {
+            if (mJobs.remove(job)) {
+                mFinishedCount++;
+                onChanged();
+            }
+        }
+
+        /**
+         * Wake the thread showing the progress, as a task has started, finished or reported its progress
+         */
+        synchronized void onChanged() {
+            mChanged = true;
+            notifyAll();
+        }
+
+        /**
+         * Cancel all the tasks
+         */
+        synchronized void cancelAll() {
+            mJobs.forEach(job -> job.mIndicator.cancel());
+            notifyAll();
+        }
+
+        /**
+         * Show the progress in the status bar, unless it is shown already or the tasks have finished
+         */
+        void showIfRunning() {
+            synchronized (this) {
+                if (mShown || mJobs.isEmpty() || mDisposed) {
+                    return;
+                }
+                mShown = true;
+                mFinishedCount = 0;
+                mChanged = true;
+            }
+            final Backgroundable task = new Backgroundable(mProject, "Issue Tracker", true) {
+                @Override
+                public void run(@NotNull ProgressIndicator indicator) {
+                    try {
+                        while (awaitChange(indicator)) {
+                            update(indicator);
+                        }
+                    } catch (InterruptedException e) {
+                        hide();
+                    }
+                }
+            };
+            final ProgressIndicator indicator = new BackgroundableProcessIndicator(task) {
+                @Override
+                public void cancel() {
+                    super.cancel();
+                    cancelAll();
+                }
+            };
+            ProgressManager.getInstance().runProcessWithProgressAsynchronously(task, indicator);
+        }
+
+        /**
+         * Wait until the tasks start, finish or report their progress
+         *
+         * @param indicator the shared indicator
+         * @return false once the tasks have finished or were cancelled, and the progress is hidden
+         * @throws InterruptedException if the thread showing the progress is interrupted
+         */
+        private synchronized boolean awaitChange(@NotNull ProgressIndicator indicator) throws InterruptedException {
+            while (!mChanged && !mJobs.isEmpty() && !mDisposed && !indicator.isCanceled()) {
+                wait();
+            }
+            if (mJobs.isEmpty() || mDisposed || indicator.isCanceled()) {
+                mShown = false;
+                return false;
+            }
+            mChanged = false;
+            return true;
+        }
+
+        /**
+         * Show the progress of the tasks on the shared indicator
+         *
+         * @param indicator the shared indicator
+         */
+        private void update(@NotNull ProgressIndicator indicator) {
+            final Job job;
+            final int remainingCount;
+            final int finishedCount;
+            synchronized (this) {
+                if (mJobs.isEmpty()) {
+                    return;
+                }
+                job = getCurrentJob();
+                remainingCount = mJobs.size();
+                finishedCount = mFinishedCount;
+            }
+            indicator.setText(job.mTask != null ? job.mTask.getTitle() : null);
+            indicator.setText2(remainingCount > 1
+                    ? String.format(Locale.US, "%d more queued", remainingCount - 1) : null);
+            if (remainingCount == 1 && !job.mIndicator.isIndeterminate()) {
+                indicator.setIndeterminate(false);
+                indicator.setFraction(job.mIndicator.getFraction());
+            } else if (finishedCount > 0) {
+                indicator.setIndeterminate(false);
+                indicator.setFraction(finishedCount / (double) (finishedCount + remainingCount));
+            } else {
+                indicator.setIndeterminate(true);
+            }
+        }
+
+        /**
+         * @return the oldest task that is running, or the oldest task if none has started
+         */
+        @NotNull
+        private Job getCurrentJob() {
+            for (Job job : mJobs) {
+                if (job.mStarted) {
+                    return job;
+                }
+            }
+            return mJobs.get(0);
+        }
+
+        /**
+         * Record that the progress is no longer shown
+         */
+        private synchronized void hide() {
+            mShown = false;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.tasks.Comment;
+import com.intellij.tasks.Task;
+import com.intellij.tasks.TaskRepository;
+import com.intellij.tasks.TaskType;
+import com.intellij.tasks.impl.LocalTaskImpl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Date;
+
+import javax.swing.Icon;
+
+/**
+ * An issue restored from the {@link IssueCache}. It holds only what the Issue table shows. The description, url and
+ * comments are available once the full issue is synced or pulled from the repository.
+ */
+final class CachedTask extends Task {
+
+    /** The fingerprint of an issue cached without one */
+    static final long NO_FINGERPRINT = 0;
+
+    /** The id of the issue */
+    @NotNull
+    private final String mId;
+    /** The name of the issue, as shown in the Issue table */
+    @NotNull
+    private final String mPresentableName;
+    /** The creation date of the issue */
+    @Nullable
+    private final Date mCreated;
+    /** The last updated date of the issue */
+    @Nullable
+    private final Date mUpdated;
+    /** The type of the issue */
+    @NotNull
+    private final TaskType mType;
+    /** Whether the issue is closed */
+    private final boolean mClosed;
+    /** Whether the task is an issue from a repository */
+    private final boolean mIssue;
+    /** The repository the issue was synced from, or null if that repository is no longer configured */
+    @Nullable
+    private final TaskRepository mRepository;
+    /** The fingerprint of the full issue when it was cached, or {@link #NO_FINGERPRINT} */
+    private final long mFingerprint;
+
+    /**
+     * Constructor
+     *
+     * @param id              the id of the issue
+     * @param presentableName the name of the issue, as shown in the Issue table
+     * @param created         the creation date
+     * @param updated         the last updated date
+     * @param type            the type of the issue
+     * @param closed          whether the issue is closed
+     * @param issue           whether the task is an issue from a repository
+     * @param repository      the repository the issue was synced from
+     * @param fingerprint     the fingerprint of the full issue when it was cached, or {@link #NO_FINGERPRINT}
+     */
+    CachedTask(@NotNull String id, @NotNull String presentableName, @Nullable Date created, @Nullable Date updated,
+               @NotNull TaskType type, boolean closed, boolean issue, @Nullable TaskRepository repository,
+               long fingerprint) {
+        mId = id;
+        mPresentableName = presentableName;
+        mCreated = created;
+        mUpdated = updated;
+        mType = type;
+        mClosed = closed;
+        mIssue = issue;
+        mRepository = repository;
+        mFingerprint = fingerprint;
+    }
+
+    /**
+     * @return the fingerprint of the full issue when it was cached, since the fingerprint of this issue would not
+     * include the description and the url that are not cached
+     */
+    long getFingerprint() {
+        return mFingerprint;
+    }
+
+    @NotNull
+    @Override
+    public String getId() {
+        return mId;
+    }
+
+    @NotNull
+    @Override
+    public String getSummary() {
+        return mPresentableName;
+    }
+
+    @NotNull
+    @Override
+    public String getPresentableName() {
+        return mPresentableName;
+    }
+
+    @Nullable
+    @Override
+    public String getDescription() {
+        return null;
+    }
+
+    @NotNull
+    @Override
+    public Comment[] getComments() {
+        return Comment.EMPTY_ARRAY;
+    }
+
+    @NotNull
+    @Override
+    public Icon getIcon() {
+        return LocalTaskImpl.getIconFromType(mType, mIssue);
+    }
+
+    @NotNull
+    @Override
+    public TaskType getType() {
+        return mType;
+    }
+
+    @Nullable
+    @Override
+    public Date getUpdated() {
+        return mUpdated;
+    }
+
+    @Nullable
+    @Override
+    public Date getCreated() {
+        return mCreated;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return mClosed;
+    }
+
+    @Override
+    public boolean isIssue() {
+        return mIssue;
+    }
+
+    @Nullable
+    @Override
+    public String getIssueUrl() {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public TaskRepository getRepository() {
+        return mRepository;
+    }
+}
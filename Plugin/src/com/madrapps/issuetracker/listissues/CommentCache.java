@@ -0,0 +1,172 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.tasks.Comment;
+import com.intellij.tasks.Task;
+import com.madrapps.issuetracker.diagnostics.Timings;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A project level cache of the comments of the issues, evicting the least recently used.
+ */
+public final class CommentCache {
+
+    /** Maximum number of issues whose comments are cached */
+    static final int MAX_ENTRIES = 200;
+    /** Maximum number of characters of comments cached */
+    static final long MAX_CHARS = 4 * 1024 * 1024;
+
+    /** The cached comments keyed by issue id, in the order of access */
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+    /** Number of characters of comments cached */
+    private long mChars;
+    /** Number of lookups that found the comments */
+    private long mHits;
+    /** Number of lookups that did not find the comments, or found outdated comments */
+    private long mMisses;
+    /** Number of issues evicted to stay within bounds */
+    private long mEvictions;
+
+    /**
+     * Get the comment cache of the project
+     *
+     * @param project the current project
+     * @return the comment cache
+     */
+    @NotNull
+    public static CommentCache getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, CommentCache.class);
+    }
+
+    /**
+     * Get the cached comments of the issue. Comments cached before the issue was last updated are discarded.
+     *
+     * @param issue the issue
+     * @return the comments, or null if they are not cached
+     */
+    @Nullable
+    synchronized Comment[] get(@NotNull Task issue) {
+        final Entry entry = mEntries.get(issue.getId());
+        if (entry != null && entry.mUpdated >= getUpdatedTime(issue)) {
+            mHits++;
+            Timings.increment("comment cache hits");
+            return entry.mComments;
+        }
+        if (entry != null) {
+            remove(issue.getId());
+        }
+        mMisses++;
+        Timings.increment("comment cache misses");
+        return null;
+    }
+
+    /**
+     * Determine if the comments of the issue are cached and up to date. This is not counted as a lookup.
+     *
+     * @param issue the issue
+     * @return true if the comments are cached
+     */
+    synchronized boolean contains(@NotNull Task issue) {
+        final Entry entry = mEntries.get(issue.getId());
+        return entry != null && entry.mUpdated >= getUpdatedTime(issue);
+    }
+
+    /**
+     * Cache the comments of the issue, evicting the least recently used issues if needed
+     *
+     * @param issue    the issue
+     * @param comments the comments of the issue
+     */
+    synchronized void put(@NotNull Task issue, @Nullable Comment[] comments) {
+        if (comments == null || issue instanceof CachedTask) {
+            // The comments of a cached issue are not known until it is synced
+            return;
+        }
+        final Entry entry = new Entry(comments, getUpdatedTime(issue), sizeOf(comments));
+        if (entry.mChars > MAX_CHARS) {
+            return;
+        }
+        remove(issue.getId());
+        mEntries.put(issue.getId(), entry);
+        mChars += entry.mChars;
+
+        final Iterator<Map.Entry<String, Entry>> iterator = mEntries.entrySet().iterator();
+        while ((mEntries.size() > MAX_ENTRIES || mChars > MAX_CHARS) && iterator.hasNext()) {
+            final Map.Entry<String, Entry> eldest = iterator.next();
+            mChars -= eldest.getValue().mChars;
+            iterator.remove();
+            mEvictions++;
+            Timings.increment("comment cache evictions");
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "Comment cache: %d issues, %d chars, %d hits, %d misses, %d evictions",
+                mEntries.size(), mChars, mHits, mMisses, mEvictions);
+    }
+
+    /**
+     * Remove the comments of the issue
+     *
+     * @param id the id of the issue
+     */
+    private void remove(@NotNull String id) {
+        final Entry entry = mEntries.remove(id);
+        if (entry != null) {
+            mChars -= entry.mChars;
+        }
+    }
+
+    /**
+     * @param issue the issue
+     * @return the time the issue was last updated, or 0 if unknown
+     */
+    private static long getUpdatedTime(@NotNull Task issue) {
+        final Date updated = issue.getUpdated();
+        return updated != null ? updated.getTime() : 0;
+    }
+
+    /**
+     * Estimate the size of the comments
+     *
+     * @param comments the comments
+     * @return the number of characters in the comments
+     */
+    private static long sizeOf(@NotNull Comment[] comments) {
+        long chars = 0;
+        for (Comment comment : comments) {
+            final String text = comment.getText();
+            final String author = comment.getAuthor();
+            chars += (text != null ? text.length() : 0) + (author != null ? author.length() : 0);
+        }
+        return chars;
+    }
+
+    /**
+     * The cached comments of an issue
+     */
+    private static final class Entry {
+        /** The comments */
+        private final Comment[] mComments;
+        /** The updated time of the issue when the comments were pulled */
+        private final long mUpdated;
+        /** The number of characters in the comments */
+        private final long mChars;
+
+        private Entry(@NotNull Comment[] comments, long updated, long chars) {
+            mComments = comments;
+            mUpdated = updated;
+            mChars = chars;
+        }
+    }
+}
@@ -3,11 +3,16 @@ package com.madrapps.issuetracker.listissues;
 import com.intellij.openapi.project.Project;
 import com.intellij.tasks.Comment;
 import com.intellij.tasks.Task;
+import com.intellij.tasks.TaskRepository;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.awt.Image;
+import java.io.File;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Interface to establish a MVP pattern
@@ -37,14 +42,28 @@ public interface IListIssuesContract {
          */
         void init(@NotNull Project project);
 
+        /**
+         * Show the filter in the filter bar
+         *
+         * @param filter       the filter of the project
+         * @param repositories the repositories that can be chosen
+         */
+        void initFilter(@NotNull IssueFilter filter, @NotNull TaskRepository[] repositories);
+
         /**
          * Show the details for the selected issue in the details panel
          *
-         * @param description The description of the issue
-         * @param issueUrl    the IssueUrl of the issue
-         * @param comments    the comments of the issue
+         * @param detailsHtml the html document with the description, comments and IssueUrl of the issue
          */
-        void showDetails(@Nullable String description, @Nullable String issueUrl, @Nullable Comment[] comments);
+        void showDetails(@NotNull String detailsHtml);
+
+        /**
+         * Insert older comments of the issue shown in the details panel before the comments already shown
+         *
+         * @param commentsHtml the html of the older comments
+         * @param olderCount   the number of comments still older than these, which are not shown yet
+         */
+        void prependComments(@NotNull String commentsHtml, int olderCount);
 
         /**
          * Decides whether we should show the Loading component or the Issue Table component
@@ -58,6 +77,45 @@ public interface IListIssuesContract {
          */
         void showEmptyIssueListScreen();
 
+        /**
+         * Report that the issues could not be pulled from a repository. The issues of the other repositories are
+         * still shown.
+         *
+         * @param repositoryName the name of the repository
+         * @param message        the reason it failed
+         */
+        void showRepositoryError(@NotNull String repositoryName, @NotNull String message);
+
+        /**
+         * Report that no more pages are loaded for the filter, although the repositories have more issues
+         *
+         * @param rowCount the number of issues loaded
+         */
+        void showPageLimitReached(int rowCount);
+
+        /**
+         * Remove issues from the Issue table
+         *
+         * @param issueIds the ids of the issues that are no longer in the repositories
+         */
+        void removeIssues(@NotNull Set<String> issueIds);
+
+        /**
+         * Report the issues that a refresh found to be new or updated, until the user looks at them
+         *
+         * @param addedCount   the number of new issues
+         * @param updatedCount the number of updated issues
+         */
+        void showChanges(int addedCount, int updatedCount);
+
+        /**
+         * Adds the comments of an issue to the local search, so that the issue can be found by its comments
+         *
+         * @param issueId  the id of the issue
+         * @param comments the comments of the issue
+         */
+        void indexComments(@NotNull String issueId, @NotNull Comment[] comments);
+
         /**
          * Opens the issue url in the browser
          *
@@ -73,12 +131,45 @@ public interface IListIssuesContract {
         void showDetailsPanel(boolean shouldShow);
 
         /**
-         * Get the selected issue in the Issue list table
+         * Get the id of the selected issue in the Issue list table
+         *
+         * @return the id of the selected issue in the issue list, or null if nothing is selected
+         */
+        @Nullable
+        String getSelectedIssueId();
+
+        /**
+         * Get the row of an issue in the Issue list table
          *
-         * @return the selected issue in the issue list, or null if nothing is selected
+         * @param issueId the id of the issue
+         * @return the row of the issue, or null if the issue is not in the table
          */
         @Nullable
-        Task getSelectedIssue();
+        IssueRow getIssueRow(@NotNull String issueId);
+
+        /**
+         * Get all the rows in the Issue list table
+         *
+         * @return a copy of the rows in the table
+         */
+        @NotNull
+        List<IssueRow> getIssueRows();
+
+        /**
+         * Get the rows shown in the Issue list table, in the order they are shown
+         *
+         * @return a copy of the rows that match the search, sorted as in the table
+         */
+        @NotNull
+        List<IssueRow> getVisibleIssueRows();
+
+        /**
+         * Report the outcome of an export
+         *
+         * @param message what was exported, or the reason it failed
+         * @param failed  true if the export failed
+         */
+        void showExportResult(@NotNull String message, boolean failed);
 
         /**
          * Determines if the details panel is shown or not
@@ -97,28 +188,65 @@ public interface IListIssuesContract {
          * Pull issues asynchronously from the server
          *
          * @param project the current project
-         * @param query   the search query
+         * @param filter  the filter, pushed down to the repositories
          * @param force   if true, force sync all issues, if false adds new issues to existing list
          */
-        void pullIssues(@NotNull Project project, @Nullable String query, boolean force);
+        void pullIssues(@NotNull Project project, @NotNull IssueFilter filter, boolean force);
 
         /**
          * Pull issues asynchronously from the server
          *
          * @param project the current project
-         * @param query   the search query
+         * @param filter  the filter, pushed down to the repositories
          * @param offset  the offset (mostly 0)
          * @param limit   the limit
          * @param force   if true, force sync all issues, if false adds new issues to existing list
          */
-        void pullIssues(@NotNull Project project, @Nullable String query, int offset, int limit, boolean force);
+        void pullIssues(@NotNull Project project, @NotNull IssueFilter filter, int offset, int limit, boolean force);
+
+        /**
+         * Change the filter of the issues, which is kept for the project, and pull the issues that match it
+         *
+         * @param project the current project
+         * @param filter  the filter chosen in the filter bar
+         */
+        void setFilter(@NotNull Project project, @NotNull IssueFilter filter);
+
+        /**
+         * Refresh the issues asynchronously. Only the issues updated since the last sync are pulled and merged,
+         * unless a full sync is due or a repository cannot filter the issues by their updated time.
+         *
+         * @param project the current project
+         */
+        void refreshIssues(@NotNull Project project);
+
+        /**
+         * Pull the next page of issues if the user has scrolled close to the end of the issue table. Nothing
+         * is pulled if a page is already being pulled or all the issues are already loaded.
+         *
+         * @param project        the current project
+         * @param lastVisibleRow the last row visible in the issue table
+         * @param rowCount       the number of rows in the issue table
+         */
+        void loadMoreIssues(@NotNull Project project, int lastVisibleRow, int rowCount);
+
+        /**
+         * Show the details of a particular issue. The full issue is pulled from its repository if it is not kept in
+         * memory.
+         *
+         * @param project the current project
+         * @param issueId the id of the issue
+         */
+        void showDetails(@NotNull Project project, @NotNull String issueId);
 
         /**
-         * Show the details of a particular issue
+         * Pull the comments of the issues in the background, so that they are shown immediately when the issues are
+         * selected. This does nothing if prefetching is disabled.
          *
-         * @param selectedIssue the issue
+         * @param project  the current project
+         * @param issueIds the ids of the issues, usually the ones next to the selected issue
          */
-        void showDetails(@NotNull Task selectedIssue);
+        void prefetchComments(@NotNull Project project, @NotNull List<String> issueIds);
 
         /**
          * Load the issues when the Tool window is first activated
@@ -127,6 +255,13 @@ public interface IListIssuesContract {
          */
         void loadInitialIssues(@NotNull Project project);
 
+        /**
+         * Pauses or resumes the automatic refresh of the issues as the ToolWindow is hidden or shown
+         *
+         * @param shown true if the ToolWindow is shown
+         */
+        void setToolWindowShown(boolean shown);
+
         /**
          * Sets The ToolWindow view to the presenter, so that the presenter has a reference to it
          *
@@ -148,9 +283,45 @@ public interface IListIssuesContract {
         /**
          * Opens the issue url in the browser
          *
-         * @param selectedIssue the issue
+         * @param project the current project
+         * @param issueId the id of the issue
+         */
+        void openUrl(@NotNull Project project, @NotNull String issueId);
+
+        /**
+         * Export the issues shown in the table to a file in the background
+         *
+         * @param project        the current project
+         * @param file           the file to write
+         * @param format         the format to write
+         * @param includeDetails if true, the descriptions and comments are pulled and exported too
+         */
+        void exportIssues(@NotNull Project project, @NotNull File file, @NotNull IssueExporter.Format format,
+                          boolean includeDetails);
+
+        /**
+         * Show the next batch of older comments of the issue shown in the details panel
+         */
+        void showOlderComments();
+
+        /**
+         * Get an image embedded in the details if it is already loaded, so that it is shown without a placeholder
+         *
+         * @param url      the url of the image
+         * @param maxWidth the width the image is downscaled to, if it is wider
+         * @return the image, or null if it has to be loaded with {@link #loadImage(String, int, Consumer)}
+         */
+        @Nullable
+        Image getCachedImage(@NotNull String url, int maxWidth);
+
+        /**
+         * Load an image embedded in the details in the background, from the disk cache or else from the network
+         *
+         * @param url      the url of the image
+         * @param maxWidth the width the image is downscaled to, if it is wider
+         * @param consumer receives the image on the EDT, or null if it cannot be loaded
          */
-        void openUrl(@NotNull Task selectedIssue);
+        void loadImage(@NotNull String url, int maxWidth, @NotNull Consumer<Image> consumer);
 
         /**
          * Show/Hide the details panel
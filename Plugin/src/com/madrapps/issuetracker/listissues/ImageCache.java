@@ -0,0 +1,368 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.util.io.HttpRequests;
+import com.madrapps.issuetracker.diagnostics.Timings;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Loads the images embedded in the issues for the details panel, cached on disk and downscaled in memory.
+ */
+public final class ImageCache {
+
+    private static final Logger LOG = Logger.getInstance(ImageCache.class);
+
+    /** Maximum size of the decoded images kept in memory, counted as 4 bytes per pixel */
+    static final long MAX_MEMORY_BYTES = 32 * 1024 * 1024;
+    /** Maximum size of the downloaded images kept on disk */
+    static final long MAX_DISK_BYTES = 100 * 1024 * 1024;
+    /** Maximum size of a single image. Larger images are not downloaded */
+    static final int MAX_IMAGE_BYTES = 10 * 1024 * 1024;
+    /** Time during which an image that could not be loaded is not tried again */
+    static final long FAILURE_TTL_MS = TimeUnit.MINUTES.toMillis(5);
+    /** Maximum number of images remembered as failed */
+    private static final int MAX_FAILURES = 500;
+    /** Time an image server is given to connect and to respond */
+    private static final int TIMEOUT_MS = (int) TimeUnit.SECONDS.toMillis(15);
+
+    /** The directory of the downloaded images */
+    @NotNull
+    private final File mDirectory;
+    /** The decoded images keyed by url and width, in the order of access */
+    private final Map<String, BufferedImage> mImages = new LinkedHashMap<>(16, 0.75f, true);
+    /** The size of the images in {@link #mImages} */
+    private long mMemoryBytes;
+    /** The time each image that could not be loaded failed, keyed by url, oldest first */
+    private final Map<String, Long> mFailures = new LinkedHashMap<String, Long>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_FAILURES;
+        }
+    };
+
+    /**
+     * Constructor, called by the platform when the application service is first requested. The images are kept in
+     * the system directory of the IDE.
+     */
+    public ImageCache() {
+        this(new File(new File(PathManager.getSystemPath(), "issue-tracker"), "images"));
+    }
+
+    /**
+     * Constructor
+     *
+     * @param directory the directory of the downloaded images
+     */
+    ImageCache(@NotNull File directory) {
+        mDirectory = directory;
+    }
+
+    /**
+     * Get the image cache of the IDE, shared by the projects
+     *
+     * @return the image cache
+     */
+    @NotNull
+    public static ImageCache getInstance() {
+        return ServiceManager.getService(ImageCache.class);
+    }
+
+    /**
+     * Get an image if it is decoded in memory
+     *
+     * @param url      the url of the image
+     * @param maxWidth the width the image is downscaled to
+     * @return the image, or null if it has to be loaded
+     */
+    @Nullable
+    synchronized BufferedImage getCached(@NotNull String url, int maxWidth) {
+        return mImages.get(getKey(url, maxWidth));
+    }
+
+    /**
+     * Get an image from memory, from disk, or else from the network, downscaled to the given width
+     *
+     * @param url       the url of the image
+     * @param maxWidth  the width the image is downscaled to, if it is wider
+     * @param indicator the indicator to check whether loading has been cancelled
+     * @return the image, or null if it cannot be loaded or decoded, or failed to recently
+     */
+    @Nullable
+    BufferedImage load(@NotNull String url, int maxWidth, @NotNull ProgressIndicator indicator) {
+        final BufferedImage cachedImage = getCached(url, maxWidth);
+        if (cachedImage != null) {
+            return cachedImage;
+        }
+        if (hasFailedRecently(url)) {
+            return null;
+        }
+        final long start = Timings.start();
+        final File file = new File(mDirectory, getFileName(url));
+        try {
+            final byte[] bytes;
+            if (file.isFile()) {
+                bytes = Files.readAllBytes(file.toPath());
+                // Keep the images used recently when the disk cache is trimmed
+                file.setLastModified(System.currentTimeMillis());
+            } else {
+                indicator.checkCanceled();
+                bytes = download(url);
+                write(file, bytes);
+            }
+            indicator.checkCanceled();
+            final BufferedImage image = decode(bytes, maxWidth);
+            if (image != null) {
+                put(getKey(url, maxWidth), image);
+            } else {
+                addFailure(url);
+            }
+            Timings.stop("image load", start, url);
+            return image;
+        } catch (IOException | RuntimeException e) {
+            if (e instanceof RuntimeException && indicator.isCanceled()) {
+                throw (RuntimeException) e;
+            }
+            LOG.info("Could not load the image " + url + ": " + e.getMessage());
+            addFailure(url);
+            return null;
+        }
+    }
+
+    /**
+     * @param url the url of an image
+     * @return true if the image could not be loaded within the last {@link #FAILURE_TTL_MS}
+     */
+    private synchronized boolean hasFailedRecently(@NotNull String url) {
+        final Long failureTime = mFailures.get(url);
+        if (failureTime == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - failureTime < FAILURE_TTL_MS) {
+            return true;
+        }
+        mFailures.remove(url);
+        return false;
+    }
+
+    /**
+     * Remember that an image could not be loaded, so that it is not tried again for {@link #FAILURE_TTL_MS}
+     *
+     * @param url the url of the image
+     */
+    private synchronized void addFailure(@NotNull String url) {
+        // Removed first, so that the failure is moved to the end of the order of insertion
+        mFailures.remove(url);
+        mFailures.put(url, System.currentTimeMillis());
+    }
+
+    /**
+     * Keep a decoded image in memory, dropping the least recently used images beyond {@link #MAX_MEMORY_BYTES}
+     *
+     * @param key   the url and width of the image
+     * @param image the image
+     */
+    private synchronized void put(@NotNull String key, @NotNull BufferedImage image) {
+        final BufferedImage previousImage = mImages.put(key, image);
+        if (previousImage != null) {
+            mMemoryBytes -= getBytes(previousImage);
+        }
+        mMemoryBytes += getBytes(image);
+        final Iterator<BufferedImage> images = mImages.values().iterator();
+        while (mMemoryBytes > MAX_MEMORY_BYTES && images.hasNext()) {
+            final BufferedImage eldestImage = images.next();
+            if (eldestImage != image) {
+                mMemoryBytes -= getBytes(eldestImage);
+                images.remove();
+            }
+        }
+    }
+
+    /**
+     * Write a downloaded image to disk, and delete the least recently used images beyond {@link #MAX_DISK_BYTES}
+     *
+     * @param file  the file of the image
+     * @param bytes the image
+     */
+    private void write(@NotNull File file, @NotNull byte[] bytes) {
+        try {
+            if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+                throw new IOException("Cannot create " + mDirectory);
+            }
+            // Write to a temporary file and then move it, so that a crash never leaves a half written image
+            final File tempFile = File.createTempFile(file.getName(), ".tmp", mDirectory);
+            Files.write(tempFile.toPath(), bytes);
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOG.info("Could not write the image cache " + file + ": " + e.getMessage());
+            return;
+        }
+        trimDisk();
+    }
+
+    /**
+     * Delete the least recently used images until the images on disk fit in {@link #MAX_DISK_BYTES}
+     */
+    private void trimDisk() {
+        final File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        long diskBytes = 0;
+        for (File file : files) {
+            diskBytes += file.length();
+        }
+        if (diskBytes <= MAX_DISK_BYTES) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (diskBytes <= MAX_DISK_BYTES) {
+                break;
+            }
+            final long length = file.length();
+            if (file.delete()) {
+                diskBytes -= length;
+            }
+        }
+    }
+
+    /**
+     * Download an image
+     *
+     * @param url the url of the image
+     * @return the image
+     * @throws IOException if the image cannot be downloaded, or is larger than {@link #MAX_IMAGE_BYTES}
+     */
+    @NotNull
+    private static byte[] download(@NotNull String url) throws IOException {
+        return HttpRequests.request(url)
+                .connectTimeout(TIMEOUT_MS)
+                .readTimeout(TIMEOUT_MS)
+                .productNameAsUserAgent()
+                .connect(request -> {
+                    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    final byte[] buffer = new byte[8192];
+                    try (InputStream in = request.getInputStream()) {
+                        int read;
+                        while ((read = in.read(buffer)) != -1) {
+                            if (out.size() + read > MAX_IMAGE_BYTES) {
+                                throw new IOException("Larger than " + MAX_IMAGE_BYTES + " bytes");
+                            }
+                            out.write(buffer, 0, read);
+                        }
+                    }
+                    return out.toByteArray();
+                });
+    }
+
+    /**
+     * Decode an image and downscale it to the given width. A large image is subsampled while it is decoded, so that
+     * it is never held in memory at its full size.
+     *
+     * @param bytes    the encoded image
+     * @param maxWidth the width the image is downscaled to, if it is wider
+     * @return the image, or null if it is not in a known format
+     * @throws IOException if the image is malformed
+     */
+    @Nullable
+    private static BufferedImage decode(@NotNull byte[] bytes, int maxWidth) throws IOException {
+        final BufferedImage image;
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            final Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            final ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                final ImageReadParam param = reader.getDefaultReadParam();
+                // Keep at least twice the width, so that the image is still smooth once downscaled
+                final int subsampling = Math.max(1, reader.getWidth(0) / (maxWidth * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                image = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+        if (image.getWidth() <= maxWidth) {
+            return image;
+        }
+        final int height = Math.max(1, (int) ((long) image.getHeight() * maxWidth / image.getWidth()));
+        final BufferedImage scaledImage = new BufferedImage(maxWidth, height, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics = scaledImage.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, maxWidth, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaledImage;
+    }
+
+    /**
+     * @param url      the url of the image
+     * @param maxWidth the width the image is downscaled to
+     * @return the key of the image in memory
+     */
+    @NotNull
+    private static String getKey(@NotNull String url, int maxWidth) {
+        return maxWidth + ":" + url;
+    }
+
+    /**
+     * @param url the url of the image
+     * @return the name of the file of the image on disk
+     */
+    @NotNull
+    private static String getFileName(@NotNull String url) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-1").digest(url.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder name = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                name.append(String.format("%02x", b));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-1
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param image a decoded image
+     * @return the size of the image in memory
+     */
+    private static long getBytes(@NotNull BufferedImage image) {
+        return 4L * image.getWidth() * image.getHeight();
+    }
+}
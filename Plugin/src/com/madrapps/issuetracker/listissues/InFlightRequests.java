@@ -0,0 +1,112 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Keeps track of the background requests in progress, so that the same request is not started twice.
+ */
+final class InFlightRequests {
+
+    /** The requests in progress */
+    private final Map<String, Request> mRequests = new HashMap<>();
+
+    /**
+     * Record that a request has started, unless a request with the same key is already in progress
+     *
+     * @param key       identifies what is requested
+     * @param task      the task that runs the request
+     * @param indicator the indicator of the task
+     * @return true if the request has to be run, false if the same request is already in progress
+     */
+    boolean start(@NotNull String key, @NotNull Object task, @NotNull ProgressIndicator indicator) {
+        final Request request = mRequests.get(key);
+        if (request != null && !request.mIndicator.isCanceled()) {
+            return false;
+        }
+        mRequests.put(key, new Request(task, indicator));
+        return true;
+    }
+
+    /**
+     * Record that a request has finished or was cancelled
+     *
+     * @param key  identifies what was requested
+     * @param task the task that ran the request
+     */
+    void finish(@NotNull String key, @NotNull Object task) {
+        final Request request = mRequests.get(key);
+        if (request != null && request.mTask == task) {
+            mRequests.remove(key);
+        }
+    }
+
+    /**
+     * Determine if a request is in progress
+     *
+     * @param key identifies what is requested
+     * @return true if the request is in progress and not cancelled
+     */
+    boolean isInFlight(@NotNull String key) {
+        final Request request = mRequests.get(key);
+        return request != null && !request.mIndicator.isCanceled();
+    }
+
+    /**
+     * Determine if any request is in progress
+     *
+     * @return true if a request is in progress and not cancelled
+     */
+    boolean isAnyInFlight() {
+        for (Request request : mRequests.values()) {
+            if (!request.mIndicator.isCanceled()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cancel all the requests in progress
+     */
+    void cancelAll() {
+        mRequests.values().forEach(request -> request.mIndicator.cancel());
+        mRequests.clear();
+    }
+
+    /**
+     * Cancel all the requests in progress, except the one with the given key
+     *
+     * @param key the request that is still needed
+     */
+    void cancelAllExcept(@NotNull String key) {
+        final Iterator<Map.Entry<String, Request>> iterator = mRequests.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<String, Request> entry = iterator.next();
+            if (!entry.getKey().equals(key)) {
+                entry.getValue().mIndicator.cancel();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * A request in progress
+     */
+    private static final class Request {
+        /** The task that runs the request */
+        private final Object mTask;
+        /** The indicator of the task */
+        private final ProgressIndicator mIndicator;
+
+        private Request(@NotNull Object task, @NotNull ProgressIndicator indicator) {
+            mTask = task;
+            mIndicator = indicator;
+        }
+    }
+}
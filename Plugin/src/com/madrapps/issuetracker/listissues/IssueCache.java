@@ -0,0 +1,301 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.tasks.Task;
+import com.intellij.tasks.TaskRepository;
+import com.intellij.tasks.TaskType;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Persists the rows of the Issue table of a project on disk, so that the table is filled at once when opened.
+ */
+final class IssueCache {
+
+    private static final Logger LOG = Logger.getInstance(IssueCache.class);
+
+    /** Identifies an issue cache file */
+    private static final int MAGIC = 0x49544348;
+    /** Version of the file format. Increment this whenever the format changes */
+    static final int SCHEMA_VERSION = 3;
+    /** Maximum number of issues stored. The rows of the Issue table beyond are pulled again by paging */
+    static final int MAX_ISSUES = 2000;
+    /** Maximum size of the payload in bytes. Issues beyond this are not stored */
+    static final int MAX_PAYLOAD_BYTES = 8 * 1024 * 1024;
+
+    /** The cache file */
+    @NotNull
+    private final File mFile;
+
+    /**
+     * Constructor
+     *
+     * @param file the cache file
+     */
+    IssueCache(@NotNull File file) {
+        mFile = file;
+    }
+
+    /**
+     * Get the cache of the given project. The file is kept in the system directory of the IDE.
+     *
+     * @param project the current project
+     * @return the issue cache
+     */
+    @NotNull
+    static IssueCache forProject(@NotNull Project project) {
+        final File directory = new File(PathManager.getSystemPath(), "issue-tracker");
+        return new IssueCache(new File(directory, project.getLocationHash() + ".issues"));
+    }
+
+    /**
+     * Read the cached issues. This does disk IO and should not be called from the EDT.
+     *
+     * @param repositories the configured repositories, to restore the repository of each issue
+     * @return the cached issues, or an empty list if there is no cache or it cannot be read
+     */
+    @NotNull
+    List<Task> load(@NotNull TaskRepository[] repositories) {
+        if (!mFile.isFile()) {
+            return Collections.emptyList();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(mFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != SCHEMA_VERSION) {
+                throw new IOException("Unknown format");
+            }
+            final int count = in.readInt();
+            final int length = in.readInt();
+            final long checksum = in.readLong();
+            if (count < 0 || count > MAX_ISSUES || length < 0 || length > MAX_PAYLOAD_BYTES) {
+                throw new IOException("Invalid header");
+            }
+            final byte[] payload = new byte[length];
+            in.readFully(payload);
+            final CRC32 crc = new CRC32();
+            crc.update(payload);
+            if (crc.getValue() != checksum) {
+                throw new IOException("Checksum mismatch");
+            }
+            return readIssues(new DataInputStream(new ByteArrayInputStream(payload)), count, repositories);
+        } catch (IOException | RuntimeException e) {
+            LOG.info("Discarding the issue cache " + mFile + ": " + e.getMessage());
+            delete();
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Write the rows to the cache, replacing the previous contents. Only the first {@link #MAX_ISSUES} rows that
+     * fit in {@link #MAX_PAYLOAD_BYTES} are stored. This does disk IO and should not be called from the EDT.
+     *
+     * @param issues       the rows to be cached
+     * @param fingerprints the fingerprint of each row, keyed by issue id, taken along with the rows
+     */
+    void save(@NotNull List<IssueRow> issues, @NotNull Map<String, Long> fingerprints) {
+        try {
+            final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            final ByteArrayOutputStream entry = new ByteArrayOutputStream();
+            final DataOutputStream out = new DataOutputStream(entry);
+            int count = 0;
+            for (IssueRow issue : issues) {
+                entry.reset();
+                final Long fingerprint = fingerprints.get(issue.getId());
+                writeIssue(out, issue, fingerprint != null ? fingerprint : CachedTask.NO_FINGERPRINT);
+                if (count == MAX_ISSUES || payload.size() + entry.size() > MAX_PAYLOAD_BYTES) {
+                    break;
+                }
+                entry.writeTo(payload);
+                count++;
+            }
+            final byte[] bytes = payload.toByteArray();
+            final CRC32 crc = new CRC32();
+            crc.update(bytes);
+
+            final File directory = mFile.getParentFile();
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Cannot create " + directory);
+            }
+            // Write to a temporary file and then move it, so that a crash never leaves a half written cache
+            final File tempFile = new File(directory, mFile.getName() + ".tmp");
+            try (DataOutputStream file = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                file.writeInt(MAGIC);
+                file.writeInt(SCHEMA_VERSION);
+                file.writeInt(count);
+                file.writeInt(bytes.length);
+                file.writeLong(crc.getValue());
+                file.write(bytes);
+            }
+            Files.move(tempFile.toPath(), mFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOG.info("Could not write the issue cache " + mFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Delete the cache file
+     */
+    void delete() {
+        if (mFile.exists() && !mFile.delete()) {
+            LOG.info("Could not delete the issue cache " + mFile);
+        }
+    }
+
+    /**
+     * Write a single row
+     *
+     * @param out         the output
+     * @param issue       the row
+     * @param fingerprint the fingerprint of the full issue
+     * @throws IOException if writing fails
+     */
+    private static void writeIssue(@NotNull DataOutputStream out, @NotNull IssueRow issue, long fingerprint)
+            throws IOException {
+        final TaskRepository repository = issue.getRepository();
+        writeString(out, issue.getId());
+        writeString(out, issue.getPresentableName());
+        writeDate(out, IssueRow.toDate(issue.getCreated()));
+        writeDate(out, IssueRow.toDate(issue.getUpdated()));
+        out.writeByte(issue.getType().ordinal());
+        out.writeBoolean(issue.isClosed());
+        out.writeBoolean(issue.isIssue());
+        writeString(out, repository != null ? repository.getUrl() : null);
+        out.writeLong(fingerprint);
+    }
+
+    /**
+     * Read the issues from the payload
+     *
+     * @param in           the payload
+     * @param count        the number of issues in the payload
+     * @param repositories the configured repositories
+     * @return the issues
+     * @throws IOException if the payload is malformed
+     */
+    @NotNull
+    private static List<Task> readIssues(@NotNull DataInputStream in, int count,
+                                         @NotNull TaskRepository[] repositories) throws IOException {
+        final TaskType[] types = TaskType.values();
+        final List<Task> issues = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final String id = readString(in);
+            final String presentableName = readString(in);
+            final Date created = readDate(in);
+            final Date updated = readDate(in);
+            final int type = in.readByte();
+            final boolean closed = in.readBoolean();
+            final boolean issue = in.readBoolean();
+            final String repositoryUrl = readString(in);
+            final long fingerprint = in.readLong();
+            if (id == null || presentableName == null || type < 0 || type >= types.length) {
+                throw new IOException("Malformed issue at " + i);
+            }
+            issues.add(new CachedTask(id, presentableName, created, updated, types[type], closed, issue,
+                    findRepository(repositories, repositoryUrl), fingerprint));
+        }
+        return issues;
+    }
+
+    /**
+     * Find the configured repository with the given url
+     *
+     * @param repositories the configured repositories
+     * @param url          the url of the repository
+     * @return the repository, or null if it is not configured anymore
+     */
+    @Nullable
+    private static TaskRepository findRepository(@NotNull TaskRepository[] repositories, @Nullable String url) {
+        if (url != null) {
+            for (TaskRepository repository : repositories) {
+                if (url.equals(repository.getUrl())) {
+                    return repository;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Write a string as its UTF-8 length and bytes, or -1 if it is null
+     *
+     * @param out   the output
+     * @param value the string
+     * @throws IOException if writing fails
+     */
+    private static void writeString(@NotNull DataOutputStream out, @Nullable String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Read a string written by {@link #writeString(DataOutputStream, String)}
+     *
+     * @param in the input
+     * @return the string
+     * @throws IOException if the length is invalid
+     */
+    @Nullable
+    private static String readString(@NotNull DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Invalid string length " + length);
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write a date as epoch millis, or {@link Long#MIN_VALUE} if it is null
+     *
+     * @param out  the output
+     * @param date the date
+     * @throws IOException if writing fails
+     */
+    private static void writeDate(@NotNull DataOutputStream out, @Nullable Date date) throws IOException {
+        out.writeLong(date != null ? date.getTime() : Long.MIN_VALUE);
+    }
+
+    /**
+     * Read a date written by {@link #writeDate(DataOutputStream, Date)}
+     *
+     * @param in the input
+     * @return the date
+     * @throws IOException if reading fails
+     */
+    @Nullable
+    private static Date readDate(@NotNull DataInputStream in) throws IOException {
+        final long time = in.readLong();
+        return time != Long.MIN_VALUE ? new Date(time) : null;
+    }
+}
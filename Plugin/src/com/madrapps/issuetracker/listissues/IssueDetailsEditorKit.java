@@ -0,0 +1,220 @@
+package com.madrapps.issuetracker.listissues;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.Color;
+import java.awt.Container;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.Insets;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+import javax.swing.JComponent;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.Element;
+import javax.swing.text.Position;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.View;
+import javax.swing.text.ViewFactory;
+import javax.swing.text.html.HTML;
+import javax.swing.text.html.HTMLEditorKit;
+
+/**
+ * The editor kit of the details panel, which loads the images in the background rather than on the EDT.
+ */
+final class IssueDetailsEditorKit extends HTMLEditorKit {
+
+    /** Width and height of the placeholder of an image being loaded */
+    private static final int PLACEHOLDER_SIZE = 32;
+    /** The widths the images are downscaled to are rounded down to a multiple of this */
+    private static final int WIDTH_STEP = 100;
+
+    /** Loads the images */
+    @NotNull
+    private final ImageLoader mImageLoader;
+    /** Creates the views of the elements */
+    private final ViewFactory mViewFactory = new HTMLFactory() {
+        @Override
+        public View create(Element element) {
+            final Object name = element.getAttributes().getAttribute(StyleConstants.NameAttribute);
+            if (name == HTML.Tag.IMG) {
+                return new AsyncImageView(element);
+            }
+            return super.create(element);
+        }
+    };
+
+    /**
+     * Loads the images shown in the details panel
+     */
+    interface ImageLoader {
+        /**
+         * Get an image if it is already loaded
+         *
+         * @param url      the url of the image
+         * @param maxWidth the width the image is downscaled to, if it is wider
+         * @return the image, or null if it has to be loaded
+         */
+        @Nullable
+        Image getCached(@NotNull String url, int maxWidth);
+
+        /**
+         * Load an image in the background
+         *
+         * @param url      the url of the image
+         * @param maxWidth the width the image is downscaled to, if it is wider
+         * @param consumer receives the image on the EDT, or null if it cannot be loaded
+         */
+        void load(@NotNull String url, int maxWidth, @NotNull Consumer<Image> consumer);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param imageLoader loads the images
+     */
+    IssueDetailsEditorKit(@NotNull ImageLoader imageLoader) {
+        mImageLoader = imageLoader;
+    }
+
+    @Override
+    public ViewFactory getViewFactory() {
+        return mViewFactory;
+    }
+
+    /**
+     * Shows an image loaded by the {@link ImageLoader}, or a placeholder until it is loaded
+     */
+    private final class AsyncImageView extends View {
+        /** The url of the image, or null if it has none or it is not a web url */
+        @Nullable
+        private final String mUrl;
+        /** The alternative text of the image, shown as its tooltip */
+        @Nullable
+        private final String mAltText;
+        /** The image, or null until it is loaded */
+        @Nullable
+        private Image mImage;
+        /** Whether the image has been requested from the {@link ImageLoader} */
+        private boolean mRequested;
+        /** Whether the image could not be loaded */
+        private boolean mFailed;
+
+        /**
+         * Constructor
+         *
+         * @param element the img element
+         */
+        AsyncImageView(@NotNull Element element) {
+            super(element);
+            final AttributeSet attributes = element.getAttributes();
+            final String url = (String) attributes.getAttribute(HTML.Attribute.SRC);
+            mUrl = url != null && url.toLowerCase(Locale.US).matches("https?://.+") ? url : null;
+            mAltText = (String) attributes.getAttribute(HTML.Attribute.ALT);
+            mFailed = mUrl == null;
+        }
+
+        @Override
+        public void setParent(View parent) {
+            super.setParent(parent);
+            if (parent != null && !mRequested && mUrl != null) {
+                mRequested = true;
+                requestImage(mUrl);
+            }
+        }
+
+        @Override
+        public float getPreferredSpan(int axis) {
+            if (mImage != null) {
+                return axis == X_AXIS ? mImage.getWidth(null) : mImage.getHeight(null);
+            }
+            return PLACEHOLDER_SIZE;
+        }
+
+        @Override
+        public void paint(Graphics graphics, Shape allocation) {
+            final Rectangle bounds = allocation.getBounds();
+            if (mImage != null) {
+                graphics.drawImage(mImage, bounds.x, bounds.y, bounds.width, bounds.height, null);
+                return;
+            }
+            // The placeholder, crossed out if the image cannot be loaded
+            graphics.setColor(Color.LIGHT_GRAY);
+            graphics.drawRect(bounds.x, bounds.y, bounds.width - 1, bounds.height - 1);
+            if (mFailed) {
+                graphics.drawLine(bounds.x, bounds.y, bounds.x + bounds.width - 1, bounds.y + bounds.height - 1);
+                graphics.drawLine(bounds.x, bounds.y + bounds.height - 1, bounds.x + bounds.width - 1, bounds.y);
+            }
+        }
+
+        @Override
+        public String getToolTipText(float x, float y, Shape allocation) {
+            return mAltText;
+        }
+
+        @Override
+        public Shape modelToView(int pos, Shape allocation, Position.Bias bias) {
+            final Rectangle bounds = allocation.getBounds();
+            if (pos == getStartOffset()) {
+                return new Rectangle(bounds.x, bounds.y, 0, bounds.height);
+            }
+            return new Rectangle(bounds.x + bounds.width, bounds.y, 0, bounds.height);
+        }
+
+        @Override
+        public int viewToModel(float x, float y, Shape allocation, Position.Bias[] bias) {
+            final Rectangle bounds = allocation.getBounds();
+            if (x < bounds.x + bounds.width / 2) {
+                bias[0] = Position.Bias.Forward;
+                return getStartOffset();
+            }
+            bias[0] = Position.Bias.Backward;
+            return getEndOffset();
+        }
+
+        /**
+         * Show the image from the memory cache, or else load it and show it once it is loaded
+         *
+         * @param url the url of the image
+         */
+        private void requestImage(@NotNull String url) {
+            final int maxWidth = getMaxWidth();
+            final Image cachedImage = mImageLoader.getCached(url, maxWidth);
+            if (cachedImage != null) {
+                mImage = cachedImage;
+                return;
+            }
+            mImageLoader.load(url, maxWidth, image -> {
+                if (getParent() == null) {
+                    // The details of another issue are shown by now
+                    return;
+                }
+                mImage = image;
+                mFailed = image == null;
+                preferenceChanged(null, true, true);
+                final Container container = getContainer();
+                if (container != null) {
+                    container.repaint();
+                }
+            });
+        }
+
+        /**
+         * @return the width the image is downscaled to. This is the width of the details panel rounded down, so that
+         * resizing the panel a little does not load the images again.
+         */
+        private int getMaxWidth() {
+            final Container container = getContainer();
+            int width = container != null ? container.getWidth() : 0;
+            if (container instanceof JComponent) {
+                final Insets insets = ((JComponent) container).getInsets();
+                width -= insets.left + insets.right;
+            }
+            return Math.max(WIDTH_STEP, width / WIDTH_STEP * WIDTH_STEP);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.tasks.Comment;
+import com.madrapps.issuetracker.diagnostics.Timings;
+
+import org.commonmark.node.Node;
+import org.commonmark.parser.Parser;
+import org.commonmark.renderer.html.HtmlRenderer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.madrapps.issuetracker.listissues.TableColumns.getValueOfDate;
+
+/**
+ * Builds the html document shown in the details panel, caching the html of the descriptions and comments.
+ */
+final class IssueDetailsRenderer {
+
+    /** Maximum number of characters of rendered descriptions and comments cached */
+    static final long MAX_CACHED_CHARS = 4 * 1024 * 1024;
+    /** Number of comments rendered at a time */
+    static final int COMMENTS_PAGE_SIZE = 50;
+    /** Id of the element holding the comments */
+    static final String COMMENTS_ID = "comments";
+    /** Id of the element holding the link to show the older comments */
+    static final String OLDER_COMMENTS_ID = "older-comments";
+    /** Target of the link to show the older comments */
+    static final String OLDER_COMMENTS_HREF = "issuetracker:older-comments";
+
+    /** The rendered html keyed by the issue id and the part of the issue, in the order of access */
+    private final LinkedHashMap<String, CachedHtml> mHtmlCache = new LinkedHashMap<>(16, 0.75f, true);
+    /** Number of characters of html cached, guarded by {@link #mHtmlCache} */
+    private long mCachedChars;
+
+    /**
+     * Build the html document of the details of an issue, with its newest {@link #COMMENTS_PAGE_SIZE} comments
+     *
+     * @param issueId     the id of the issue, or null if the details are not those of an issue and are not cached
+     * @param description The description of the issue
+     * @param issueUrl    the IssueUrl of the issue
+     * @param comments    the comments of the issue
+     * @param indicator   the indicator to check whether rendering has been cancelled
+     * @return the html document
+     */
+    @NotNull
+    String render(@Nullable String issueId, @Nullable String description, @Nullable String issueUrl,
+                  @Nullable Comment[] comments, @NotNull ProgressIndicator indicator) {
+        final long start = Timings.start();
+        final StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append("<style>")
+                .append(".comment {color: #000; background-color: #ddffff; padding: 5px 10px; border-left: 6px solid #ccc; display:inline}")
+                .append("p {padding-left:10px;}")
+                .append("</style>");
+        final String formattedDescription = fromMarkDownToHtml(issueId, "description", description);
+        stringBuilder.append(formattedDescription)
+                .append("<br/>");
+        if (comments != null) {
+            final int olderCount = Math.max(0, comments.length - COMMENTS_PAGE_SIZE);
+            stringBuilder.append("<div id=\"").append(OLDER_COMMENTS_ID).append("\">")
+                    .append(renderOlderCommentsLink(olderCount))
+                    .append("</div>")
+                    .append("<div id=\"").append(COMMENTS_ID).append("\">")
+                    .append(renderComments(issueId, comments, olderCount, comments.length, indicator))
+                    .append("</div>");
+        }
+        if (issueUrl != null) {
+            stringBuilder.append(String.format(Locale.US, "<a href=%s>%s</a>", issueUrl, issueUrl))
+                    .append("<br/>");
+        }
+        Timings.stop("render details", start, comments != null ? comments.length + " comments" : null);
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Build the html of a range of comments
+     *
+     * @param issueId   the id of the issue, or null if the comments are not cached
+     * @param comments  the comments of the issue
+     * @param from      the index of the first comment
+     * @param to        the index after the last comment
+     * @param indicator the indicator to check whether rendering has been cancelled
+     * @return the html of the comments
+     */
+    @NotNull
+    String renderComments(@Nullable String issueId, @NotNull Comment[] comments, int from, int to,
+                          @NotNull ProgressIndicator indicator) {
+        final StringBuilder stringBuilder = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            indicator.checkCanceled();
+            final Comment comment = comments[i];
+            stringBuilder.append("<div class=\"comment\">")
+                    .append("<div class=\"comment_author_date\"><strong>")
+                    .append(comment.getAuthor()).append("&nbsp;")
+                    .append("(")
+                    .append(getValueOfDate(comment.getDate()))
+                    .append(")")
+                    .append("</strong></div>")
+                    .append(fromMarkDownToHtml(issueId, "comment " + i, comment.getText()))
+                    .append("</div><br/>");
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Build the link to show the older comments
+     *
+     * @param olderCount the number of older comments not shown yet
+     * @return the html of the link, or a blank paragraph if there are no older comments
+     */
+    @NotNull
+    static String renderOlderCommentsLink(int olderCount) {
+        if (olderCount <= 0) {
+            return "<p></p>";
+        }
+        return String.format(Locale.US, "<p><a href=\"%s\">Show %d older comments</a></p>",
+                OLDER_COMMENTS_HREF, olderCount);
+    }
+
+    /**
+     * Converts from markdown format to html format, or simply returns empty string if null
+     *
+     * @param issueId  the id of the issue, or null if the html is not cached
+     * @param part     the part of the issue the markdown is, like its description or one of its comments
+     * @param markdown the text in markdown, non markdown format or simply null
+     * @return an html string or an empty string based on the input
+     */
+    @NotNull
+    String fromMarkDownToHtml(@Nullable String issueId, @NotNull String part, @Nullable String markdown) {
+        if (markdown == null) {
+            return "";
+        }
+        final String key = issueId != null ? issueId + ":" + part : null;
+        final long fingerprint = IssueFingerprints.ofText(markdown);
+        if (key != null) {
+            synchronized (mHtmlCache) {
+                final CachedHtml cached = mHtmlCache.get(key);
+                if (cached != null && cached.mFingerprint == fingerprint) {
+                    return cached.mHtml;
+                }
+            }
+        }
+        final long start = Timings.start();
+        final Node document = Markdown.PARSER.parse(markdown);
+        final String html = Markdown.RENDERER.render(document);
+        Timings.stop("markdown", start, markdown.length() + " chars");
+        if (key != null) {
+            cache(key, new CachedHtml(html, fingerprint));
+        }
+        return html;
+    }
+
+    /**
+     * Cache the html of a part of an issue, evicting the least recently used html if needed
+     *
+     * @param key    the issue id and the part of the issue
+     * @param cached the html
+     */
+    private void cache(@NotNull String key, @NotNull CachedHtml cached) {
+        if (cached.mHtml.length() > MAX_CACHED_CHARS) {
+            return;
+        }
+        synchronized (mHtmlCache) {
+            final CachedHtml previous = mHtmlCache.put(key, cached);
+            if (previous != null) {
+                mCachedChars -= previous.mHtml.length();
+            }
+            mCachedChars += cached.mHtml.length();
+
+            final Iterator<Map.Entry<String, CachedHtml>> iterator = mHtmlCache.entrySet().iterator();
+            while (mCachedChars > MAX_CACHED_CHARS && iterator.hasNext()) {
+                final Map.Entry<String, CachedHtml> eldest = iterator.next();
+                mCachedChars -= eldest.getValue().mHtml.length();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * The html of a part of an issue
+     */
+    private static final class CachedHtml {
+        /** The html */
+        @NotNull
+        private final String mHtml;
+        /** The fingerprint of the markdown the html was rendered from */
+        private final long mFingerprint;
+
+        private CachedHtml(@NotNull String html, long fingerprint) {
+            mHtml = html;
+            mFingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * Holds the markdown parser and renderer, which are only built, along with the commonmark classes, when the
+     * first description or comment is rendered
+     */
+    private static final class Markdown {
+        /** To parse the Markdown text */
+        private static final Parser PARSER = Parser.builder().build();
+        /** To render the markdown as html */
+        private static final HtmlRenderer RENDERER = HtmlRenderer.builder().build();
+
+        private Markdown() {
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.tasks.Comment;
+import com.intellij.tasks.Task;
+import com.intellij.tasks.TaskRepository;
+import com.madrapps.issuetracker.diagnostics.Timings;
+import com.madrapps.issuetracker.listissues.BackgroundExecutor.Priority;
+import com.madrapps.issuetracker.listissues.BackgroundExecutor.Request;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Writes the rows of the Issue table to CSV or to JSON lines, one issue at a time.
+ */
+public final class IssueExporter {
+
+    /** Maximum number of issues pulled ahead of the one being written */
+    static final int MAX_PENDING = 4 * BackgroundExecutor.MAX_REQUESTS;
+    /** Interval at which the writing thread checks whether the export has been cancelled */
+    private static final long CANCEL_CHECK_INTERVAL_MS = 100;
+
+    /**
+     * The formats the issues can be exported to
+     */
+    public enum Format {
+        /** Comma separated values, with a header row */
+        CSV("csv"),
+        /** A JSON object per line */
+        JSON_LINES("jsonl");
+
+        /** The extension of the exported file */
+        private final String mExtension;
+
+        Format(@NotNull String extension) {
+            mExtension = extension;
+        }
+
+        /**
+         * @return the extension of the exported file
+         */
+        @NotNull
+        public String getExtension() {
+            return mExtension;
+        }
+    }
+
+    /** The format to write */
+    @NotNull
+    private final Format mFormat;
+    /** Whether the descriptions and comments are exported */
+    private final boolean mIncludeDetails;
+    /** The full issues already pulled */
+    @NotNull
+    private final TaskStore mTaskStore;
+    /** The comments already pulled */
+    @NotNull
+    private final CommentCache mCommentCache;
+
+    /**
+     * Constructor
+     *
+     * @param format         the format to write
+     * @param includeDetails whether the descriptions and comments are exported
+     * @param taskStore      the full issues already pulled
+     * @param commentCache   the comments already pulled
+     */
+    IssueExporter(@NotNull Format format, boolean includeDetails, @NotNull TaskStore taskStore,
+                  @NotNull CommentCache commentCache) {
+        mFormat = format;
+        mIncludeDetails = includeDetails;
+        mTaskStore = taskStore;
+        mCommentCache = commentCache;
+    }
+
+    /**
+     * Write the rows in the given order. This may do network IO and should be called from a background thread.
+     *
+     * @param rows      the rows to export
+     * @param writer    the writer, which is not closed
+     * @param indicator the indicator of the export, cancelling it stops the export
+     * @return the number of issues whose details could not be pulled, and were written without them
+     * @throws IOException if writing fails
+     */
+    int export(@NotNull List<IssueRow> rows, @NotNull Writer writer, @NotNull ProgressIndicator indicator)
+            throws IOException {
+        final long start = Timings.start();
+        if (mFormat == Format.CSV) {
+            writer.write(mIncludeDetails
+                    ? "id,name,type,repository,created,updated,closed,description,comments,error\r\n"
+                    : "id,name,type,repository,created,updated,closed\r\n");
+        }
+        int failed = 0;
+        final Deque<Request<Details>> pending = new ArrayDeque<>();
+        try {
+            int next = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                indicator.checkCanceled();
+                Details details = null;
+                if (mIncludeDetails) {
+                    while (next < rows.size() && pending.size() < MAX_PENDING) {
+                        final IssueRow row = rows.get(next++);
+                        pending.add(BackgroundExecutor.getInstance().submitRequest(() -> pullDetails(row),
+                                Priority.BULK));
+                    }
+                    details = await(pending.removeFirst(), indicator);
+                    if (details.mError != null) {
+                        failed++;
+                    }
+                }
+                write(rows.get(i), details, writer);
+                indicator.setFraction((i + 1) / (double) rows.size());
+            }
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+            Timings.stop("export", start, rows.size() + " issues");
+        }
+        return failed;
+    }
+
+    /**
+     * Pull the description and comments of an issue. The issues pulled are not added to the {@link TaskStore} or the
+     * {@link CommentCache}, so that exporting does not evict the issues the user has just looked at.
+     *
+     * @param row the row of the issue
+     * @return the details, or the reason they could not be pulled
+     */
+    @NotNull
+    private Details pullDetails(@NotNull IssueRow row) {
+        try {
+            Task issue = mTaskStore.get(row.getId());
+            final TaskRepository repository = row.getRepository();
+            if (issue == null && repository != null) {
+                issue = repository.findTask(row.getId());
+            }
+            if (issue == null) {
+                return new Details(null, null, "The issue is no longer in its repository");
+            }
+            Comment[] comments = mCommentCache.get(issue);
+            if (comments == null) {
+                comments = issue.getComments();
+            }
+            return new Details(issue.getDescription(), comments, null);
+        } catch (ProcessCanceledException e) {
+            return new Details(null, null, "Cancelled");
+        } catch (Exception e) {
+            return new Details(null, null, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    /**
+     * Wait for the details of an issue to be pulled. The pull is cancelled once it has run for longer than
+     * {@link BackgroundExecutor#REQUEST_TIMEOUT_MS}. It is not timed while it waits for a thread, as it waits behind
+     * the other pulls of the export, which are timed themselves.
+     *
+     * @param request   the pull of the details
+     * @param indicator the indicator of the export
+     * @return the details
+     */
+    @NotNull
+    private static Details await(@NotNull Request<Details> request, @NotNull ProgressIndicator indicator) {
+        while (true) {
+            indicator.checkCanceled();
+            if (request.isStarted() && request.getRemainingMs(System.currentTimeMillis()) <= 0) {
+                request.cancel(true);
+                return new Details(null, null, "Timed out");
+            }
+            try {
+                return request.get(CANCEL_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Check whether the export has been cancelled and keep waiting
+            } catch (InterruptedException e) {
+                throw new ProcessCanceledException();
+            } catch (ExecutionException e) {
+                return new Details(null, null, e.getCause() != null ? e.getCause().toString() : e.toString());
+            }
+        }
+    }
+
+    /**
+     * Write a single issue
+     *
+     * @param row     the row of the issue
+     * @param details the description and comments, or null if they are not exported
+     * @param writer  the writer
+     * @throws IOException if writing fails
+     */
+    private void write(@NotNull IssueRow row, @Nullable Details details, @NotNull Writer writer) throws IOException {
+        if (mFormat == Format.CSV) {
+            writer.write(csv(row.getId()));
+            writer.write(',');
+            writer.write(csv(row.getPresentableName()));
+            writer.write(',');
+            writer.write(csv(row.getType().name()));
+            writer.write(',');
+            writer.write(csv(row.getRepositoryName()));
+            writer.write(',');
+            writer.write(csv(format(row.getCreated())));
+            writer.write(',');
+            writer.write(csv(format(row.getUpdated())));
+            writer.write(',');
+            writer.write(Boolean.toString(row.isClosed()));
+            if (details != null) {
+                writer.write(',');
+                writer.write(csv(details.mDescription));
+                writer.write(',');
+                writer.write(csv(joinComments(details.mComments)));
+                writer.write(',');
+                writer.write(csv(details.mError));
+            }
+            writer.write("\r\n");
+        } else {
+            writer.write("{\"id\":");
+            writer.write(json(row.getId()));
+            writer.write(",\"name\":");
+            writer.write(json(row.getPresentableName()));
+            writer.write(",\"type\":");
+            writer.write(json(row.getType().name()));
+            writer.write(",\"repository\":");
+            writer.write(json(row.getRepositoryName()));
+            writer.write(",\"created\":");
+            writer.write(json(format(row.getCreated())));
+            writer.write(",\"updated\":");
+            writer.write(json(format(row.getUpdated())));
+            writer.write(",\"closed\":");
+            writer.write(Boolean.toString(row.isClosed()));
+            if (details != null) {
+                writer.write(",\"description\":");
+                writer.write(json(details.mDescription));
+                writer.write(",\"comments\":");
+                writeComments(details.mComments, writer);
+                if (details.mError != null) {
+                    writer.write(",\"error\":");
+                    writer.write(json(details.mError));
+                }
+            }
+            writer.write("}\n");
+        }
+    }
+
+    /**
+     * Write the comments of an issue as a JSON array
+     *
+     * @param comments the comments
+     * @param writer   the writer
+     * @throws IOException if writing fails
+     */
+    private static void writeComments(@Nullable Comment[] comments, @NotNull Writer writer) throws IOException {
+        writer.write('[');
+        if (comments != null) {
+            for (int i = 0; i < comments.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write("{\"author\":");
+                writer.write(json(comments[i].getAuthor()));
+                writer.write(",\"date\":");
+                writer.write(json(format(comments[i].getDate())));
+                writer.write(",\"text\":");
+                writer.write(json(comments[i].getText()));
+                writer.write('}');
+            }
+        }
+        writer.write(']');
+    }
+
+    /**
+     * @param comments the comments of an issue
+     * @return the comments in a single CSV cell, separated by blank lines
+     */
+    @Nullable
+    private static String joinComments(@Nullable Comment[] comments) {
+        if (comments == null) {
+            return null;
+        }
+        final StringBuilder joined = new StringBuilder();
+        for (Comment comment : comments) {
+            if (joined.length() > 0) {
+                joined.append("\n\n");
+            }
+            joined.append(comment.getAuthor()).append(" (").append(format(comment.getDate())).append("): ")
+                    .append(comment.getText());
+        }
+        return joined.toString();
+    }
+
+    /**
+     * @param time the sort key of a date
+     * @return the date in ISO-8601, or null if there is no date
+     */
+    @Nullable
+    private static String format(long time) {
+        return format(IssueRow.toDate(time));
+    }
+
+    /**
+     * @param date the date
+     * @return the date in ISO-8601, or null if there is no date
+     */
+    @Nullable
+    private static String format(@Nullable Date date) {
+        return date != null ? Instant.ofEpochMilli(date.getTime()).toString() : null;
+    }
+
+    /**
+     * @param text the text
+     * @return the text as a CSV cell, quoted if needed
+     */
+    @NotNull
+    private static String csv(@Nullable String text) {
+        if (text == null) {
+            return "";
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * @param text the text
+     * @return the text as a JSON string, or null
+     */
+    @NotNull
+    private static String json(@Nullable String text) {
+        if (text == null) {
+            return "null";
+        }
+        final StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format(Locale.US, "\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * The description and comments of an issue
+     */
+    private static final class Details {
+        /** The description */
+        private final String mDescription;
+        /** The comments */
+        private final Comment[] mComments;
+        /** The reason the details could not be pulled, or null */
+        private final String mError;
+
+        private Details(@Nullable String description, @Nullable Comment[] comments, @Nullable String error) {
+            mDescription = description;
+            mComments = comments;
+            mError = error;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.tasks.TaskRepository;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The filter chosen in the filter bar of the ToolWindow, pushed down to the repositories where they support it.
+ */
+final class IssueFilter {
+
+    /** The filter of a project that has not chosen one, which shows the open issues of every repository */
+    static final IssueFilter DEFAULT = new IssueFilter(State.OPEN, null, Updated.ANY_TIME, null);
+
+    /**
+     * The states of the issues shown
+     */
+    enum State {
+        OPEN("Open"),
+        CLOSED("Closed"),
+        ALL("Open & Closed");
+
+        /** The name shown in the filter bar */
+        private final String mName;
+
+        State(@NotNull String name) {
+            mName = name;
+        }
+
+        @Override
+        public String toString() {
+            return mName;
+        }
+    }
+
+    /**
+     * How recently the issues shown were updated
+     */
+    enum Updated {
+        ANY_TIME("Any Time", 0),
+        LAST_DAY("Last Day", 1),
+        LAST_WEEK("Last Week", 7),
+        LAST_MONTH("Last Month", 30),
+        LAST_YEAR("Last Year", 365);
+
+        /** The name shown in the filter bar */
+        private final String mName;
+        /** The number of days, or 0 for any time */
+        private final int mDays;
+
+        Updated(@NotNull String name, int days) {
+            mName = name;
+            mDays = days;
+        }
+
+        @Override
+        public String toString() {
+            return mName;
+        }
+    }
+
+    /** The states of the issues shown */
+    @NotNull
+    private final State mState;
+    /** The url of the only repository queried, or null to query every repository */
+    @Nullable
+    private final String mRepositoryUrl;
+    /** How recently the issues shown were updated */
+    @NotNull
+    private final Updated mUpdated;
+    /** The text searched, or null */
+    @Nullable
+    private final String mText;
+
+    /**
+     * Constructor
+     *
+     * @param state         the states of the issues shown
+     * @param repositoryUrl the url of the only repository queried, or null to query every repository
+     * @param updated       how recently the issues shown were updated
+     * @param text          the text searched
+     */
+    IssueFilter(@NotNull State state, @Nullable String repositoryUrl, @NotNull Updated updated, @Nullable String text) {
+        mState = state;
+        mRepositoryUrl = repositoryUrl;
+        mUpdated = updated;
+        mText = text != null && !text.trim().isEmpty() ? text.trim() : null;
+    }
+
+    /**
+     * @return the states of the issues shown
+     */
+    @NotNull
+    State getState() {
+        return mState;
+    }
+
+    /**
+     * @return the url of the only repository queried, or null if every repository is queried
+     */
+    @Nullable
+    String getRepositoryUrl() {
+        return mRepositoryUrl;
+    }
+
+    /**
+     * @return how recently the issues shown were updated
+     */
+    @NotNull
+    Updated getUpdated() {
+        return mUpdated;
+    }
+
+    /**
+     * @return the text searched, or null
+     */
+    @Nullable
+    String getText() {
+        return mText;
+    }
+
+    /**
+     * @param text the text searched
+     * @return a copy of this filter searching the text
+     */
+    @NotNull
+    IssueFilter withText(@Nullable String text) {
+        return new IssueFilter(mState, mRepositoryUrl, mUpdated, text);
+    }
+
+    /**
+     * Get the repositories to query
+     *
+     * @param repositories all the repositories of the project
+     * @return the repositories chosen, or all of them if the chosen repository is no longer configured
+     */
+    @NotNull
+    TaskRepository[] selectRepositories(@NotNull TaskRepository[] repositories) {
+        if (mRepositoryUrl == null) {
+            return repositories;
+        }
+        final List<TaskRepository> selected = new ArrayList<>();
+        for (TaskRepository repository : repositories) {
+            if (mRepositoryUrl.equals(repository.getUrl())) {
+                selected.add(repository);
+            }
+        }
+        return selected.isEmpty() ? repositories : selected.toArray(new TaskRepository[selected.size()]);
+    }
+
+    /**
+     * Get the query to pass to a repository. A repository that cannot search natively is not given the text, the
+     * issues it returns are searched locally instead.
+     *
+     * @param repository the repository
+     * @return the query, or null to get every issue
+     */
+    @Nullable
+    String getQuery(@NotNull TaskRepository repository) {
+        return repository.isSupported(TaskRepository.NATIVE_SEARCH) ? mText : null;
+    }
+
+    /**
+     * @return true if closed issues have to be requested from the repositories
+     */
+    boolean isWithClosed() {
+        return mState != State.OPEN;
+    }
+
+    /**
+     * Determine if a row passes the parts of the filter that are not pushed down, and the parts a repository may
+     * have ignored. The text is not checked here.
+     *
+     * @param row the row
+     * @param now the current time
+     * @return true if the row is shown
+     */
+    boolean matches(@NotNull IssueRow row, long now) {
+        if (mState == State.OPEN && row.isClosed() || mState == State.CLOSED && !row.isClosed()) {
+            return false;
+        }
+        if (mRepositoryUrl != null && row.getRepository() != null
+                && !mRepositoryUrl.equals(row.getRepository().getUrl())) {
+            return false;
+        }
+        return mUpdated == Updated.ANY_TIME || row.getUpdated() >= now - TimeUnit.DAYS.toMillis(mUpdated.mDays);
+    }
+
+    /**
+     * @return true if this filter hides any row
+     */
+    boolean isRestrictive() {
+        return mState != State.ALL || mRepositoryUrl != null || mUpdated != Updated.ANY_TIME;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IssueFilter)) {
+            return false;
+        }
+        final IssueFilter filter = (IssueFilter) o;
+        return mState == filter.mState && mUpdated == filter.mUpdated
+                && Objects.equals(mRepositoryUrl, filter.mRepositoryUrl) && Objects.equals(mText, filter.mText);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mState, mRepositoryUrl, mUpdated, mText);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s:%s:%s:%s", mState.name(), mRepositoryUrl, mUpdated.name(), mText);
+    }
+}
@@ -0,0 +1,81 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.components.StoragePathMacros;
+import com.intellij.openapi.project.Project;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Keeps the {@link IssueFilter} of a project in its workspace file, so that the ToolWindow opens with the filter
+ * that was last chosen.
+ */
+@State(name = "IssueTrackerFilter", storages = @Storage(StoragePathMacros.WORKSPACE_FILE))
+public final class IssueFilterSettings implements PersistentStateComponent<IssueFilterSettings.Bean> {
+
+    /** The filter of the project */
+    @NotNull
+    private IssueFilter mFilter = IssueFilter.DEFAULT;
+
+    /**
+     * Get the filter settings of the project
+     *
+     * @param project the current project
+     * @return the filter settings
+     */
+    @NotNull
+    static IssueFilterSettings getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, IssueFilterSettings.class);
+    }
+
+    /**
+     * @return the filter of the project
+     */
+    @NotNull
+    IssueFilter getFilter() {
+        return mFilter;
+    }
+
+    /**
+     * @param filter the filter of the project
+     */
+    void setFilter(@NotNull IssueFilter filter) {
+        mFilter = filter;
+    }
+
+    @Nullable
+    @Override
+    public Bean getState() {
+        final Bean bean = new Bean();
+        bean.state = mFilter.getState().name();
+        bean.repositoryUrl = mFilter.getRepositoryUrl();
+        bean.updated = mFilter.getUpdated().name();
+        bean.text = mFilter.getText();
+        return bean;
+    }
+
+    @Override
+    public void loadState(Bean bean) {
+        try {
+            mFilter = new IssueFilter(IssueFilter.State.valueOf(bean.state), bean.repositoryUrl,
+                    IssueFilter.Updated.valueOf(bean.updated), bean.text);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            // Written by a version with other states or periods
+            mFilter = IssueFilter.DEFAULT;
+        }
+    }
+
+    /**
+     * The filter as it is written to the workspace file
+     */
+    public static final class Bean {
+        public String state;
+        public String repositoryUrl;
+        public String updated;
+        public String text;
+    }
+}
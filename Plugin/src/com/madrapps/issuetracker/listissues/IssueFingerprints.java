@@ -0,0 +1,261 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.tasks.Task;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps a fingerprint of every issue in the Issue table, so that a sync only merges the issues it changed.
+ */
+final class IssueFingerprints {
+
+    /** The offset basis of the 64 bit FNV-1a hash */
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    /** The prime of the 64 bit FNV-1a hash */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** The fingerprint of each issue in the table, keyed by issue id */
+    private final Map<String, Long> mIssues = new HashMap<>();
+    /** The ids of the issues whose rows still hold the data restored from the {@link IssueCache} */
+    private final Set<String> mCachedIds = new HashSet<>();
+    /** The rolling fingerprint of the last result applied, keyed by the request and the repository */
+    private final Map<String, Long> mResults = new HashMap<>();
+
+    /**
+     * Get the fingerprint of an issue, made of the values that the table, the search index and the details show
+     *
+     * @param issue the issue
+     * @return the fingerprint
+     */
+    private static long of(@NotNull Task issue) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = mix(hash, issue.getId());
+        hash = mix(hash, issue.getPresentableName());
+        hash = mix(hash, issue.getSummary());
+        hash = mix(hash, issue.getDescription());
+        hash = mix(hash, issue.getIssueUrl());
+        hash = mix(hash, issue.getType() != null ? issue.getType().name() : null);
+        hash = mix(hash, toTime(issue.getCreated()));
+        hash = mix(hash, toTime(issue.getUpdated()));
+        return mix(hash, issue.isClosed() ? 1 : 0);
+    }
+
+    /**
+     * Get the fingerprint of a text, like the markdown of a description or a comment
+     *
+     * @param text the text, or null
+     * @return the fingerprint
+     */
+    static long ofText(@Nullable String text) {
+        return mix(FNV_OFFSET_BASIS, text);
+    }
+
+    /**
+     * Compare the issues of a result with the issues in the table. The result is not compared issue by issue if it
+     * is the same as the last result applied for the same request.
+     *
+     * @param resultKey the key of the request and the repository, or null if the result is not to be remembered
+     * @param issues    the issues pulled
+     * @return the issues that are not in the table or that have changed, to be committed once they are in the table
+     */
+    @NotNull
+    synchronized Diff diff(@Nullable String resultKey, @NotNull List<Task> issues) {
+        final long[] fingerprints = new long[issues.size()];
+        // The rolling fingerprint of the result changes if any issue changes, or if the issues are reordered
+        long resultFingerprint = mix(FNV_OFFSET_BASIS, issues.size());
+        for (int i = 0; i < fingerprints.length; i++) {
+            fingerprints[i] = of(issues.get(i));
+            resultFingerprint = mix(resultFingerprint, fingerprints[i]);
+        }
+        final Diff diff = new Diff(resultKey, resultFingerprint);
+        final Long lastResultFingerprint = resultKey != null ? mResults.get(resultKey) : null;
+        if (lastResultFingerprint != null && lastResultFingerprint == resultFingerprint) {
+            return diff;
+        }
+        for (int i = 0; i < fingerprints.length; i++) {
+            final Task issue = issues.get(i);
+            final Long lastFingerprint = mIssues.get(issue.getId());
+            if (lastFingerprint == null) {
+                diff.mAdded.add(issue);
+            } else if (lastFingerprint != fingerprints[i]) {
+                diff.mChanged.add(issue);
+            } else if (mCachedIds.contains(issue.getId()) && !(issue instanceof CachedTask)) {
+                // The row lacks the description, the url and the icon of the repository, which the issue has
+                diff.mRestored.add(issue);
+            } else {
+                continue;
+            }
+            diff.mFingerprints.put(issue.getId(), fingerprints[i]);
+        }
+        if (diff.isEmpty()) {
+            // The table already holds the result, which does not need to be compared again
+            commit(diff);
+        }
+        return diff;
+    }
+
+    /**
+     * Record the issues of a diff as being in the table, and the result they came from as applied
+     *
+     * @param diff the diff that was given to the view
+     */
+    synchronized void commit(@NotNull Diff diff) {
+        mIssues.putAll(diff.mFingerprints);
+        mCachedIds.removeAll(diff.mFingerprints.keySet());
+        if (diff.mResultKey != null) {
+            mResults.put(diff.mResultKey, diff.mResultFingerprint);
+        }
+    }
+
+    /**
+     * Record the issues restored from the {@link IssueCache} as being in the table, with the fingerprints cached along
+     * with them. An issue cached without a fingerprint is left out, and is merged again by the next sync. An issue
+     * cached with the same fingerprint as the one pulled is still merged once, as its row lacks the data that is not
+     * cached.
+     *
+     * @param issues the cached issues given to the view
+     */
+    synchronized void putCached(@NotNull List<Task> issues) {
+        for (Task issue : issues) {
+            final long fingerprint = issue instanceof CachedTask ? ((CachedTask) issue).getFingerprint() : of(issue);
+            if (issue instanceof CachedTask) {
+                mCachedIds.add(issue.getId());
+            }
+            if (fingerprint != CachedTask.NO_FINGERPRINT) {
+                mIssues.put(issue.getId(), fingerprint);
+            }
+        }
+    }
+
+    /**
+     * @return a copy of the fingerprint of each issue in the table, keyed by issue id, to be cached along with the
+     * rows of the table
+     */
+    @NotNull
+    synchronized Map<String, Long> snapshot() {
+        return new HashMap<>(mIssues);
+    }
+
+    /**
+     * Forget the issues removed from the table. The fingerprints of the results are forgotten too, as a result
+     * that is the same as before may hold the issues removed, and has to be applied again.
+     *
+     * @param issueIds the ids of the issues removed
+     */
+    synchronized void remove(@NotNull Collection<String> issueIds) {
+        mIssues.keySet().removeAll(issueIds);
+        mCachedIds.removeAll(issueIds);
+        mResults.clear();
+    }
+
+    /**
+     * Mix a string into a hash
+     *
+     * @param hash  the hash
+     * @param value the string, or null
+     * @return the new hash
+     */
+    private static long mix(long hash, @Nullable String value) {
+        if (value == null) {
+            return mix(hash, -1);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        // Separate the strings, so that moving characters from one field to the next changes the hash
+        return mix(hash, value.length());
+    }
+
+    /**
+     * Mix a number into a hash
+     *
+     * @param hash  the hash
+     * @param value the number
+     * @return the new hash
+     */
+    private static long mix(long hash, long value) {
+        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+            hash = (hash ^ ((value >>> shift) & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * @param date the date, or null
+     * @return the time of the date, or 0
+     */
+    private static long toTime(@Nullable Date date) {
+        return date != null ? date.getTime() : 0;
+    }
+
+    /**
+     * The issues of a result that are not in the table yet or that have changed
+     */
+    static final class Diff {
+        /** The key of the request and the repository of the result, or null */
+        @Nullable
+        private final String mResultKey;
+        /** The fingerprint of the result */
+        private final long mResultFingerprint;
+        /** The issues that are not in the table */
+        private final List<Task> mAdded = new ArrayList<>();
+        /** The issues whose fingerprint has changed */
+        private final List<Task> mChanged = new ArrayList<>();
+        /** The issues restored from the cache that have not changed, whose rows still lack the data not cached */
+        private final List<Task> mRestored = new ArrayList<>();
+        /** The fingerprints of the added, changed and restored issues, keyed by issue id */
+        private final Map<String, Long> mFingerprints = new HashMap<>();
+
+        private Diff(@Nullable String resultKey, long resultFingerprint) {
+            mResultKey = resultKey;
+            mResultFingerprint = resultFingerprint;
+        }
+
+        /**
+         * @return the number of issues that are not in the table
+         */
+        int getAddedCount() {
+            return mAdded.size();
+        }
+
+        /**
+         * @return the number of issues whose fingerprint has changed
+         */
+        int getChangedCount() {
+            return mChanged.size();
+        }
+
+        /**
+         * @return the added, the changed and the restored issues, to be merged into the table
+         */
+        @NotNull
+        List<Task> getIssues() {
+            if (mChanged.isEmpty() && mRestored.isEmpty()) {
+                return Collections.unmodifiableList(mAdded);
+            }
+            final List<Task> issues = new ArrayList<>(mAdded.size() + mChanged.size() + mRestored.size());
+            issues.addAll(mAdded);
+            issues.addAll(mChanged);
+            issues.addAll(mRestored);
+            return issues;
+        }
+
+        /**
+         * @return true if nothing has to be merged into the table
+         */
+        boolean isEmpty() {
+            return mFingerprints.isEmpty();
+        }
+    }
+}
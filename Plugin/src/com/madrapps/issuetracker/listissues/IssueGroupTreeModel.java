@@ -0,0 +1,556 @@
+package com.madrapps.issuetracker.listissues;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+
+/**
+ * The model of the grouped view of the Issue table, updated with each row merged into the table.
+ */
+final class IssueGroupTreeModel implements TreeModel, IssueTableModel.RowListener {
+
+    /**
+     * The ways the issues can be grouped
+     */
+    enum GroupBy {
+        NONE("No Grouping"),
+        REPOSITORY("Group by Repository"),
+        STATE("Group by State"),
+        TYPE("Group by Type"),
+        UPDATED("Group by Updated");
+
+        /** The name shown in the filter bar */
+        private final String mName;
+
+        GroupBy(@NotNull String name) {
+            mName = name;
+        }
+
+        @Override
+        public String toString() {
+            return mName;
+        }
+    }
+
+    /**
+     * The buckets of {@link GroupBy#UPDATED}, which change only at midnight
+     */
+    private enum Age {
+        TODAY("Today", 0),
+        YESTERDAY("Yesterday", 1),
+        LAST_WEEK("Last 7 Days", 6),
+        LAST_MONTH("Last 30 Days", 29),
+        OLDER("Older", Integer.MAX_VALUE),
+        NO_DATE("No Date", Integer.MAX_VALUE);
+
+        /** The name of the group */
+        private final String mName;
+        /** The number of days before today that the bucket goes back to */
+        private final int mDays;
+
+        Age(@NotNull String name, int days) {
+            mName = name;
+            mDays = days;
+        }
+    }
+
+    /** The root of the tree, which is not shown */
+    private static final Object ROOT = new Object();
+    /** Orders the groups by their key */
+    private static final Comparator<IssueGroup> GROUP_ORDER = Comparator.comparing(group -> group.mKey);
+
+    /** The rows of the issues */
+    @NotNull
+    private final IssueTableModel mIssuesModel;
+    /** The listeners of the tree */
+    private final EventListenerList mListeners = new EventListenerList();
+    /** The groups, sorted by key */
+    private final List<IssueGroup> mGroups = new ArrayList<>();
+    /** The groups keyed by their key */
+    private final Map<String, IssueGroup> mGroupsByKey = new HashMap<>();
+    /** The group of each issue shown, keyed by issue id */
+    private final Map<String, IssueGroup> mGroupOfIssue = new HashMap<>();
+    /** How the issues are grouped */
+    @NotNull
+    private GroupBy mGroupBy = GroupBy.NONE;
+    /** The issues shown, the same as the rows shown in the table */
+    @NotNull
+    private Predicate<IssueRow> mFilter = row -> true;
+    /** The start of the day the {@link Age} buckets were computed on */
+    private long mTodayStart;
+
+    /**
+     * Constructor
+     *
+     * @param issuesModel the model of the Issue table
+     */
+    IssueGroupTreeModel(@NotNull IssueTableModel issuesModel) {
+        mIssuesModel = issuesModel;
+    }
+
+    /**
+     * @return how the issues are grouped
+     */
+    @NotNull
+    GroupBy getGroupBy() {
+        return mGroupBy;
+    }
+
+    /**
+     * Group the issues in another way
+     *
+     * @param groupBy how the issues are grouped
+     */
+    void setGroupBy(@NotNull GroupBy groupBy) {
+        if (groupBy != mGroupBy) {
+            mGroupBy = groupBy;
+            rebuild();
+        }
+    }
+
+    /**
+     * Change the issues shown. The groups are computed again, as most of the issues may be shown or hidden, unless
+     * the filter is the same as before. The rows merged afterwards are grouped by {@link #rowChanged}, one by one.
+     *
+     * @param filter the issues shown
+     */
+    void setFilter(@NotNull Predicate<IssueRow> filter) {
+        if (filter == mFilter) {
+            return;
+        }
+        mFilter = filter;
+        if (mGroupBy != GroupBy.NONE) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Move the issues to the right {@link Age} bucket if the day has changed since they were grouped
+     */
+    void refreshAges() {
+        if (mGroupBy == GroupBy.UPDATED && getTodayStart() != mTodayStart) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Release the list of ids of a group that has been collapsed
+     *
+     * @param group the group
+     */
+    void collapsed(@NotNull IssueGroup group) {
+        group.collapse();
+    }
+
+    @Override
+    public void rowChanged(@Nullable IssueRow oldRow, @Nullable IssueRow newRow) {
+        if (mGroupBy == GroupBy.NONE) {
+            return;
+        }
+        final String issueId = newRow != null ? newRow.getId() : oldRow.getId();
+        final IssueGroup oldGroup = mGroupOfIssue.get(issueId);
+        final String newKey = newRow != null && mFilter.test(newRow) ? getKey(newRow) : null;
+        if (oldGroup != null && oldGroup.mKey.equals(newKey)) {
+            // Still in the same group, only its row has to be painted again
+            if (oldGroup.isExpanded()) {
+                fireTreeNodesChanged(new TreePath(new Object[]{ROOT, oldGroup}), oldGroup.indexOfChild(issueId),
+                        issueId);
+            }
+            return;
+        }
+        if (oldGroup != null) {
+            removeFromGroup(oldGroup, issueId);
+        }
+        if (newKey != null) {
+            addToGroup(newKey, issueId);
+        }
+    }
+
+    @Override
+    public Object getRoot() {
+        return ROOT;
+    }
+
+    @Override
+    public Object getChild(Object parent, int index) {
+        if (parent == ROOT) {
+            return mGroups.get(index);
+        }
+        return ((IssueGroup) parent).getChildren().get(index);
+    }
+
+    @Override
+    public int getChildCount(Object parent) {
+        if (parent == ROOT) {
+            return mGroups.size();
+        }
+        return parent instanceof IssueGroup ? ((IssueGroup) parent).mIssueIds.size() : 0;
+    }
+
+    @Override
+    public boolean isLeaf(Object node) {
+        return node instanceof String;
+    }
+
+    @Override
+    public void valueForPathChanged(TreePath path, Object newValue) {
+        // The tree is not editable
+    }
+
+    @Override
+    public int getIndexOfChild(Object parent, Object child) {
+        if (parent == ROOT) {
+            return child instanceof IssueGroup && mGroupsByKey.get(((IssueGroup) child).mKey) == child
+                    ? ((IssueGroup) child).mIndex : -1;
+        }
+        if (!(parent instanceof IssueGroup) || !(child instanceof String)) {
+            return -1;
+        }
+        final IssueGroup group = (IssueGroup) parent;
+        group.getChildren();
+        return group.indexOfChild((String) child);
+    }
+
+    @Override
+    public void addTreeModelListener(TreeModelListener listener) {
+        mListeners.add(TreeModelListener.class, listener);
+    }
+
+    @Override
+    public void removeTreeModelListener(TreeModelListener listener) {
+        mListeners.remove(TreeModelListener.class, listener);
+    }
+
+    /**
+     * Compute the groups again from every row of the table
+     */
+    private void rebuild() {
+        mGroups.clear();
+        mGroupsByKey.clear();
+        mGroupOfIssue.clear();
+        if (mGroupBy != GroupBy.NONE) {
+            mTodayStart = getTodayStart();
+            for (IssueRow row : mIssuesModel.getItems()) {
+                if (mFilter.test(row)) {
+                    final String key = getKey(row);
+                    IssueGroup group = mGroupsByKey.get(key);
+                    if (group == null) {
+                        group = new IssueGroup(key, getName(key));
+                        mGroupsByKey.put(key, group);
+                        mGroups.add(group);
+                    }
+                    group.mIssueIds.add(row.getId());
+                    mGroupOfIssue.put(row.getId(), group);
+                }
+            }
+            mGroups.sort(GROUP_ORDER);
+            renumberGroups(0);
+        }
+        final TreeModelEvent event = new TreeModelEvent(this, new Object[]{ROOT});
+        for (TreeModelListener listener : mListeners.getListeners(TreeModelListener.class)) {
+            listener.treeStructureChanged(event);
+        }
+    }
+
+    /**
+     * Add an issue to its group, creating the group if needed
+     *
+     * @param key     the key of the group
+     * @param issueId the id of the issue
+     */
+    private void addToGroup(@NotNull String key, @NotNull String issueId) {
+        IssueGroup group = mGroupsByKey.get(key);
+        if (group == null) {
+            group = new IssueGroup(key, getName(key));
+            group.mIssueIds.add(issueId);
+            mGroupOfIssue.put(issueId, group);
+            mGroupsByKey.put(key, group);
+            final int index = -Collections.binarySearch(mGroups, group, GROUP_ORDER) - 1;
+            mGroups.add(index, group);
+            renumberGroups(index);
+            fireTreeNodesInserted(new TreePath(ROOT), index, group);
+            return;
+        }
+        group.mIssueIds.add(issueId);
+        mGroupOfIssue.put(issueId, group);
+        if (group.isExpanded()) {
+            fireTreeNodesInserted(new TreePath(new Object[]{ROOT, group}), group.addChild(issueId), issueId);
+        }
+        // The count of the group has changed
+        fireTreeNodesChanged(new TreePath(ROOT), group.mIndex, group);
+    }
+
+    /**
+     * Remove an issue from its group, removing the group once it is empty
+     *
+     * @param group   the group
+     * @param issueId the id of the issue
+     */
+    private void removeFromGroup(@NotNull IssueGroup group, @NotNull String issueId) {
+        group.mIssueIds.remove(issueId);
+        mGroupOfIssue.remove(issueId);
+        final int groupIndex = group.mIndex;
+        if (group.mIssueIds.isEmpty()) {
+            mGroups.remove(groupIndex);
+            mGroupsByKey.remove(group.mKey);
+            renumberGroups(groupIndex);
+            fireTreeNodesRemoved(new TreePath(ROOT), groupIndex, group);
+            return;
+        }
+        if (group.isExpanded()) {
+            fireTreeNodesRemoved(new TreePath(new Object[]{ROOT, group}), group.removeChild(issueId), issueId);
+        }
+        fireTreeNodesChanged(new TreePath(ROOT), groupIndex, group);
+    }
+
+    /**
+     * Store the index of each group from the given one, after groups were inserted or removed before it
+     *
+     * @param from the index of the first group that moved
+     */
+    private void renumberGroups(int from) {
+        for (int i = from; i < mGroups.size(); i++) {
+            mGroups.get(i).mIndex = i;
+        }
+    }
+
+    /**
+     * Get the key of the group of a row. The keys sort the groups.
+     *
+     * @param row the row
+     * @return the key of the group
+     */
+    @NotNull
+    private String getKey(@NotNull IssueRow row) {
+        switch (mGroupBy) {
+            case REPOSITORY:
+                return row.getRepository() != null ? row.getRepository().getPresentableName() : "Local Tasks";
+            case STATE:
+                return row.isClosed() ? "Closed" : "Open";
+            case TYPE:
+                final String type = row.getType().name();
+                return type.charAt(0) + type.substring(1).toLowerCase(Locale.US);
+            case UPDATED:
+                return String.valueOf(getAge(row.getUpdated()).ordinal());
+            default:
+                return "";
+        }
+    }
+
+    /**
+     * @param key the key of a group
+     * @return the name shown for the group
+     */
+    @NotNull
+    private String getName(@NotNull String key) {
+        return mGroupBy == GroupBy.UPDATED ? Age.values()[Integer.parseInt(key)].mName : key;
+    }
+
+    /**
+     * @param updated the sort key of the updated date of a row
+     * @return the bucket of the date
+     */
+    @NotNull
+    private Age getAge(long updated) {
+        if (!IssueRow.hasDate(updated)) {
+            return Age.NO_DATE;
+        }
+        for (Age age : Age.values()) {
+            if (age.mDays == Integer.MAX_VALUE || updated >= mTodayStart - TimeUnit.DAYS.toMillis(age.mDays)) {
+                return age;
+            }
+        }
+        return Age.OLDER;
+    }
+
+    /**
+     * @return the start of the current day
+     */
+    private static long getTodayStart() {
+        final ZoneId zone = ZoneId.systemDefault();
+        return LocalDate.now(zone).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Notify the tree that a node was inserted
+     *
+     * @param parentPath the path of the parent
+     * @param index      the index of the node
+     * @param child      the node
+     */
+    private void fireTreeNodesInserted(@NotNull TreePath parentPath, int index, @NotNull Object child) {
+        final TreeModelEvent event = new TreeModelEvent(this, parentPath, new int[]{index}, new Object[]{child});
+        for (TreeModelListener listener : mListeners.getListeners(TreeModelListener.class)) {
+            listener.treeNodesInserted(event);
+        }
+    }
+
+    /**
+     * Notify the tree that a node was removed
+     *
+     * @param parentPath the path of the parent
+     * @param index      the index of the node
+     * @param child      the node
+     */
+    private void fireTreeNodesRemoved(@NotNull TreePath parentPath, int index, @NotNull Object child) {
+        final TreeModelEvent event = new TreeModelEvent(this, parentPath, new int[]{index}, new Object[]{child});
+        for (TreeModelListener listener : mListeners.getListeners(TreeModelListener.class)) {
+            listener.treeNodesRemoved(event);
+        }
+    }
+
+    /**
+     * Notify the tree that a node was changed
+     *
+     * @param parentPath the path of the parent
+     * @param index      the index of the node
+     * @param child      the node
+     */
+    private void fireTreeNodesChanged(@NotNull TreePath parentPath, int index, @NotNull Object child) {
+        final TreeModelEvent event = new TreeModelEvent(this, parentPath, new int[]{index}, new Object[]{child});
+        for (TreeModelListener listener : mListeners.getListeners(TreeModelListener.class)) {
+            listener.treeNodesChanged(event);
+        }
+    }
+
+    /**
+     * A group of issues
+     */
+    static final class IssueGroup {
+        /** The key of the group, which sorts the groups */
+        @NotNull
+        private final String mKey;
+        /** The name shown */
+        @NotNull
+        private final String mName;
+        /** The ids of the issues in the group, in the order they were added */
+        private final Set<String> mIssueIds = new LinkedHashSet<>();
+        /** The ids as a list while the group is expanded, or null while it is collapsed */
+        @Nullable
+        private List<String> mChildren;
+        /** The index of each id in {@link #mChildren}, or null while the group is collapsed */
+        @Nullable
+        private Map<String, Integer> mChildIndexes;
+        /** The number of ids at the start of {@link #mChildren} whose index in {@link #mChildIndexes} is up to date */
+        private int mIndexedCount;
+        /** The index of the group among the groups */
+        private int mIndex;
+
+        private IssueGroup(@NotNull String key, @NotNull String name) {
+            mKey = key;
+            mName = name;
+        }
+
+        /**
+         * @return the name shown
+         */
+        @NotNull
+        String getName() {
+            return mName;
+        }
+
+        /**
+         * @return the number of issues in the group
+         */
+        int getCount() {
+            return mIssueIds.size();
+        }
+
+        /**
+         * @return the ids of the issues, listed when the group is first expanded
+         */
+        @NotNull
+        private List<String> getChildren() {
+            if (mChildren == null) {
+                mChildren = new ArrayList<>(mIssueIds);
+                mChildIndexes = new HashMap<>();
+                mIndexedCount = 0;
+            }
+            return mChildren;
+        }
+
+        /**
+         * @return true if the ids are listed, as the group is expanded
+         */
+        private boolean isExpanded() {
+            return mChildren != null;
+        }
+
+        /**
+         * Drop the list of ids, as the group is collapsed
+         */
+        private void collapse() {
+            mChildren = null;
+            mChildIndexes = null;
+        }
+
+        /**
+         * Find an id in the list of an expanded group. The indexes shifted by removals are stored again only when an
+         * id after the first removal is looked up, so that removing many ids costs a single pass.
+         *
+         * @param issueId the id
+         * @return the index of the id, or -1 if it is not in the group
+         */
+        private int indexOfChild(@NotNull String issueId) {
+            final Integer index = mChildIndexes.get(issueId);
+            if (index != null && index < mIndexedCount) {
+                return index;
+            }
+            for (int i = mIndexedCount; i < mChildren.size(); i++) {
+                mChildIndexes.put(mChildren.get(i), i);
+            }
+            mIndexedCount = mChildren.size();
+            final Integer reindexed = mChildIndexes.get(issueId);
+            return reindexed != null ? reindexed : -1;
+        }
+
+        /**
+         * Append an id to the list of an expanded group
+         *
+         * @param issueId the id
+         * @return the index of the id
+         */
+        private int addChild(@NotNull String issueId) {
+            final int index = mChildren.size();
+            mChildren.add(issueId);
+            if (mIndexedCount == index) {
+                mChildIndexes.put(issueId, index);
+                mIndexedCount++;
+            }
+            return index;
+        }
+
+        /**
+         * Remove an id from the list of an expanded group
+         *
+         * @param issueId the id
+         * @return the index the id had
+         */
+        private int removeChild(@NotNull String issueId) {
+            final int index = indexOfChild(issueId);
+            mChildren.remove(index);
+            mChildIndexes.remove(issueId);
+            mIndexedCount = Math.min(mIndexedCount, index);
+            return index;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.madrapps.issuetracker.listissues;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the ids of the issues each repository listed for the current filter, to tell which issues are gone.
+ */
+final class IssueListing {
+
+    /** The filter the issues were listed for */
+    @NotNull
+    private IssueFilter mFilter = IssueFilter.DEFAULT;
+    /** The ids listed by each repository, in the order listed, keyed by repository url */
+    private final Map<String, LinkedHashSet<String>> mListedIds = new HashMap<>();
+
+    /**
+     * Forget the issues listed for another filter, since they are not in the ranges of this filter
+     *
+     * @param filter the filter of the next issues listed
+     */
+    synchronized void setFilter(@NotNull IssueFilter filter) {
+        if (!filter.equals(mFilter)) {
+            mFilter = filter;
+            mListedIds.clear();
+        }
+    }
+
+    /**
+     * Record issues listed by a repository after the issues it listed before, like the issues of the next page
+     *
+     * @param filter        the filter the issues were listed for, ignored if it is not the current filter
+     * @param repositoryUrl the url of the repository
+     * @param issueIds      the ids of the issues, in the order listed
+     */
+    synchronized void add(@NotNull IssueFilter filter, @NotNull String repositoryUrl,
+                          @NotNull Collection<String> issueIds) {
+        if (!filter.equals(mFilter)) {
+            // Listed by a sync of a previous filter that was cancelled
+            return;
+        }
+        mListedIds.computeIfAbsent(repositoryUrl, key -> new LinkedHashSet<>()).addAll(issueIds);
+    }
+
+    /**
+     * @return the largest number of issues listed by a repository, which is the range that a sync has to pull again
+     * to find out which issues are gone
+     */
+    synchronized int getMaxSize() {
+        int maxSize = 0;
+        for (Set<String> issueIds : mListedIds.values()) {
+            maxSize = Math.max(maxSize, issueIds.size());
+        }
+        return maxSize;
+    }
+
+    /**
+     * Replace the issues listed by a repository with the issues it listed from the start of its issues again, and
+     * find the issues that are gone
+     *
+     * @param repositoryUrl the url of the repository
+     * @param pulledIds     the ids of the issues pulled from the start, in the order listed, at least as many as
+     *                      {@link #getMaxSize()} unless the repository has no more issues
+     * @param hasMore       whether the repository may have more issues beyond the ones pulled
+     * @return the ids of the issues listed before that are no longer in the repository
+     */
+    @NotNull
+    synchronized List<String> reconcile(@NotNull String repositoryUrl, @NotNull List<String> pulledIds,
+                                        boolean hasMore) {
+        final Set<String> listedIds = mListedIds.put(repositoryUrl, new LinkedHashSet<>(pulledIds));
+        if (listedIds == null) {
+            return Collections.emptyList();
+        }
+        final Set<String> pulledIdSet = new LinkedHashSet<>(pulledIds);
+        int enteredCount = 0;
+        for (String issueId : pulledIdSet) {
+            if (!listedIds.contains(issueId)) {
+                enteredCount++;
+            }
+        }
+        final List<String> missingIds = new ArrayList<>();
+        for (String issueId : listedIds) {
+            if (!pulledIdSet.contains(issueId)) {
+                missingIds.add(issueId);
+            }
+        }
+        if (!hasMore) {
+            return missingIds;
+        }
+        // The last issues missing may only have been pushed beyond the range by the issues that entered it
+        return missingIds.subList(0, Math.max(0, missingIds.size() - enteredCount));
+    }
+}
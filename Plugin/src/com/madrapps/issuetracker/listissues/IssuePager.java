@@ -0,0 +1,116 @@
+package com.madrapps.issuetracker.listissues;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Keeps track of the pages of issues loaded into the Issue table as the user scrolls.
+ */
+final class IssuePager {
+
+    /** Number of issues requested per page */
+    static final int PAGE_SIZE = 50;
+    /** Number of pages to be loaded ahead of the last visible row */
+    static final int PREFETCH_PAGES = 1;
+    /** Maximum number of pages that will be loaded into the table */
+    static final int MAX_PAGES = 40;
+
+    /** The filter for which the pages are loaded */
+    @NotNull
+    private IssueFilter mFilter = IssueFilter.DEFAULT;
+    /** The offset of the next page to be requested */
+    private int mNextOffset;
+    /** Number of pages loaded so far */
+    private int mPageCount;
+    /** False once the repository returned a page smaller than {@link #PAGE_SIZE} */
+    private boolean mHasMore = true;
+    /** True while a page request is in progress */
+    private boolean mPageInFlight;
+    /** True once the page limit was reported for the current filter */
+    private boolean mLimitReported;
+    /** Incremented on every reset, so that pages of an older filter are ignored */
+    private int mGeneration;
+
+    /**
+     * Start paging from the beginning for the given filter. The first page is marked as requested.
+     *
+     * @param filter the filter
+     * @return the generation of this paging session
+     */
+    synchronized int reset(@NotNull IssueFilter filter) {
+        mFilter = filter;
+        mNextOffset = 0;
+        mPageCount = 0;
+        mHasMore = true;
+        mPageInFlight = true;
+        mLimitReported = false;
+        return ++mGeneration;
+    }
+
+    /**
+     * Mark the next page as requested if the user has scrolled close enough to the end of the table
+     *
+     * @param lastVisibleRow the last row visible in the table
+     * @param rowCount       the number of rows in the table
+     * @return the offset of the next page, or -1 if no page has to be requested
+     */
+    synchronized int requestNextPage(int lastVisibleRow, int rowCount) {
+        if (mPageInFlight || !mHasMore || mPageCount >= MAX_PAGES
+                || lastVisibleRow < rowCount - PREFETCH_PAGES * PAGE_SIZE) {
+            return -1;
+        }
+        mPageInFlight = true;
+        return mNextOffset;
+    }
+
+    /**
+     * Record the result of a page request
+     *
+     * @param generation the generation the page was requested in
+     * @param offset     the offset of the page
+     * @param limit      the size requested
+     * @param received   the number of issues received, or -1 if the request failed
+     */
+    synchronized void endPage(int generation, int offset, int limit, int received) {
+        if (generation != mGeneration || offset != mNextOffset) {
+            // The page belongs to an older filter or was not requested through the pager
+            return;
+        }
+        mPageInFlight = false;
+        if (received >= 0) {
+            mNextOffset = offset + received;
+            mPageCount++;
+            mHasMore = received >= limit;
+        }
+    }
+
+    /**
+     * Check whether paging stopped at {@link #MAX_PAGES} while the repositories have more issues. This is true only
+     * once per filter, so that the limit is reported once.
+     *
+     * @param lastVisibleRow the last row visible in the table
+     * @param rowCount       the number of rows in the table
+     * @return true if the user scrolled to the end of the loaded pages and the limit is not reported yet
+     */
+    synchronized boolean reportLimit(int lastVisibleRow, int rowCount) {
+        if (mLimitReported || !mHasMore || mPageCount < MAX_PAGES || lastVisibleRow < rowCount - 1) {
+            return false;
+        }
+        mLimitReported = true;
+        return true;
+    }
+
+    /**
+     * @return the generation of the current paging session
+     */
+    synchronized int getGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * @return the filter for which pages are loaded
+     */
+    @NotNull
+    synchronized IssueFilter getFilter() {
+        return mFilter;
+    }
+}
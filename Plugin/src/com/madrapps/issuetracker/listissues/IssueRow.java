@@ -0,0 +1,288 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.tasks.Task;
+import com.intellij.tasks.TaskRepository;
+import com.intellij.tasks.TaskType;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.Icon;
+
+import static com.madrapps.issuetracker.listissues.TableColumns.getValueOfDate;
+
+/**
+ * A row of the Issue table, holding only what the table shows and sorts by of a {@link Task}.
+ */
+final class IssueRow {
+
+    /** Dates older than this are formatted as absolute dates, and never have to be refreshed */
+    private static final long RELATIVE_DATE_WINDOW_MS = TimeUnit.DAYS.toMillis(3);
+    /** The sort key of a missing date, so that it is sorted before any other date */
+    private static final long NO_DATE = Long.MIN_VALUE;
+    /** The task types, indexed by {@link #mType} */
+    private static final TaskType[] TASK_TYPES = TaskType.values();
+    /** The icons of the issues, indexed by {@link #mIconIndex}. There are only a handful of them. */
+    private static final List<Icon> ICONS = new ArrayList<>();
+
+    /** The id of the issue */
+    @NotNull
+    private final String mId;
+    /** The name shown in the Name column */
+    @NotNull
+    private final String mPresentableName;
+    /** The repository of the issue, shared by all its issues */
+    @Nullable
+    private final TaskRepository mRepository;
+    /** The name of the repository type, interned as there are only a few of them */
+    @NotNull
+    private final String mRepositoryName;
+    /** The created time of the issue, or {@link #NO_DATE} */
+    private final long mCreated;
+    /** The updated time of the issue, or {@link #NO_DATE} */
+    private final long mUpdated;
+    /** The index of the icon in {@link #ICONS}, or -1 if the issue has no icon */
+    private final byte mIconIndex;
+    /** The ordinal of the task type, also the sort key of the icon */
+    private final byte mType;
+    /** Whether the issue is closed */
+    private final boolean mClosed;
+    /** Whether the task is an issue, rather than a local task */
+    private final boolean mIssue;
+    /** The formatted created date, or null until it is painted */
+    @Nullable
+    private String mCreatedText;
+    /** The formatted updated date, or null until it is painted */
+    @Nullable
+    private String mUpdatedText;
+
+    /**
+     * Constructor
+     *
+     * @param task the issue
+     */
+    IssueRow(@NotNull Task task) {
+        mId = task.getId();
+        final String presentableName = task.getPresentableName();
+        mPresentableName = presentableName != null ? presentableName : mId;
+        mRepository = task.getRepository();
+        mRepositoryName = mRepository != null ? mRepository.getRepositoryType().getName().intern() : "";
+        mCreated = toSortKey(task.getCreated());
+        mUpdated = toSortKey(task.getUpdated());
+        mIconIndex = indexOf(task.getIcon());
+        final TaskType type = task.getType();
+        mType = (byte) (type != null ? type.ordinal() : TaskType.OTHER.ordinal());
+        mClosed = task.isClosed();
+        mIssue = task.isIssue();
+    }
+
+    /**
+     * @return the id of the issue
+     */
+    @NotNull
+    String getId() {
+        return mId;
+    }
+
+    /**
+     * @return the name shown in the Name column
+     */
+    @NotNull
+    String getPresentableName() {
+        return mPresentableName;
+    }
+
+    /**
+     * @return the repository of the issue, or null if it is not known
+     */
+    @Nullable
+    TaskRepository getRepository() {
+        return mRepository;
+    }
+
+    /**
+     * @return the name of the repository type, or an empty string
+     */
+    @NotNull
+    String getRepositoryName() {
+        return mRepositoryName;
+    }
+
+    /**
+     * @return the icon of the issue
+     */
+    @Nullable
+    Icon getIcon() {
+        if (mIconIndex < 0) {
+            return null;
+        }
+        synchronized (ICONS) {
+            return ICONS.get(mIconIndex);
+        }
+    }
+
+    /**
+     * @return the task type of the issue
+     */
+    @NotNull
+    TaskType getType() {
+        return TASK_TYPES[mType];
+    }
+
+    /**
+     * @return whether the issue is closed
+     */
+    boolean isClosed() {
+        return mClosed;
+    }
+
+    /**
+     * @return whether the task is an issue, rather than a local task
+     */
+    boolean isIssue() {
+        return mIssue;
+    }
+
+    /**
+     * @return the sort key of the icon
+     */
+    int getIconOrdinal() {
+        return mType;
+    }
+
+    /**
+     * @return the sort key of the created date
+     */
+    long getCreated() {
+        return mCreated;
+    }
+
+    /**
+     * @return the sort key of the updated date
+     */
+    long getUpdated() {
+        return mUpdated;
+    }
+
+    /**
+     * @return the formatted created date
+     */
+    @NotNull
+    String getCreatedText() {
+        if (mCreatedText == null) {
+            mCreatedText = getValueOfDate(toDate(mCreated));
+        }
+        return mCreatedText;
+    }
+
+    /**
+     * @return the formatted updated date
+     */
+    @NotNull
+    String getUpdatedText() {
+        if (mUpdatedText == null) {
+            mUpdatedText = getValueOfDate(toDate(mUpdated));
+        }
+        return mUpdatedText;
+    }
+
+    /**
+     * Format the dates again if they are recent enough to be shown relative to the current time. Dates that have
+     * not been painted yet are left to be formatted when they are.
+     *
+     * @param now the current time
+     * @return true if the text of a date has changed
+     */
+    boolean refreshDates(long now) {
+        boolean changed = false;
+        if (mCreatedText != null && isRelative(mCreated, now)) {
+            final String createdText = getValueOfDate(toDate(mCreated));
+            changed = !createdText.equals(mCreatedText);
+            mCreatedText = createdText;
+        }
+        if (mUpdatedText != null && isRelative(mUpdated, now)) {
+            final String updatedText = getValueOfDate(toDate(mUpdated));
+            changed |= !updatedText.equals(mUpdatedText);
+            mUpdatedText = updatedText;
+        }
+        return changed;
+    }
+
+    /**
+     * Determine if any of the values shown in the row differ from another row of the same issue
+     *
+     * @param row the other row
+     * @return true if the row has to be repainted
+     */
+    boolean isChanged(@NotNull IssueRow row) {
+        return mUpdated != row.mUpdated
+                || mCreated != row.mCreated
+                || !mPresentableName.equals(row.mPresentableName)
+                || mIconIndex != row.mIconIndex
+                || !mRepositoryName.equals(row.mRepositoryName);
+    }
+
+    /**
+     * Get the index of the icon in {@link #ICONS}, adding it if it is not there yet
+     *
+     * @param icon the icon
+     * @return the index of the icon, or -1 if there is no icon
+     */
+    private static byte indexOf(@Nullable Icon icon) {
+        if (icon == null) {
+            return -1;
+        }
+        synchronized (ICONS) {
+            for (int i = 0; i < ICONS.size(); i++) {
+                if (ICONS.get(i) == icon) {
+                    return (byte) i;
+                }
+            }
+            if (ICONS.size() > Byte.MAX_VALUE) {
+                // A connector creating a new icon for every issue, the icon is not shown rather than kept alive
+                return -1;
+            }
+            ICONS.add(icon);
+            return (byte) (ICONS.size() - 1);
+        }
+    }
+
+    /**
+     * @param date the date
+     * @return the sort key of the date
+     */
+    private static long toSortKey(@Nullable Date date) {
+        return date != null ? date.getTime() : NO_DATE;
+    }
+
+    /**
+     * @param time the sort key of a date
+     * @return the date, or null if there is no date
+     */
+    @Nullable
+    static Date toDate(long time) {
+        return time != NO_DATE ? new Date(time) : null;
+    }
+
+    /**
+     * @param time the sort key of a date
+     * @return true if there is a date
+     */
+    static boolean hasDate(long time) {
+        return time != NO_DATE;
+    }
+
+    /**
+     * @param time the sort key of a date
+     * @param now  the current time
+     * @return true if the date is formatted relative to the current time
+     */
+    private static boolean isRelative(long time, long now) {
+        return time != NO_DATE && now - time < RELATIVE_DATE_WINDOW_MS;
+    }
+}
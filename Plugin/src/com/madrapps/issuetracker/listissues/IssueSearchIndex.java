@@ -0,0 +1,345 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.tasks.Comment;
+import com.intellij.tasks.Task;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An inverted index over the text of the issues in the Issue table, so that it can be filtered as the user types.
+ */
+final class IssueSearchIndex {
+
+    /** Maximum number of characters of a description or comment that are indexed */
+    static final int MAX_INDEXED_CHARS = 10_000;
+
+    /** The numbers of the issues containing each word, sorted by word so that prefixes can be looked up */
+    private final NavigableMap<String, Posting> mPostings = new TreeMap<>();
+    /** The number of each issue in the postings, keyed by issue id */
+    private final Map<String, Integer> mIssueNumbers = new HashMap<>();
+    /** The id of each issue, indexed by its number, null for a number that is free */
+    private final List<String> mIssueIds = new ArrayList<>();
+    /** The numbers of the issues removed, given to the next issues added */
+    private final Deque<Integer> mFreeNumbers = new ArrayDeque<>();
+    /** The words of the id, summary and description of each issue, keyed by issue id */
+    private final Map<String, String[]> mIssueWords = new HashMap<>();
+    /** The words of the comments of each issue, keyed by issue id */
+    private final Map<String, String[]> mCommentWords = new HashMap<>();
+
+    /**
+     * Add the issue to the index, replacing its previous version if any. The comments indexed for the issue are
+     * retained.
+     *
+     * @param issue the issue
+     */
+    void add(@NotNull Task issue) {
+        final String id = issue.getId();
+        final Set<String> words = new HashSet<>();
+        words.add(id.toLowerCase(Locale.US));
+        tokenize(id, words);
+        tokenize(issue.getSummary(), words);
+        tokenize(issue.getDescription(), words);
+        Integer number = mIssueNumbers.get(id);
+        if (number == null) {
+            number = mFreeNumbers.isEmpty() ? mIssueIds.size() : mFreeNumbers.pop();
+            mIssueNumbers.put(id, number);
+            if (number == mIssueIds.size()) {
+                mIssueIds.add(id);
+            } else {
+                mIssueIds.set(number, id);
+            }
+        }
+        final Set<String> newWords = new HashSet<>(words);
+        addAll(newWords, mCommentWords.get(id));
+        updatePostings(number, getWords(id), newWords);
+        mIssueWords.put(id, toPostingKeys(words));
+    }
+
+    /**
+     * Add the comments of an issue to the index, replacing the comments indexed before
+     *
+     * @param issueId  the id of the issue
+     * @param comments the comments of the issue
+     */
+    void addComments(@NotNull String issueId, @NotNull Comment[] comments) {
+        final Integer number = mIssueNumbers.get(issueId);
+        if (number == null) {
+            // The issue is not in the table
+            return;
+        }
+        final Set<String> words = new HashSet<>();
+        for (Comment comment : comments) {
+            tokenize(comment.getText(), words);
+            tokenize(comment.getAuthor(), words);
+        }
+        final Set<String> newWords = new HashSet<>(words);
+        addAll(newWords, mIssueWords.get(issueId));
+        updatePostings(number, getWords(issueId), newWords);
+        mCommentWords.put(issueId, toPostingKeys(words));
+    }
+
+    /**
+     * Remove the issue from the index
+     *
+     * @param issueId the id of the issue
+     */
+    void remove(@NotNull String issueId) {
+        final Integer number = mIssueNumbers.remove(issueId);
+        if (number == null) {
+            return;
+        }
+        updatePostings(number, getWords(issueId), Collections.emptySet());
+        mIssueWords.remove(issueId);
+        mCommentWords.remove(issueId);
+        mIssueIds.set(number, null);
+        mFreeNumbers.push(number);
+    }
+
+    /**
+     * Find the issues matching the query
+     *
+     * @param query the words to be searched, separated by spaces
+     * @return the ids of the matching issues, or null if the query has no words and everything matches
+     */
+    @Nullable
+    Set<String> search(@Nullable String query) {
+        final Set<String> terms = new HashSet<>();
+        tokenize(query, terms);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        BitSet result = null;
+        for (String term : terms) {
+            final BitSet numbers = findByPrefix(term);
+            if (result == null) {
+                result = numbers;
+            } else {
+                result.and(numbers);
+            }
+            if (result.isEmpty()) {
+                return Collections.emptySet();
+            }
+        }
+        final Set<String> ids = new HashSet<>();
+        for (int number = result.nextSetBit(0); number >= 0; number = result.nextSetBit(number + 1)) {
+            ids.add(mIssueIds.get(number));
+        }
+        return ids;
+    }
+
+    /**
+     * Check whether an issue matches the query, without searching the other issues. This is used to keep the result
+     * of a search up to date as issues are added or changed.
+     *
+     * @param issueId the id of the issue
+     * @param query   the words to be searched, separated by spaces
+     * @return true if the issue has a word starting with every word of the query
+     */
+    boolean matches(@NotNull String issueId, @Nullable String query) {
+        final Set<String> terms = new HashSet<>();
+        tokenize(query, terms);
+        if (terms.isEmpty()) {
+            return true;
+        }
+        final Integer number = mIssueNumbers.get(issueId);
+        if (number == null) {
+            return false;
+        }
+        for (String term : terms) {
+            boolean found = false;
+            for (Posting posting : mPostings.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                if (posting.contains(number)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the issues containing a word starting with the prefix
+     *
+     * @param prefix the prefix
+     * @return the numbers of the issues
+     */
+    @NotNull
+    private BitSet findByPrefix(@NotNull String prefix) {
+        final BitSet numbers = new BitSet(mIssueIds.size());
+        for (Posting posting : mPostings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            posting.addTo(numbers);
+        }
+        return numbers;
+    }
+
+    /**
+     * Get all the words indexed for an issue
+     *
+     * @param issueId the id of the issue
+     * @return the words of the issue and its comments
+     */
+    @NotNull
+    private Set<String> getWords(@NotNull String issueId) {
+        final Set<String> words = new HashSet<>();
+        addAll(words, mIssueWords.get(issueId));
+        addAll(words, mCommentWords.get(issueId));
+        return words;
+    }
+
+    /**
+     * @param words the set to add the words to
+     * @param keys  the words kept for an issue, or null
+     */
+    private static void addAll(@NotNull Set<String> words, @Nullable String[] keys) {
+        if (keys != null) {
+            Collections.addAll(words, keys);
+        }
+    }
+
+    /**
+     * Get the words as the instances that are the keys of the postings, so that the words of an issue do not hold
+     * a copy of each word. The words have to be in the postings already.
+     *
+     * @param words the words
+     * @return the keys of the postings equal to the words
+     */
+    @NotNull
+    private String[] toPostingKeys(@NotNull Set<String> words) {
+        final String[] keys = new String[words.size()];
+        int i = 0;
+        for (String word : words) {
+            keys[i++] = mPostings.ceilingKey(word);
+        }
+        return keys;
+    }
+
+    /**
+     * Update the postings with the words that were added to or removed from an issue
+     *
+     * @param number   the number of the issue
+     * @param oldWords the words indexed before
+     * @param newWords the words to be indexed now
+     */
+    private void updatePostings(int number, @NotNull Set<String> oldWords, @NotNull Set<String> newWords) {
+        for (String word : oldWords) {
+            if (!newWords.contains(word)) {
+                final Posting posting = mPostings.get(word);
+                if (posting != null) {
+                    posting.remove(number);
+                    if (posting.isEmpty()) {
+                        mPostings.remove(word);
+                    }
+                }
+            }
+        }
+        for (String word : newWords) {
+            if (!oldWords.contains(word)) {
+                mPostings.computeIfAbsent(word, key -> new Posting()).add(number);
+            }
+        }
+    }
+
+    /**
+     * Split the text into lower case words of letters and digits
+     *
+     * @param text  the text
+     * @param words the set to add the words to
+     */
+    private static void tokenize(@Nullable String text, @NotNull Set<String> words) {
+        if (text == null) {
+            return;
+        }
+        final int length = Math.min(text.length(), MAX_INDEXED_CHARS);
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            final boolean isWordChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (isWordChar && start == -1) {
+                start = i;
+            } else if (!isWordChar && start != -1) {
+                words.add(text.substring(start, i).toLowerCase(Locale.US));
+                start = -1;
+            }
+        }
+    }
+
+    /**
+     * The numbers of the issues containing a word, as a sorted array that grows as issues are added
+     */
+    private static final class Posting {
+        /** The numbers of the issues, sorted, followed by unused space */
+        private int[] mNumbers = new int[1];
+        /** The number of issues */
+        private int mSize;
+
+        /**
+         * @param number the number of an issue containing the word
+         */
+        void add(int number) {
+            int index = Arrays.binarySearch(mNumbers, 0, mSize, number);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (mSize == mNumbers.length) {
+                mNumbers = Arrays.copyOf(mNumbers, mSize + (mSize >> 1) + 1);
+            }
+            System.arraycopy(mNumbers, index, mNumbers, index + 1, mSize - index);
+            mNumbers[index] = number;
+            mSize++;
+        }
+
+        /**
+         * @param number the number of an issue no longer containing the word
+         */
+        void remove(int number) {
+            final int index = Arrays.binarySearch(mNumbers, 0, mSize, number);
+            if (index >= 0) {
+                System.arraycopy(mNumbers, index + 1, mNumbers, index, mSize - index - 1);
+                mSize--;
+            }
+        }
+
+        /**
+         * @param number the number of an issue
+         * @return true if the issue contains the word
+         */
+        boolean contains(int number) {
+            return Arrays.binarySearch(mNumbers, 0, mSize, number) >= 0;
+        }
+
+        /**
+         * @return true if no issue contains the word
+         */
+        boolean isEmpty() {
+            return mSize == 0;
+        }
+
+        /**
+         * @param numbers the set to add the numbers of the issues to
+         */
+        void addTo(@NotNull BitSet numbers) {
+            for (int i = 0; i < mSize; i++) {
+                numbers.set(mNumbers[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.tasks.Comment;
+import com.intellij.tasks.Task;
+import com.intellij.util.ui.ListTableModel;
+import com.madrapps.issuetracker.diagnostics.Timings;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static com.madrapps.issuetracker.listissues.TableColumns.COLUMN_NAMES;
+
+/**
+ * The model of the Issue table, with the rows indexed by issue id so that merging only touches the rows merged.
+ */
+final class IssueTableModel extends ListTableModel<IssueRow> {
+
+    /** The rows of the table. This is the same list that backs the {@link ListTableModel} */
+    private final List<IssueRow> mIssues;
+    /** The row index of each issue, keyed by the issue id */
+    private final Map<String, Integer> mRowIndex = new HashMap<>();
+    /** The search index of the issues in the table */
+    private final IssueSearchIndex mSearchIndex = new IssueSearchIndex();
+    /** The query the table is searched with, or null if every issue matches */
+    @Nullable
+    private String mQuery;
+    /** The ids of the issues matching {@link #mQuery}, or null if every issue matches */
+    @Nullable
+    private Set<String> mMatchingIds;
+    /** Receives every row added, replaced or removed, or null */
+    @Nullable
+    private RowListener mRowListener;
+
+    /**
+     * Listener to receive the changes of the rows of the table
+     */
+    interface RowListener {
+        /**
+         * Called after a row is added, replaced or removed
+         *
+         * @param oldRow the row before the change, or null if the row was added
+         * @param newRow the row after the change, or null if the row was removed
+         */
+        void rowChanged(@Nullable IssueRow oldRow, @Nullable IssueRow newRow);
+    }
+
+    /**
+     * Constructor
+     */
+    IssueTableModel() {
+        this(new ArrayList<>());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param issues the list that backs the model
+     */
+    private IssueTableModel(@NotNull List<IssueRow> issues) {
+        super(COLUMN_NAMES, issues, 0);
+        mIssues = issues;
+    }
+
+    /**
+     * Merge the issues into the table. Existing issues are replaced, new issues are added at the end.
+     *
+     * @param issues        the issues to be merged
+     * @param removeMissing if true, the issues in the table that are not in {@code issues} are removed
+     */
+    void merge(@NotNull List<Task> issues, boolean removeMissing) {
+        final long start = Timings.start();
+        Timings.count("issues per merge", issues.size());
+        final Set<String> mergedIds = removeMissing ? new HashSet<>(issues.size()) : null;
+        final int firstNewRow = mIssues.size();
+        for (Task issue : issues) {
+            final String id = issue.getId();
+            if (mergedIds != null) {
+                mergedIds.add(id);
+            }
+            final Integer row = mRowIndex.get(id);
+            final IssueRow issueRow = new IssueRow(issue);
+            mSearchIndex.add(issue);
+            final boolean matchChanged = updateMatch(id);
+            if (row == null) {
+                mRowIndex.put(id, mIssues.size());
+                mIssues.add(issueRow);
+                fireRowChanged(null, issueRow);
+            } else {
+                final IssueRow oldRow = mIssues.set(row, issueRow);
+                if (row < firstNewRow && (matchChanged || oldRow.isChanged(issueRow))) {
+                    fireTableRowsUpdated(row, row);
+                }
+                fireRowChanged(oldRow, issueRow);
+            }
+        }
+        if (mIssues.size() > firstNewRow) {
+            fireTableRowsInserted(firstNewRow, mIssues.size() - 1);
+        }
+        if (mergedIds != null && mergedIds.size() < mIssues.size()) {
+            removeIssues(id -> !mergedIds.contains(id));
+        }
+        Timings.stop("merge", start);
+    }
+
+    /**
+     * Remove issues from the table
+     *
+     * @param issueIds the ids of the issues to be removed
+     */
+    void remove(@NotNull Set<String> issueIds) {
+        final long start = Timings.start();
+        removeIssues(issueIds::contains);
+        Timings.stop("remove", start, issueIds.size() + " issues");
+    }
+
+    /**
+     * @param rowListener receives every row added, replaced or removed, or null
+     */
+    void setRowListener(@Nullable RowListener rowListener) {
+        mRowListener = rowListener;
+    }
+
+    /**
+     * Get the row of an issue
+     *
+     * @param issueId the id of the issue
+     * @return the row, or null if the issue is not in the table
+     */
+    @Nullable
+    IssueRow getRow(@NotNull String issueId) {
+        final Integer row = mRowIndex.get(issueId);
+        return row != null ? mIssues.get(row) : null;
+    }
+
+    /**
+     * Format the dates of the rows again, since recent dates are shown relative to the current time. Only the rows
+     * whose dates changed are notified to the table.
+     */
+    void refreshDates() {
+        final long now = System.currentTimeMillis();
+        int firstChangedRow = -1;
+        int lastChangedRow = -1;
+        for (int row = 0; row < mIssues.size(); row++) {
+            if (mIssues.get(row).refreshDates(now)) {
+                if (firstChangedRow == -1) {
+                    firstChangedRow = row;
+                }
+                lastChangedRow = row;
+            }
+        }
+        if (firstChangedRow != -1) {
+            fireTableRowsUpdated(firstChangedRow, lastChangedRow);
+        }
+    }
+
+    /**
+     * Search the issues in the table. The issues merged later are matched against the same query.
+     *
+     * @param query the words to be searched, separated by spaces, or null
+     */
+    void setQuery(@Nullable String query) {
+        final Set<String> matchingIds = mSearchIndex.search(query);
+        // Copied, as the result may be immutable and is updated as issues are merged
+        mMatchingIds = matchingIds != null ? new HashSet<>(matchingIds) : null;
+        mQuery = matchingIds != null ? query : null;
+    }
+
+    /**
+     * @param issueRow a row of the table
+     * @return true if the row matches the query the table is searched with
+     */
+    boolean isMatching(@NotNull IssueRow issueRow) {
+        return mMatchingIds == null || mMatchingIds.contains(issueRow.getId());
+    }
+
+    /**
+     * Add the comments of an issue to the search index. If the comments change whether the issue matches the query,
+     * its row is notified as updated.
+     *
+     * @param issueId  the id of the issue
+     * @param comments the comments of the issue
+     */
+    void indexComments(@NotNull String issueId, @NotNull Comment[] comments) {
+        mSearchIndex.addComments(issueId, comments);
+        final Integer row = mRowIndex.get(issueId);
+        if (row != null && updateMatch(issueId)) {
+            fireTableRowsUpdated(row, row);
+            fireRowChanged(mIssues.get(row), mIssues.get(row));
+        }
+    }
+
+    /**
+     * Match an issue whose words have changed against the query the table is searched with
+     *
+     * @param issueId the id of the issue
+     * @return true if the issue matched before and does not now, or the other way round
+     */
+    private boolean updateMatch(@NotNull String issueId) {
+        if (mQuery == null || mMatchingIds == null) {
+            return false;
+        }
+        if (mSearchIndex.matches(issueId, mQuery)) {
+            return mMatchingIds.add(issueId);
+        }
+        return mMatchingIds.remove(issueId);
+    }
+
+    /**
+     * Remove every issue whose id matches. Consecutive rows are removed and notified together.
+     *
+     * @param removed whether an issue id is to be removed
+     */
+    private void removeIssues(@NotNull Predicate<String> removed) {
+        int lowestRemovedRow = -1;
+        int row = mIssues.size() - 1;
+        while (row >= 0) {
+            if (!removed.test(mIssues.get(row).getId())) {
+                row--;
+                continue;
+            }
+            final int lastRow = row;
+            while (row >= 0 && removed.test(mIssues.get(row).getId())) {
+                mRowIndex.remove(mIssues.get(row).getId());
+                mSearchIndex.remove(mIssues.get(row).getId());
+                if (mMatchingIds != null) {
+                    mMatchingIds.remove(mIssues.get(row).getId());
+                }
+                fireRowChanged(mIssues.get(row), null);
+                row--;
+            }
+            final int firstRow = row + 1;
+            mIssues.subList(firstRow, lastRow + 1).clear();
+            fireTableRowsDeleted(firstRow, lastRow);
+            lowestRemovedRow = firstRow;
+        }
+        if (lowestRemovedRow != -1) {
+            reindexFrom(lowestRemovedRow);
+        }
+    }
+
+    /**
+     * Report a change of a row to the {@link RowListener}
+     *
+     * @param oldRow the row before the change, or null if the row was added
+     * @param newRow the row after the change, or null if the row was removed
+     */
+    private void fireRowChanged(@Nullable IssueRow oldRow, @Nullable IssueRow newRow) {
+        if (mRowListener != null) {
+            mRowListener.rowChanged(oldRow, newRow);
+        }
+    }
+
+    /**
+     * Recompute the row index of the issues from the given row till the end
+     *
+     * @param fromRow the first row whose index has changed
+     */
+    private void reindexFrom(int fromRow) {
+        for (int row = fromRow; row < mIssues.size(); row++) {
+            mRowIndex.put(mIssues.get(row).getId(), row);
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package com.madrapps.issuetracker.listissues;
 
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.openapi.wm.ToolWindowFactory;
+import com.madrapps.issuetracker.diagnostics.Timings;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * This is the Tool Window Factory to create the ToolWindow of the Issue Tracker plugin.
  * <p>
@@ -13,15 +17,31 @@ import org.jetbrains.annotations.NotNull;
  */
 public class IssuesToolWindow implements ToolWindowFactory {
 
+    private static final Logger LOG = Logger.getInstance(IssuesToolWindow.class);
+
     /** Tool Window ID. This should be the same as in the Plugin xml */
     static final String TOOL_WINDOW_ID = "Issue Tracker";
+    /** Time the ToolWindow may take to be created on the EDT, beyond which a warning is logged */
+    static final long STARTUP_BUDGET_MS = Long.getLong("issuetracker.startup.budget.ms", 50);
 
     @Override
     public void createToolWindowContent(@NotNull Project project, @NotNull ToolWindow toolWindow) {
+        // Nothing is synced here, the issues are loaded once the ToolWindow is shown after the project has opened
+        final long start = System.nanoTime();
+        final long timingsStart = Timings.start();
         toolWindow.setTitle(TOOL_WINDOW_ID);
 
         final IssuesToolWindowPanel panel = new IssuesToolWindowPanel(toolWindow);
         panel.init(project);
+
+        Timings.stop("tool window init", timingsStart);
+        final long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (elapsedMs > STARTUP_BUDGET_MS) {
+            LOG.warn("Creating the " + TOOL_WINDOW_ID + " ToolWindow took " + elapsedMs + " ms, over the budget of "
+                    + STARTUP_BUDGET_MS + " ms");
+        } else {
+            LOG.info("Created the " + TOOL_WINDOW_ID + " ToolWindow in " + elapsedMs + " ms");
+        }
     }
 
 }
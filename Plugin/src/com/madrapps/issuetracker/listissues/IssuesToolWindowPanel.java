@@ -1,44 +1,80 @@
 package com.madrapps.issuetracker.listissues;
 
 import com.intellij.ide.BrowserUtil;
+import com.intellij.notification.NotificationGroup;
+import com.intellij.notification.NotificationType;
 import com.intellij.openapi.actionSystem.ActionManager;
 import com.intellij.openapi.actionSystem.ActionPlaces;
 import com.intellij.openapi.actionSystem.ActionToolbar;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.DefaultActionGroup;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.startup.StartupManager;
+import com.intellij.openapi.ui.ComboBox;
 import com.intellij.openapi.ui.SimpleToolWindowPanel;
 import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.tasks.Comment;
 import com.intellij.tasks.Task;
+import com.intellij.tasks.TaskRepository;
 import com.intellij.ui.BrowserHyperlinkListener;
+import com.intellij.ui.ColoredTreeCellRenderer;
+import com.intellij.ui.DocumentAdapter;
 import com.intellij.ui.PopupHandler;
+import com.intellij.ui.SearchTextField;
+import com.intellij.ui.SimpleTextAttributes;
+import com.intellij.ui.components.JBScrollPane;
 import com.intellij.ui.content.Content;
 import com.intellij.ui.content.ContentFactory;
 import com.intellij.ui.table.TableView;
-import com.intellij.util.ui.ListTableModel;
+import com.intellij.ui.treeStructure.Tree;
+import com.intellij.util.Alarm;
+import com.madrapps.issuetracker.actions.ExportIssuesAction;
 import com.madrapps.issuetracker.actions.OpenIssueInBrowserAction;
 import com.madrapps.issuetracker.actions.RefreshIssueListAction;
 import com.madrapps.issuetracker.actions.ShowDetailsPanelAction;
+import com.madrapps.issuetracker.actions.ShowDiagnosticsAction;
+import com.madrapps.issuetracker.diagnostics.Timings;
 
-import org.commonmark.node.Node;
-import org.commonmark.parser.Parser;
-import org.commonmark.renderer.html.HtmlRenderer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.awt.CardLayout;
+import java.awt.Image;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.ActionListener;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.FocusListener;
+import java.awt.event.HierarchyEvent;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
+import javax.swing.DefaultComboBoxModel;
+import javax.swing.DefaultRowSorter;
 import javax.swing.JFormattedTextField;
 import javax.swing.JPanel;
 import javax.swing.JTextPane;
+import javax.swing.JTree;
 import javax.swing.ListSelectionModel;
-
-import static com.madrapps.issuetracker.listissues.TableColumns.COLUMN_NAMES;
-import static com.madrapps.issuetracker.listissues.TableColumns.getValueOfDate;
+import javax.swing.RowFilter;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.HyperlinkEvent;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeExpansionListener;
+import javax.swing.table.TableModel;
+import javax.swing.table.TableRowSorter;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.html.HTMLDocument;
+import javax.swing.tree.TreePath;
+import javax.swing.tree.TreeSelectionModel;
 
 /**
  * This is responsible for the ToolWindow GUI. The GUI is backed up be a .form file.
@@ -47,14 +83,49 @@ import static com.madrapps.issuetracker.listissues.TableColumns.getValueOfDate;
  */
 public class IssuesToolWindowPanel extends SimpleToolWindowPanel implements IListIssuesContract.IView {
 
-    /** To parse the Markdown text */
-    private static final Parser MARKDOWN_PARSER = Parser.builder().build();
-    /** To render the markdown as html */
-    private static final HtmlRenderer MARKDOWN_RENDERER = HtmlRenderer.builder().build();
+    private static final Logger LOG = Logger.getInstance(IssuesToolWindowPanel.class);
+    /** The group of the notifications shown by the ToolWindow */
+    private static final NotificationGroup NOTIFICATION_GROUP = NotificationGroup.balloonGroup(IssuesToolWindow.TOOL_WINDOW_ID);
+    /** Number of rows above and below the selected issue whose comments are prefetched */
+    private static final int PREFETCH_DISTANCE = 2;
+    /** Interval at which the relative dates shown in the table are refreshed */
+    private static final int DATE_REFRESH_INTERVAL_MS = 60 * 1000;
+    /** The tree filter when no issue is filtered out, kept the same so that the tree is not grouped again */
+    private static final Predicate<IssueRow> SHOW_ALL = row -> true;
     /** The root component that holds every component */
     private JPanel mContentPanel;
+    /** The field to search the issues. Typing filters the table, pressing Enter searches the repositories */
+    private SearchTextField mSearchField;
+    /** The filter of the state of the issues */
+    private ComboBox<IssueFilter.State> mStateComboBox;
+    /** The filter of the repository of the issues */
+    private ComboBox<String> mRepositoryComboBox;
+    /** The filter of how recently the issues were updated */
+    private ComboBox<IssueFilter.Updated> mUpdatedComboBox;
+    /** How the issues are grouped */
+    private ComboBox<IssueGroupTreeModel.GroupBy> mGroupByComboBox;
+    /** The urls of the repositories in {@code mRepositoryComboBox}, null for all of them */
+    private final List<String> mRepositoryUrls = new ArrayList<>();
+    /** The filter chosen in the filter bar */
+    private IssueFilter mFilter = IssueFilter.DEFAULT;
+    /** The search text the table and the tree are filtered with, or null before they are first filtered */
+    @Nullable
+    private String mShownQuery;
+    /** The filter the table and the tree are filtered with, or null before they are first filtered */
+    @Nullable
+    private IssueFilter mShownFilter;
+    /** True while the filter bar is being filled, so that it is not taken as the user choosing a filter */
+    private boolean mInitializingFilter;
+    /** The panel that shows either the {@code mIssuesTable} or the {@code mIssuesTree} */
+    private JPanel mIssuesViewPanel;
+    /** The scroll pane that holds the {@code mIssuesTable} */
+    private JBScrollPane mIssuesScrollPane;
     /** The table that shows the list of tasks/issues */
-    private TableView<Task> mIssuesTable;
+    private TableView<IssueRow> mIssuesTable;
+    /** The scroll pane that holds the {@code mIssuesTree} */
+    private JBScrollPane mIssuesTreeScrollPane;
+    /** The tree that shows the issues in groups, instead of the table */
+    private Tree mIssuesTree;
     /** The Details panel that shows the details of an issue when it's selected from the table */
     private JTextPane mIssueDetailsTextPane;
     /** The toolbar to hold the actions in the ToolWindow */
@@ -65,10 +136,26 @@ public class IssuesToolWindowPanel extends SimpleToolWindowPanel implements ILis
     private JPanel mIssuesListPanel;
     /** The Details panel component */
     private JPanel mDetailsPanel;
-    /** The list that's backing up the {@code mIssuesTable} */
-    private List<Task> mIssueList;
+    /** The model that's backing up the {@code mIssuesTable} */
+    private IssueTableModel mIssuesModel;
+    /** The model that's backing up the {@code mIssuesTree} */
+    private IssueGroupTreeModel mIssuesTreeModel;
+    /** Refreshes the relative dates shown in the table */
+    private Alarm mDateRefreshAlarm;
+    /** The ToolWindow that holds this panel */
+    private final ToolWindow mToolWindow;
+    /** The number of new issues not yet looked at, shown on the ToolWindow stripe */
+    private int mUnseenAddedCount;
+    /** The number of updated issues not yet looked at, shown on the ToolWindow stripe */
+    private int mUnseenUpdatedCount;
+    /** Whether the project has finished opening */
+    private boolean mProjectInitialized;
+    /** Whether the issues have been loaded for the first time */
+    private boolean mInitialIssuesLoaded;
     /** The presenter */
     private ListIssuesPresenter mPresenter;
+    /** The current project */
+    private Project mProject;
 
     /**
      * Constructor
@@ -77,6 +164,7 @@ public class IssuesToolWindowPanel extends SimpleToolWindowPanel implements ILis
      */
     IssuesToolWindowPanel(ToolWindow toolWindow) {
         super(true, false);
+        mToolWindow = toolWindow;
         final Content content = ContentFactory.SERVICE.getInstance().createContent(this, "", false);
         toolWindow.getContentManager().addContent(content);
         this.setContent(mContentPanel);
@@ -84,60 +172,88 @@ public class IssuesToolWindowPanel extends SimpleToolWindowPanel implements ILis
 
     @Override
     public void updateIssueList(@NotNull List<Task> issuesList, boolean forceUpdate) {
-        if (forceUpdate) {
-            mIssueList.clear();
-        }
-        issuesList.forEach(task -> {
-            final int index = mIssueList.indexOf(task);
-            if (index != -1) {
-                mIssueList.set(index, task);
-            } else {
-                mIssueList.add(task);
-            }
-        });
-        final ListTableModel<Task> model = new ListTableModel<>(COLUMN_NAMES, mIssueList, 0);
-        mIssuesTable.setModelAndUpdateColumns(model);
+        final long start = Timings.start();
+        // The row sorter and the tree filter only the rows merged, with the search and the filter already installed
+        mIssuesModel.merge(issuesList, forceUpdate);
         final CardLayout layout = (CardLayout) mIssuesListPanel.getLayout();
         layout.show(mIssuesListPanel, "CardTABLE");
+        Timings.stop("model update", start);
     }
 
     @Override
     public void init(@NotNull Project project) {
+        mProject = project;
         initializeComponents();
         initializeActions();
 
-        // Load issues for the first time when the ToolWindow is opened
-        mPresenter.loadInitialIssues(project);
+        // Load issues for the first time once the ToolWindow is shown and the project has finished opening, so that
+        // a ToolWindow restored with the project does not add a sync to the time it takes to open
+        StartupManager.getInstance(project).runWhenProjectIsInitialized(() -> {
+            mProjectInitialized = true;
+            loadInitialIssuesIfNeeded();
+        });
+
+        // Refresh the issues automatically only while the ToolWindow is shown
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                loadInitialIssuesIfNeeded();
+                mPresenter.setToolWindowShown(isShowing());
+            }
+        });
     }
 
     @Override
-    public void showDetails(@Nullable String description, @Nullable String issueUrl, @Nullable Comment[] comments) {
-        final StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append("<style>")
-                .append(".comment {color: #000; background-color: #ddffff; padding: 5px 10px; border-left: 6px solid #ccc; display:inline}")
-                .append("p {padding-left:10px;}")
-                .append("</style>");
-        final String formattedDescription = fromMarkDownToHtml(description);
-        stringBuilder.append(formattedDescription)
-                .append("<br/>");
-        if (comments != null) {
-            for (Comment comment : comments) {
-                stringBuilder.append("<div class=\"comment\">")
-                        .append("<div class=\"comment_author_date\"><strong>")
-                        .append(comment.getAuthor()).append("&nbsp;")
-                        .append("(")
-                        .append(getValueOfDate(comment.getDate()))
-                        .append(")")
-                        .append("</strong></div>")
-                        .append(fromMarkDownToHtml(comment.getText()))
-                        .append("</div><br/>");
-            }
+    public void initFilter(@NotNull IssueFilter filter, @NotNull TaskRepository[] repositories) {
+        mInitializingFilter = true;
+        mFilter = filter;
+        mStateComboBox.setModel(new DefaultComboBoxModel<>(IssueFilter.State.values()));
+        mStateComboBox.setSelectedItem(filter.getState());
+        mUpdatedComboBox.setModel(new DefaultComboBoxModel<>(IssueFilter.Updated.values()));
+        mUpdatedComboBox.setSelectedItem(filter.getUpdated());
+        final List<String> repositoryNames = new ArrayList<>();
+        mRepositoryUrls.clear();
+        mRepositoryUrls.add(null);
+        repositoryNames.add("All Repositories");
+        for (TaskRepository repository : repositories) {
+            mRepositoryUrls.add(repository.getUrl());
+            repositoryNames.add(repository.getPresentableName());
+        }
+        mRepositoryComboBox.setModel(new DefaultComboBoxModel<>(repositoryNames.toArray(new String[repositoryNames.size()])));
+        mRepositoryComboBox.setSelectedIndex(Math.max(0, mRepositoryUrls.indexOf(filter.getRepositoryUrl())));
+        mSearchField.setText(filter.getText() != null ? filter.getText() : "");
+        mInitializingFilter = false;
+        filterIssues();
+    }
+
+    @Override
+    public void showDetails(@NotNull String detailsHtml) {
+        final long start = Timings.start();
+        mIssueDetailsTextPane.setText(detailsHtml);
+        Timings.stop("setText", start, detailsHtml.length() + " chars");
+    }
+
+    @Override
+    public void prependComments(@NotNull String commentsHtml, int olderCount) {
+        if (!(mIssueDetailsTextPane.getDocument() instanceof HTMLDocument)) {
+            return;
         }
-        if (issueUrl != null) {
-            stringBuilder.append(String.format(Locale.US, "<a href=%s>%s</a>", issueUrl, issueUrl))
-                    .append("<br/>");
+        final long start = Timings.start();
+        // Insert into the document shown rather than setting the whole text again, which would parse every
+        // comment already shown and lose the scroll position
+        final HTMLDocument document = (HTMLDocument) mIssueDetailsTextPane.getDocument();
+        final Element comments = document.getElement(IssueDetailsRenderer.COMMENTS_ID);
+        final Element olderComments = document.getElement(IssueDetailsRenderer.OLDER_COMMENTS_ID);
+        try {
+            if (comments != null) {
+                document.insertAfterStart(comments, commentsHtml);
+            }
+            if (olderComments != null) {
+                document.setInnerHTML(olderComments, IssueDetailsRenderer.renderOlderCommentsLink(olderCount));
+            }
+        } catch (BadLocationException | IOException e) {
+            LOG.warn("Could not show the older comments", e);
         }
-        mIssueDetailsTextPane.setText(stringBuilder.toString());
+        Timings.stop("insert comments", start, commentsHtml.length() + " chars");
     }
 
     @Override
@@ -162,6 +278,47 @@ public class IssuesToolWindowPanel extends SimpleToolWindowPanel implements ILis
         mIssueDetailsTextPane.setText("");
     }
 
+    @Override
+    public void showRepositoryError(@NotNull String repositoryName, @NotNull String message) {
+        NOTIFICATION_GROUP.createNotification("Could not sync issues from " + repositoryName + ": " + message,
+                NotificationType.WARNING).notify(mProject);
+    }
+
+    @Override
+    public void showPageLimitReached(int rowCount) {
+        NOTIFICATION_GROUP.createNotification("Showing the first " + rowCount
+                + " issues. Narrow the filter or search to find the others.", NotificationType.INFORMATION)
+                .notify(mProject);
+    }
+
+    @Override
+    public void removeIssues(@NotNull Set<String> issueIds) {
+        mIssuesModel.remove(issueIds);
+    }
+
+    @Override
+    public void showChanges(int addedCount, int updatedCount) {
+        if (mToolWindow.isActive()) {
+            // The user is looking at the issues as they change
+            return;
+        }
+        mUnseenAddedCount += addedCount;
+        mUnseenUpdatedCount += updatedCount;
+        final List<String> changes = new ArrayList<>();
+        if (mUnseenAddedCount > 0) {
+            changes.add(mUnseenAddedCount + " new");
+        }
+        if (mUnseenUpdatedCount > 0) {
+            changes.add(mUnseenUpdatedCount + " updated");
+        }
+        mToolWindow.setStripeTitle(IssuesToolWindow.TOOL_WINDOW_ID + " (" + String.join(" / ", changes) + ")");
+    }
+
+    @Override
+    public void indexComments(@NotNull String issueId, @NotNull Comment[] comments) {
+        mIssuesModel.indexComments(issueId, comments);
+    }
+
     @Override
     public void openInBrowser(@NotNull String issueUrl) {
         BrowserUtil.browse(issueUrl);
@@ -174,8 +331,42 @@ public class IssuesToolWindowPanel extends SimpleToolWindowPanel implements ILis
 
     @Nullable
     @Override
-    public Task getSelectedIssue() {
-        return mIssuesTable.getSelectedObject();
+    public String getSelectedIssueId() {
+        if (isGrouped()) {
+            final TreePath selectionPath = mIssuesTree.getSelectionPath();
+            final Object selected = selectionPath != null ? selectionPath.getLastPathComponent() : null;
+            return selected instanceof String ? (String) selected : null;
+        }
+        final IssueRow selectedRow = mIssuesTable.getSelectedObject();
+        return selectedRow != null ? selectedRow.getId() : null;
+    }
+
+    @Nullable
+    @Override
+    public IssueRow getIssueRow(@NotNull String issueId) {
+        return mIssuesModel.getRow(issueId);
+    }
+
+    @NotNull
+    @Override
+    public List<IssueRow> getIssueRows() {
+        return new ArrayList<>(mIssuesModel.getItems());
+    }
+
+    @NotNull
+    @Override
+    public List<IssueRow> getVisibleIssueRows() {
+        final List<IssueRow> rows = new ArrayList<>(mIssuesTable.getRowCount());
+        for (int i = 0; i < mIssuesTable.getRowCount(); i++) {
+            rows.add(mIssuesTable.getRow(i));
+        }
+        return rows;
+    }
+
+    @Override
+    public void showExportResult(@NotNull String message, boolean failed) {
+        NOTIFICATION_GROUP.createNotification(message,
+                failed ? NotificationType.ERROR : NotificationType.INFORMATION).notify(mProject);
     }
 
     @Override
@@ -190,6 +381,8 @@ public class IssuesToolWindowPanel extends SimpleToolWindowPanel implements ILis
         final AnAction refreshAction = ActionManager.getInstance().getAction(RefreshIssueListAction.ACTION_ID);
         final AnAction openIssueInBrowserAction = ActionManager.getInstance().getAction(OpenIssueInBrowserAction.ACTION_ID);
         final AnAction showDetailsPanelAction = ActionManager.getInstance().getAction(ShowDetailsPanelAction.ACTION_ID);
+        final AnAction showDiagnosticsAction = ActionManager.getInstance().getAction(ShowDiagnosticsAction.ACTION_ID);
+        final AnAction exportIssuesAction = ActionManager.getInstance().getAction(ExportIssuesAction.ACTION_ID);
 
         final DefaultActionGroup actionGroup = new DefaultActionGroup();
         actionGroup.add(openIssueInBrowserAction);
@@ -197,48 +390,362 @@ public class IssuesToolWindowPanel extends SimpleToolWindowPanel implements ILis
         actionGroup.add(showDetailsPanelAction);
 
         // Show actions in the toolbar
-        final ActionToolbar actionToolbar = ActionManager.getInstance().createActionToolbar(ActionPlaces.UNKNOWN, actionGroup, false);
+        final DefaultActionGroup toolbarGroup = new DefaultActionGroup();
+        toolbarGroup.addAll(actionGroup);
+        toolbarGroup.addSeparator();
+        toolbarGroup.add(exportIssuesAction);
+        toolbarGroup.add(showDiagnosticsAction);
+        final ActionToolbar actionToolbar = ActionManager.getInstance().createActionToolbar(ActionPlaces.UNKNOWN, toolbarGroup, false);
         actionToolbar.setTargetComponent(mToolbar);
         mToolbar.add(actionToolbar.getComponent());
 
         // Show actions when selected issue is right clicked
         PopupHandler.installPopupHandler(mIssuesTable, actionGroup, ActionPlaces.UPDATE_POPUP, ActionManager.getInstance());
+        PopupHandler.installPopupHandler(mIssuesTree, actionGroup, ActionPlaces.UPDATE_POPUP, ActionManager.getInstance());
     }
 
     /**
      * Initializes, configures, set listeners for the Components
      */
     private void initializeComponents() {
-        mPresenter = ListIssuesPresenter.getInstance();
+        mPresenter = ListIssuesPresenter.getInstance(mProject);
         mPresenter.setView(this);
 
-        mIssueList = new ArrayList<>();
+        mIssuesModel = new IssueTableModel();
+        mIssuesTable.setModelAndUpdateColumns(mIssuesModel);
+        if (!(mIssuesTable.getRowSorter() instanceof DefaultRowSorter)) {
+            mIssuesTable.setRowSorter(new TableRowSorter<>(mIssuesModel));
+        }
+        // The merged rows are only filtered and sorted again if the sorter is told to on updates
+        ((DefaultRowSorter<?, ?>) mIssuesTable.getRowSorter()).setSortsOnUpdates(true);
 
         mIssuesTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         mIssuesTable.setRowSelectionAllowed(true);
         mIssuesTable.getSelectionModel().setSelectionInterval(0, 0);
         mIssuesTable.getSelectionModel().addListSelectionListener(e -> {
-            final Task selectedIssue = mIssuesTable.getSelectedObject();
-            if (selectedIssue != null) {
-                mPresenter.showDetails(selectedIssue);
+            if (!e.getValueIsAdjusting()) {
+                showSelectedIssue();
             }
         });
-        mIssueDetailsTextPane.addHyperlinkListener(new BrowserHyperlinkListener());
+        initializeTree();
+        // Load the images of the details in the background rather than on the EDT
+        mIssueDetailsTextPane.setEditorKit(new IssueDetailsEditorKit(new IssueDetailsEditorKit.ImageLoader() {
+            @Nullable
+            @Override
+            public Image getCached(@NotNull String url, int maxWidth) {
+                return mPresenter.getCachedImage(url, maxWidth);
+            }
 
+            @Override
+            public void load(@NotNull String url, int maxWidth, @NotNull Consumer<Image> consumer) {
+                mPresenter.loadImage(url, maxWidth, consumer);
+            }
+        }));
+        final BrowserHyperlinkListener browserHyperlinkListener = new BrowserHyperlinkListener();
+        mIssueDetailsTextPane.addHyperlinkListener(e -> {
+            if (IssueDetailsRenderer.OLDER_COMMENTS_HREF.equals(e.getDescription())) {
+                if (e.getEventType() == HyperlinkEvent.EventType.ACTIVATED) {
+                    mPresenter.showOlderComments();
+                }
+            } else {
+                browserHyperlinkListener.hyperlinkUpdate(e);
+            }
+        });
+        mSearchField.addDocumentListener(new DocumentAdapter() {
+            @Override
+            protected void textChanged(DocumentEvent e) {
+                filterIssues();
+            }
+        });
+        // Pressing Enter searches the repositories for issues that are not loaded yet
+        mSearchField.getTextEditor().addActionListener(e -> applyFilter(true));
+        final ActionListener filterListener = e -> applyFilter(false);
+        mStateComboBox.addActionListener(filterListener);
+        mRepositoryComboBox.addActionListener(filterListener);
+        mUpdatedComboBox.addActionListener(filterListener);
+        mGroupByComboBox.setModel(new DefaultComboBoxModel<>(IssueGroupTreeModel.GroupBy.values()));
+        mGroupByComboBox.addActionListener(e -> {
+            final IssueGroupTreeModel.GroupBy groupBy = (IssueGroupTreeModel.GroupBy) mGroupByComboBox.getSelectedItem();
+            mIssuesTreeModel.setGroupBy(groupBy);
+            final CardLayout layout = (CardLayout) mIssuesViewPanel.getLayout();
+            layout.show(mIssuesViewPanel, groupBy == IssueGroupTreeModel.GroupBy.NONE ? "CardFLAT" : "CardGROUPED");
+        });
+        // The changes are looked at once the issues are focused
+        final FocusListener changesSeenListener = new FocusAdapter() {
+            @Override
+            public void focusGained(FocusEvent e) {
+                clearChanges();
+            }
+        };
+        mIssuesTable.addFocusListener(changesSeenListener);
+        mIssuesTree.addFocusListener(changesSeenListener);
+        // The viewport changes when the table or the tree is scrolled, resized or when rows are added
+        mIssuesScrollPane.getViewport().addChangeListener(e -> loadMoreIssuesIfNeeded());
+        mIssuesTreeScrollPane.getViewport().addChangeListener(e -> loadMoreIssuesIfNeeded());
+        // Stops when the project is closed
+        mDateRefreshAlarm = new Alarm(Alarm.ThreadToUse.SWING_THREAD, mProject);
+        scheduleDateRefresh();
+    }
+
+    /**
+     * Load the issues for the first time, once the project has finished opening and the ToolWindow is shown
+     */
+    private void loadInitialIssuesIfNeeded() {
+        if (!mInitialIssuesLoaded && mProjectInitialized && isShowing() && !mProject.isDisposed()) {
+            mInitialIssuesLoaded = true;
+            mPresenter.loadInitialIssues(mProject);
+            mPresenter.setToolWindowShown(true);
+        }
     }
 
     /**
-     * Converts from markdown format to html format, or simply returns empty string if null
+     * Remove the count of new and updated issues from the ToolWindow stripe
+     */
+    private void clearChanges() {
+        if (mUnseenAddedCount + mUnseenUpdatedCount > 0) {
+            mUnseenAddedCount = 0;
+            mUnseenUpdatedCount = 0;
+            mToolWindow.setStripeTitle(IssuesToolWindow.TOOL_WINDOW_ID);
+        }
+    }
+
+    /**
+     * Initializes the tree that shows the issues in groups. The tree shares the rows of the {@code mIssuesModel},
+     * which keeps the groups up to date as the rows are merged.
+     */
+    private void initializeTree() {
+        mIssuesTreeModel = new IssueGroupTreeModel(mIssuesModel);
+        mIssuesModel.setRowListener(mIssuesTreeModel);
+        mIssuesTree.setModel(mIssuesTreeModel);
+        mIssuesTree.setRootVisible(false);
+        mIssuesTree.setShowsRootHandles(true);
+        mIssuesTree.getSelectionModel().setSelectionMode(TreeSelectionModel.SINGLE_TREE_SELECTION);
+        mIssuesTree.setCellRenderer(new ColoredTreeCellRenderer() {
+            @Override
+            public void customizeCellRenderer(@NotNull JTree tree, Object value, boolean selected, boolean expanded,
+                                              boolean leaf, int row, boolean hasFocus) {
+                if (value instanceof IssueGroupTreeModel.IssueGroup) {
+                    final IssueGroupTreeModel.IssueGroup group = (IssueGroupTreeModel.IssueGroup) value;
+                    append(group.getName(), SimpleTextAttributes.REGULAR_BOLD_ATTRIBUTES);
+                    append("  " + group.getCount(), SimpleTextAttributes.GRAYED_ATTRIBUTES);
+                } else if (value instanceof String) {
+                    final IssueRow issueRow = mIssuesModel.getRow((String) value);
+                    if (issueRow != null) {
+                        setIcon(issueRow.getIcon());
+                        append(issueRow.getPresentableName(), SimpleTextAttributes.REGULAR_ATTRIBUTES);
+                    }
+                }
+            }
+        });
+        mIssuesTree.addTreeSelectionListener(e -> showSelectedIssue());
+        mIssuesTree.addTreeExpansionListener(new TreeExpansionListener() {
+            @Override
+            public void treeExpanded(TreeExpansionEvent event) {
+                // The ids of the group are listed when the tree first asks for them
+            }
+
+            @Override
+            public void treeCollapsed(TreeExpansionEvent event) {
+                final Object node = event.getPath().getLastPathComponent();
+                if (node instanceof IssueGroupTreeModel.IssueGroup) {
+                    mIssuesTreeModel.collapsed((IssueGroupTreeModel.IssueGroup) node);
+                }
+            }
+        });
+    }
+
+    /**
+     * Show the details of the selected issue, and prefetch the comments of the issues next to it
+     */
+    private void showSelectedIssue() {
+        final String selectedIssueId = getSelectedIssueId();
+        if (selectedIssueId != null) {
+            mPresenter.showDetails(mProject, selectedIssueId);
+            mPresenter.prefetchComments(mProject, getAdjacentIssueIds(PREFETCH_DISTANCE));
+        }
+    }
+
+    /**
+     * @return true if the issues are shown in groups rather than in the table
+     */
+    private boolean isGrouped() {
+        return mIssuesTreeModel.getGroupBy() != IssueGroupTreeModel.GroupBy.NONE;
+    }
+
+    /**
+     * Refresh the relative dates shown in the table once every {@link #DATE_REFRESH_INTERVAL_MS}, instead of
+     * formatting them on every paint, and hide the issues that have aged out of the filter. Nothing is done while the
+     * table is not shown.
+     */
+    private void scheduleDateRefresh() {
+        mDateRefreshAlarm.addRequest(() -> {
+            if (mIssuesTable.isShowing()) {
+                mIssuesModel.refreshDates();
+            }
+            mIssuesTreeModel.refreshAges();
+            filterExpiredIssues();
+            scheduleDateRefresh();
+        }, DATE_REFRESH_INTERVAL_MS);
+    }
+
+    /**
+     * Get the ids of the issues shown above and below the selected issue
      *
-     * @param markdown the text in markdown, non markdown format or simply null
-     * @return an html string or an empty string based on the input
+     * @param distance the number of rows on either side of the selection
+     * @return the ids of the issues next to the selected issue, the closest first
      */
-    private String fromMarkDownToHtml(@Nullable String markdown) {
-        if (markdown != null) {
-            final Node document = MARKDOWN_PARSER.parse(markdown);
-            return MARKDOWN_RENDERER.render(document);
-        } else {
-            return "";
+    @NotNull
+    private List<String> getAdjacentIssueIds(int distance) {
+        final List<String> issueIds = new ArrayList<>();
+        if (isGrouped()) {
+            final TreePath selectionPath = mIssuesTree.getSelectionPath();
+            if (selectionPath != null && selectionPath.getLastPathComponent() instanceof String) {
+                // Only the issues of the same group are shown next to the selection
+                final Object group = selectionPath.getParentPath().getLastPathComponent();
+                final int index = mIssuesTreeModel.getIndexOfChild(group, selectionPath.getLastPathComponent());
+                final int count = mIssuesTreeModel.getChildCount(group);
+                for (int i = 1; i <= distance; i++) {
+                    if (index + i < count) {
+                        issueIds.add((String) mIssuesTreeModel.getChild(group, index + i));
+                    }
+                    if (index - i >= 0) {
+                        issueIds.add((String) mIssuesTreeModel.getChild(group, index - i));
+                    }
+                }
+            }
+            return issueIds;
+        }
+        final int selectedRow = mIssuesTable.getSelectedRow();
+        if (selectedRow != -1) {
+            for (int i = 1; i <= distance; i++) {
+                if (selectedRow + i < mIssuesTable.getRowCount()) {
+                    issueIds.add(mIssuesTable.getRow(selectedRow + i).getId());
+                }
+                if (selectedRow - i >= 0) {
+                    issueIds.add(mIssuesTable.getRow(selectedRow - i).getId());
+                }
+            }
+        }
+        return issueIds;
+    }
+
+    /**
+     * Show only the issues matching the text in the search field, using the local search index, and the filter, in
+     * both the table and the tree. The table and the tree are only filtered again if the search text or the filter
+     * has changed. The rows merged later are filtered as they are merged.
+     */
+    @SuppressWarnings("unchecked")
+    private void filterIssues() {
+        final String query = mSearchField.getText();
+        final IssueFilter filter = mFilter;
+        if (query.equals(mShownQuery) && filter.equals(mShownFilter)) {
+            return;
+        }
+        if (!query.equals(mShownQuery)) {
+            mIssuesModel.setQuery(query);
+        }
+        mShownQuery = query;
+        mShownFilter = filter;
+        final DefaultRowSorter<TableModel, Integer> rowSorter = (DefaultRowSorter<TableModel, Integer>) mIssuesTable.getRowSorter();
+        if (query.trim().isEmpty() && !filter.isRestrictive()) {
+            rowSorter.setRowFilter(null);
+            setTreeFilter(SHOW_ALL);
+            return;
+        }
+        final Predicate<IssueRow> predicate = row -> mIssuesModel.isMatching(row)
+                && filter.matches(row, System.currentTimeMillis());
+        rowSorter.setRowFilter(new RowFilter<TableModel, Integer>() {
+            @Override
+            public boolean include(Entry<? extends TableModel, ? extends Integer> entry) {
+                return predicate.test(mIssuesModel.getItem(entry.getIdentifier()));
+            }
+        });
+        setTreeFilter(predicate);
+    }
+
+    /**
+     * Filter the table and the tree again if the filter only shows the issues updated recently, since the issues age
+     * out of it without changing
+     */
+    private void filterExpiredIssues() {
+        if (mShownFilter != null && mShownFilter.getUpdated() != IssueFilter.Updated.ANY_TIME) {
+            mShownFilter = null;
+            filterIssues();
+        }
+    }
+
+    /**
+     * Filter the tree, keeping the groups that were expanded expanded
+     *
+     * @param predicate the issues shown
+     */
+    private void setTreeFilter(@NotNull Predicate<IssueRow> predicate) {
+        final Set<String> expandedGroups = new HashSet<>();
+        final Object root = mIssuesTreeModel.getRoot();
+        for (int i = 0; i < mIssuesTreeModel.getChildCount(root); i++) {
+            final IssueGroupTreeModel.IssueGroup group = (IssueGroupTreeModel.IssueGroup) mIssuesTreeModel.getChild(root, i);
+            if (mIssuesTree.isExpanded(new TreePath(new Object[]{root, group}))) {
+                expandedGroups.add(group.getName());
+            }
+        }
+        mIssuesTreeModel.setFilter(predicate);
+        for (int i = 0; i < mIssuesTreeModel.getChildCount(root); i++) {
+            final IssueGroupTreeModel.IssueGroup group = (IssueGroupTreeModel.IssueGroup) mIssuesTreeModel.getChild(root, i);
+            if (expandedGroups.contains(group.getName())) {
+                mIssuesTree.expandPath(new TreePath(new Object[]{root, group}));
+            }
+        }
+    }
+
+    /**
+     * Filter the table with the filter chosen in the filter bar, and ask the presenter for the issues that match it
+     *
+     * @param force if true, the issues are pulled even if the filter has not changed
+     */
+    private void applyFilter(boolean force) {
+        if (mInitializingFilter) {
+            return;
+        }
+        final int repositoryIndex = mRepositoryComboBox.getSelectedIndex();
+        final IssueFilter filter = new IssueFilter((IssueFilter.State) mStateComboBox.getSelectedItem(),
+                repositoryIndex > 0 ? mRepositoryUrls.get(repositoryIndex) : null,
+                (IssueFilter.Updated) mUpdatedComboBox.getSelectedItem(), mSearchField.getText());
+        if (force || !filter.equals(mFilter)) {
+            mFilter = filter;
+            filterIssues();
+            mPresenter.setFilter(mProject, filter);
+        }
+    }
+
+    /**
+     * Request the next page of issues if the last visible row of the table or the tree is close to the end
+     */
+    private void loadMoreIssuesIfNeeded() {
+        final int rowCount = mIssuesTable.getRowCount();
+        if (mIssuesTree.isShowing()) {
+            final Rectangle visibleRect = mIssuesTree.getVisibleRect();
+            if (visibleRect.isEmpty()) {
+                return;
+            }
+            // The pager counts issues, so the tree rows below the viewport are taken as issues still to scroll past
+            final int treeRowCount = mIssuesTree.getRowCount();
+            int lastVisibleRow = mIssuesTree.getClosestRowForLocation(0, visibleRect.y + visibleRect.height - 1);
+            if (lastVisibleRow == -1) {
+                lastVisibleRow = treeRowCount - 1;
+            }
+            mPresenter.loadMoreIssues(mProject, rowCount - treeRowCount + lastVisibleRow, rowCount);
+            return;
+        }
+        final Rectangle visibleRect = mIssuesTable.getVisibleRect();
+        if (visibleRect.isEmpty()) {
+            // The ToolWindow is hidden
+            return;
+        }
+        int lastVisibleRow = mIssuesTable.rowAtPoint(new Point(0, visibleRect.y + visibleRect.height - 1));
+        if (lastVisibleRow == -1) {
+            // The rows do not fill the viewport
+            lastVisibleRow = rowCount - 1;
         }
+        mPresenter.loadMoreIssues(mProject, lastVisibleRow, rowCount);
     }
 }
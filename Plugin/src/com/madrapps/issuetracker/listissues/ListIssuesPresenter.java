@@ -1,21 +1,50 @@
 package com.madrapps.issuetracker.listissues;
 
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.Application;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
-import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.Task.Backgroundable;
-import com.intellij.openapi.progress.impl.BackgroundableProcessIndicator;
+import com.intellij.openapi.progress.util.ProgressIndicatorBase;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.openapi.wm.ToolWindowManager;
 import com.intellij.tasks.Comment;
 import com.intellij.tasks.Task;
 import com.intellij.tasks.TaskManager;
+import com.intellij.tasks.TaskRepository;
 import com.intellij.ui.content.Content;
+import com.intellij.util.Alarm;
+import com.madrapps.issuetracker.diagnostics.Timings;
+import com.madrapps.issuetracker.listissues.BackgroundExecutor.Priority;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.awt.Image;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import javax.swing.JComponent;
 
@@ -24,94 +53,538 @@ import javax.swing.JComponent;
  * <p>
  * Created by Henry on 10/20/2016.
  */
-public class ListIssuesPresenter implements IListIssuesContract.IPresenter {
-    /** Singleton Instance */
-    private static final ListIssuesPresenter mInstance = new ListIssuesPresenter();
+public class ListIssuesPresenter implements IListIssuesContract.IPresenter, Disposable {
+
+    private static final Logger LOG = Logger.getInstance(ListIssuesPresenter.class);
+
+    /** Delay before the issues are written to the cache, so that pages synced one after the other are written once */
+    private static final int CACHE_SAVE_DELAY_MS = 2000;
+    /** Maximum number of updated issues pulled from a repository by a refresh, beyond which a full sync is done */
+    private static final int DELTA_SYNC_LIMIT = IssuePager.PAGE_SIZE;
+    /** Whether the comments of the issues next to the selected issue are pulled in advance */
+    private static final boolean PREFETCH_COMMENTS =
+            Boolean.parseBoolean(System.getProperty("issuetracker.prefetch.comments", "true"));
+    /** Delay after a selection before the comments of the selected issue are pulled */
+    private static final int COMMENTS_DEBOUNCE_MS = 150;
+    /** Number of issues requested from each repository by the first chunk of a sync, small for a quick first paint */
+    private static final int FIRST_CHUNK_SIZE = 10;
+    /** Number of issues requested from each repository by the following chunks of the first page of a sync */
+    private static final int CHUNK_SIZE = 20;
+    /** Key of the refresh request in {@link #mSyncRequests} */
+    private static final String REFRESH_KEY = "refresh";
+    /** The project of this presenter */
+    private final Project mProject;
     /** the view */
     private IListIssuesContract.IView mView;
+    /** Keeps track of the pages loaded into the issue table */
+    private final IssuePager mPager = new IssuePager();
+    /** The latest updated time synced from each repository */
+    private final SyncWatermarks mWatermarks = new SyncWatermarks();
+    /** Writes the issues of the table to the {@link IssueCache} in the background */
+    private final Alarm mCacheAlarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD);
+    /** The sync requests in progress */
+    private final InFlightRequests mSyncRequests = new InFlightRequests();
+    /** The comment requests in progress, keyed by issue id */
+    private final InFlightRequests mCommentRequests = new InFlightRequests();
+    /** The exports in progress, keyed by file path */
+    private final InFlightRequests mExportRequests = new InFlightRequests();
+    /** Delays pulling the comments until the selection settles */
+    private final Alarm mCommentsAlarm = new Alarm();
+    /** The id of the issue whose details were last requested */
+    private String mSelectedIssueId;
+    /** The issues listed by each repository for the current filter, to tell which issues are gone */
+    private final IssueListing mListing = new IssueListing();
+    /** The fingerprints of the issues in the table, to tell what a sync changed */
+    private final IssueFingerprints mFingerprints = new IssueFingerprints();
+    /** The filter of the last first page synced, whose next syncs report the issues that changed */
+    @Nullable
+    private IssueFilter mSyncedFilter;
+    /** The full issues of the most recently synced and selected rows */
+    private final TaskStore mTaskStore = new TaskStore();
+    /** The consumers of the images being loaded, keyed by width and url */
+    private final Map<String, List<Consumer<Image>>> mImageRequests = new HashMap<>();
+    /** Renders the details of the selected issue */
+    private final IssueDetailsRenderer mDetailsRenderer = new IssueDetailsRenderer();
+    /** The indicator of the details being rendered, cancelled when another issue is selected */
+    private ProgressIndicator mRenderIndicator;
+    /** The id of the issue shown in the details panel, or null if the details are not those of an issue */
+    private String mDetailsIssueId;
+    /** The comments of the issue shown in the details panel */
+    private Comment[] mDetailsComments;
+    /** The number of comments of the issue shown in the details panel, counting from the newest */
+    private int mShownCommentCount;
+    /** The time at which the initial issues started loading, or 0 once the first rows are shown */
+    private long mLoadStartTime;
+    /** Refreshes the issues in the background, created when the ToolWindow is initialized */
+    private AutoRefreshScheduler mAutoRefresh;
+    /** The filter of the issues pulled */
+    @NotNull
+    private IssueFilter mFilter = IssueFilter.DEFAULT;
+    /** Runs the background work of this presenter */
+    private final BackgroundScheduler mScheduler;
+
+    /**
+     * Constructor, called by the platform when the project service is first requested
+     *
+     * @param project the project of this presenter
+     */
+    public ListIssuesPresenter(@NotNull Project project) {
+        mProject = project;
+        mScheduler = new BackgroundScheduler(project);
+    }
 
     @Override
-    public void pullIssues(@NotNull Project project, @Nullable String query, boolean force) {
-        pullIssues(project, query, 0, 100, force);
+    public void pullIssues(@NotNull Project project, @NotNull IssueFilter filter, boolean force) {
+        mListing.setFilter(filter);
+        // A forced sync pulls again every issue listed so far, so that the issues that are gone can be told apart
+        // from the issues that are only beyond the range pulled
+        final int limit = force ? Math.max(IssuePager.PAGE_SIZE, mListing.getMaxSize()) : IssuePager.PAGE_SIZE;
+        if (mSyncRequests.isInFlight(getSyncKey(filter, 0, limit, force))) {
+            // The same sync is already in progress
+            return;
+        }
+        // Any sync in progress is for the previous filter or is about to be replaced
+        mSyncRequests.cancelAll();
+        // Start from the first page, the rest are loaded as the user scrolls down the table
+        mPager.reset(filter);
+        mWatermarks.setFilter(filter);
+        pullIssues(project, filter, 0, limit, force);
     }
 
     @Override
-    public void pullIssues(@NotNull Project project, @Nullable String query, int offset, int limit, boolean force) {
+    public void pullIssues(@NotNull Project project, @NotNull IssueFilter filter, int offset, int limit,
+                           boolean force) {
         final TaskManager taskManager = project.getComponent(TaskManager.class);
         if (taskManager != null) {
+            final String requestKey = getSyncKey(filter, offset, limit, force);
+            final int generation = mPager.getGeneration();
+            final TaskRepository[] repositories = filter.selectRepositories(taskManager.getAllRepositories());
+            // Only a sync that revalidates the issues already shown reports what changed, not one for a new filter
+            final boolean reportChanges = offset == 0 && filter.equals(mSyncedFilter);
+            // A forced sync from the start finds the issues that are no longer in the repositories
+            final boolean reconcile = force && offset == 0;
+            // The next page is awaited by the user scrolling the table, the first page is a sync
+            final Priority priority = offset > 0 ? Priority.INTERACTIVE : Priority.BULK;
             final Backgroundable backgroundableTask = new Backgroundable(project, "Syncing Issues...", true) {
 
-                private List<Task> issuesList;
+                /** The ids of the issues pulled from each repository, in the order listed, keyed by repository url */
+                private final Map<String, List<String>> pulledIds = new HashMap<>();
+                /** The urls of the repositories that failed, whose issues are not reconciled */
+                private final Set<String> failedRepositoryUrls = new HashSet<>();
+                private int pulledCount;
+                private int maxReceived;
+                private boolean anyRepositoryFailed;
+                private int addedCount;
+                private int changedCount;
 
                 @Override
                 public void run(@NotNull ProgressIndicator indicator) {
-                    issuesList = taskManager.getIssues(query, offset, limit, false, indicator, true);
+                    final long start = Timings.start();
+                    // The first page is pulled in chunks, the first one small, so that the first rows are shown
+                    // after a single round trip rather than once the whole page has arrived
+                    final Map<TaskRepository, Integer> receivedCounts = new HashMap<>();
+                    TaskRepository[] chunkRepositories = repositories;
+                    int chunkOffset = offset;
+                    while (chunkRepositories.length > 0 && chunkOffset < offset + limit) {
+                        final int chunkSize = offset > 0 ? limit : chunkOffset == 0 ? FIRST_CHUNK_SIZE
+                                : chunkOffset < IssuePager.PAGE_SIZE ? CHUNK_SIZE : IssuePager.PAGE_SIZE;
+                        final int chunkLimit = Math.min(chunkSize, offset + limit - chunkOffset);
+                        final List<TaskRepository> repositoriesWithMore = new ArrayList<>();
+                        pullChunk(chunkRepositories, chunkOffset, chunkLimit, indicator, result -> {
+                            final int received = result.getIssues().size();
+                            receivedCounts.merge(result.getRepository(), received, Integer::sum);
+                            if (result.getError() == null && received >= chunkLimit) {
+                                repositoriesWithMore.add(result.getRepository());
+                            }
+                        });
+                        chunkRepositories = repositoriesWithMore.toArray(new TaskRepository[0]);
+                        chunkOffset += chunkLimit;
+                    }
+                    receivedCounts.values().forEach(received -> maxReceived = Math.max(maxReceived, received));
+                    Timings.stop("sync", start, requestKey);
+                }
+
+                /**
+                 * Pull a chunk of the page from the repositories, and show the issues of each repository as soon as
+                 * they arrive, unless they are already shown
+                 *
+                 * @param chunkRepositories the repositories that may have more issues
+                 * @param chunkOffset       the offset of the chunk
+                 * @param chunkLimit        the size of the chunk
+                 * @param indicator         the indicator of the sync
+                 * @param onResult          receives the result of each repository on the syncing thread
+                 */
+                private void pullChunk(@NotNull TaskRepository[] chunkRepositories, int chunkOffset, int chunkLimit,
+                                       @NotNull ProgressIndicator indicator,
+                                       @NotNull Consumer<RepositoryFanOut.Result> onResult) {
+                    RepositoryFanOut.pull(chunkRepositories, filter, chunkOffset, chunkLimit, priority, indicator,
+                            result -> {
+                        onResult.accept(result);
+                        final String repositoryUrl = result.getRepository().getUrl();
+                        final String error = result.getError();
+                        if (error != null) {
+                            anyRepositoryFailed = true;
+                            failedRepositoryUrls.add(repositoryUrl);
+                            ApplicationManager.getApplication().invokeLater(() -> {
+                                if (!indicator.isCanceled() && generation == mPager.getGeneration()) {
+                                    mView.showRepositoryError(result.getRepository().getPresentableName(), error);
+                                }
+                            });
+                            return;
+                        }
+                        final List<Task> issues = result.getIssues();
+                        final List<String> issueIds = new ArrayList<>(issues.size());
+                        issues.forEach(issue -> issueIds.add(issue.getId()));
+                        pulledCount += issueIds.size();
+                        if (!reconcile) {
+                            mListing.add(filter, repositoryUrl, issueIds);
+                        } else {
+                            pulledIds.computeIfAbsent(repositoryUrl, key -> new ArrayList<>()).addAll(issueIds);
+                        }
+                        mTaskStore.putAll(issues);
+                        final String resultKey = requestKey + ":" + chunkOffset + ":" + repositoryUrl;
+                        final IssueFingerprints.Diff diff = mFingerprints.diff(resultKey, issues);
+                        Timings.count("changed issues per result", diff.getAddedCount() + diff.getChangedCount());
+                        if (diff.isEmpty()) {
+                            // The issues are already in the table as they are
+                            mWatermarks.advance(filter, issues);
+                            return;
+                        }
+                        ApplicationManager.getApplication().invokeLater(() -> {
+                            if (!indicator.isCanceled() && generation == mPager.getGeneration()) {
+                                onRepositoryResult(diff);
+                            }
+                        });
+                    });
+                }
+
+                /**
+                 * Show the issues of a single repository that were added or changed
+                 *
+                 * @param diff the issues that were added or changed
+                 */
+                private void onRepositoryResult(@NotNull IssueFingerprints.Diff diff) {
+                    final List<Task> issues = diff.getIssues();
+                    addedCount += diff.getAddedCount();
+                    changedCount += diff.getChangedCount();
+                    mWatermarks.advance(filter, issues);
+                    mView.updateIssueList(issues, false);
+                    mFingerprints.commit(diff);
+                    logTimeToFirstRow("repository");
                 }
 
                 @Override
                 public void onSuccess() {
-                    if (issuesList != null && !issuesList.isEmpty()) {
-                        mView.updateIssueList(issuesList, force);
-                    } else {
+                    mSyncRequests.finish(requestKey, this);
+                    mPager.endPage(generation, offset, limit, maxReceived);
+                    if (generation != mPager.getGeneration()) {
+                        // The issues were pulled for a query that has since been replaced
+                        return;
+                    }
+                    int removedCount = 0;
+                    if (reconcile) {
+                        // Remove the issues that are no longer in the repositories, only now that every chunk has
+                        // arrived, so that the rows of a later chunk are never removed and added back
+                        final Set<String> missingIds = new HashSet<>();
+                        pulledIds.forEach((repositoryUrl, issueIds) -> {
+                            if (!failedRepositoryUrls.contains(repositoryUrl)) {
+                                missingIds.addAll(mListing.reconcile(repositoryUrl, issueIds, issueIds.size() >= limit));
+                            }
+                        });
+                        if (!missingIds.isEmpty()) {
+                            mView.removeIssues(missingIds);
+                            mFingerprints.remove(missingIds);
+                            removedCount = missingIds.size();
+                        }
+                    }
+                    final boolean changed = addedCount + changedCount + removedCount > 0;
+                    if (force && offset == 0) {
+                        if (!anyRepositoryFailed) {
+                            mWatermarks.fullSyncCompleted(filter);
+                        }
+                        onRefreshed(changed, anyRepositoryFailed);
+                    }
+                    if (offset == 0) {
+                        if (reportChanges && addedCount + changedCount > 0) {
+                            mView.showChanges(addedCount, changedCount);
+                        }
+                        mSyncedFilter = filter;
+                    }
+                    if (changed) {
+                        saveToCache(project);
+                    } else if (pulledCount == 0 && offset == 0 && !anyRepositoryFailed) {
                         mView.showEmptyIssueListScreen();
                     }
                 }
+
+                @Override
+                public void onCancel() {
+                    // The rows of the chunks already shown are kept, and none are removed
+                    mSyncRequests.finish(requestKey, this);
+                    mPager.endPage(generation, offset, limit, -1);
+                }
             };
-            final ProgressIndicator indicator = new BackgroundableProcessIndicator(backgroundableTask);
-            ProgressManager.getInstance().runProcessWithProgressAsynchronously(backgroundableTask, indicator);
+            final ProgressIndicator indicator = new ProgressIndicatorBase();
+            if (mSyncRequests.start(requestKey, backgroundableTask, indicator)) {
+                mScheduler.run(backgroundableTask, priority, indicator);
+            }
+        }
+    }
+
+    @Override
+    public void setFilter(@NotNull Project project, @NotNull IssueFilter filter) {
+        mFilter = filter;
+        IssueFilterSettings.getInstance(project).setFilter(filter);
+        // The issues already in the table are filtered by the view, the repositories are asked for the rest
+        pullIssues(project, filter, true);
+    }
+
+    @Override
+    public void refreshIssues(@NotNull Project project) {
+        final TaskManager taskManager = project.getComponent(TaskManager.class);
+        if (taskManager == null) {
+            return;
+        }
+        if (mSyncRequests.isInFlight(REFRESH_KEY)) {
+            return;
+        }
+        final IssueFilter filter = mFilter;
+        final TaskRepository[] repositories = filter.selectRepositories(taskManager.getAllRepositories());
+        if (mWatermarks.isFullSyncRequired(filter, repositories)) {
+            pullIssues(project, filter, true);
+            return;
+        }
+        final Backgroundable backgroundableTask = new Backgroundable(project, "Syncing Updated Issues...", true) {
+
+            private final List<Task> updatedIssues = new ArrayList<>();
+            private boolean fullSyncRequired;
+            /** The updated issues that are not in the table or that have changed */
+            private IssueFingerprints.Diff diff;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                for (TaskRepository repository : repositories) {
+                    if (repository.isConfigured() && !pullUpdatedIssues(repository, indicator)) {
+                        fullSyncRequired = true;
+                        return;
+                    }
+                }
+                mTaskStore.putAll(updatedIssues);
+                // Issues can be updated in ways that are not shown, like a new watcher
+                diff = mFingerprints.diff(null, updatedIssues);
+            }
+
+            /**
+             * Pull the issues updated in the repository since its watermark
+             *
+             * @param repository the repository
+             * @param indicator  the progress indicator
+             * @return false if the updated issues could not be determined, and a full sync is required
+             */
+            private boolean pullUpdatedIssues(@NotNull TaskRepository repository, @NotNull ProgressIndicator indicator) {
+                final long watermark = mWatermarks.getWatermark(filter, repository);
+                final Task[] issues;
+                final long start = Timings.start();
+                try {
+                    issues = repository.getIssues(filter.getQuery(repository), DELTA_SYNC_LIMIT, watermark, indicator);
+                } catch (ProcessCanceledException e) {
+                    throw e;
+                } catch (Exception e) {
+                    LOG.info("Could not pull the updated issues from " + repository.getUrl() + ": " + e.getMessage());
+                    return false;
+                } finally {
+                    Timings.stop("delta fetch", start, repository.getPresentableName());
+                }
+                if (issues == null) {
+                    return true;
+                }
+                if (issues.length >= DELTA_SYNC_LIMIT) {
+                    // There may be more updated issues than what was returned
+                    return false;
+                }
+                for (Task issue : issues) {
+                    final Date updated = issue.getUpdated();
+                    if (updated == null || updated.getTime() < watermark) {
+                        // The repository ignores the "since" filter
+                        mWatermarks.markUnfiltered(repository);
+                        return false;
+                    }
+                    // The issues updated at the watermark itself are pulled again, as others may have been updated in the
+                    // same instant after the last sync. The fingerprints drop the ones already shown.
+                    updatedIssues.add(issue);
+                }
+                return true;
+            }
+
+            @Override
+            public void onSuccess() {
+                mSyncRequests.finish(REFRESH_KEY, this);
+                if (fullSyncRequired) {
+                    pullIssues(project, filter, true);
+                    return;
+                }
+                mWatermarks.advance(filter, updatedIssues);
+                if (!diff.isEmpty()) {
+                    mView.updateIssueList(diff.getIssues(), false);
+                    mFingerprints.commit(diff);
+                    mView.showChanges(diff.getAddedCount(), diff.getChangedCount());
+                    saveToCache(project);
+                }
+                onRefreshed(!diff.isEmpty(), false);
+            }
+
+            @Override
+            public void onCancel() {
+                mSyncRequests.finish(REFRESH_KEY, this);
+            }
+        };
+        final ProgressIndicator indicator = new ProgressIndicatorBase();
+        if (mSyncRequests.start(REFRESH_KEY, backgroundableTask, indicator)) {
+            mScheduler.run(backgroundableTask, Priority.BULK, indicator);
         }
     }
 
     @Override
-    public void showDetails(@NotNull Task selectedIssue) {
+    public void loadMoreIssues(@NotNull Project project, int lastVisibleRow, int rowCount) {
+        final int offset = mPager.requestNextPage(lastVisibleRow, rowCount);
+        if (offset != -1) {
+            pullIssues(project, mPager.getFilter(), offset, IssuePager.PAGE_SIZE, false);
+        } else if (mPager.reportLimit(lastVisibleRow, rowCount)) {
+            mView.showPageLimitReached(rowCount);
+        }
+    }
+
+    @Override
+    public void showDetails(@NotNull Project project, @NotNull String issueId) {
+        mSelectedIssueId = issueId;
+        // The comments of the previously selected issues are no longer needed
+        mCommentRequests.cancelAllExcept(issueId);
+        mCommentsAlarm.cancelAllRequests();
+
+        final Task selectedIssue = mTaskStore.get(issueId);
+        if (selectedIssue != null) {
+            showDetails(project, selectedIssue);
+            return;
+        }
+        final IssueRow row = mView.getIssueRow(issueId);
+        if (row != null) {
+            // Show the name until the full issue is pulled from its repository
+            renderDetails(null, row.getPresentableName(), null, null);
+            loadIssue(project, row, issue -> {
+                if (issueId.equals(mSelectedIssueId)) {
+                    showDetails(project, issue);
+                }
+            });
+        }
+    }
+
+    /**
+     * Show the details of the full issue, pulling its comments if they are not cached
+     *
+     * @param project       the current project
+     * @param selectedIssue the issue
+     */
+    private void showDetails(@NotNull Project project, @NotNull Task selectedIssue) {
+        final String issueId = selectedIssue.getId();
         final String description = selectedIssue.getDescription();
         final String issueUrl = selectedIssue.getIssueUrl();
+        final CommentCache commentCache = CommentCache.getInstance(project);
+        final Comment[] cachedComments = commentCache.get(selectedIssue);
+        if (cachedComments != null) {
+            mView.indexComments(issueId, cachedComments);
+            renderDetails(issueId, description, issueUrl, cachedComments);
+            return;
+        }
         // Show the description immediately, lets replace this later with the full summary.
-        mView.showDetails(description, issueUrl, null);
-        final Backgroundable backgroundableTask = new Backgroundable(null, "Getting Comments...", true) {
+        renderDetails(issueId, description, issueUrl, null);
+        if (!mCommentRequests.isInFlight(issueId)) {
+            // Wait for the selection to settle, so that moving through the table does not pull every issue's comments
+            mCommentsAlarm.addRequest(() -> pullComments(project, selectedIssue), COMMENTS_DEBOUNCE_MS);
+        }
+    }
 
-            private Comment[] comments;
+    @Override
+    public void prefetchComments(@NotNull Project project, @NotNull List<String> issueIds) {
+        if (!PREFETCH_COMMENTS) {
+            return;
+        }
+        final CommentCache commentCache = CommentCache.getInstance(project);
+        final List<Task> issuesToFetch = new ArrayList<>();
+        for (String issueId : issueIds) {
+            // Only the issues kept in memory, pulling the full issue as well is not worth it for a prefetch
+            final Task issue = mTaskStore.get(issueId);
+            if (issue != null && !commentCache.contains(issue)) {
+                issuesToFetch.add(issue);
+            }
+        }
+        if (issuesToFetch.isEmpty()) {
+            return;
+        }
+        final Backgroundable backgroundableTask = new Backgroundable(project, "Prefetching Comments...", true) {
+
+            private final Map<String, Comment[]> comments = new HashMap<>();
 
             @Override
             public void run(@NotNull ProgressIndicator indicator) {
-                comments = selectedIssue.getComments();
+                for (Task issue : issuesToFetch) {
+                    indicator.checkCanceled();
+                    final long start = Timings.start();
+                    final Comment[] issueComments = issue.getComments();
+                    Timings.stop("comment prefetch", start, issue.getId());
+                    commentCache.put(issue, issueComments);
+                    if (issueComments != null) {
+                        comments.put(issue.getId(), issueComments);
+                    }
+                }
             }
 
             @Override
             public void onSuccess() {
-                mView.showDetails(description, issueUrl, comments);
+                if (mView != null) {
+                    comments.forEach(mView::indexComments);
+                }
             }
         };
-        final ProgressIndicator indicator = new BackgroundableProcessIndicator(backgroundableTask);
-        ProgressManager.getInstance().runProcessWithProgressAsynchronously(backgroundableTask, indicator);
+        mScheduler.run(backgroundableTask, Priority.PREFETCH, new ProgressIndicatorBase());
     }
 
     @Override
     public void loadInitialIssues(@NotNull Project project) {
         mView.showLoadingScreen(true);
+        mLoadStartTime = System.currentTimeMillis();
+        mAutoRefresh = new AutoRefreshScheduler(project, () -> autoRefresh(project));
+        mFilter = IssueFilterSettings.getInstance(project).getFilter();
         final TaskManager taskManager = project.getComponent(TaskManager.class);
         if (taskManager != null) {
-            final Backgroundable backgroundableTask = new Backgroundable(project, "Syncing Issues...", true) {
-
-                private List<Task> issuesList;
-
-                @Override
-                public void run(@NotNull ProgressIndicator indicator) {
-                    issuesList = taskManager.getIssues(null, 0, 100, false, indicator, true);
-                }
-
-                @Override
-                public void onSuccess() {
-                    mView.showLoadingScreen(false);
-                    if (issuesList != null && !issuesList.isEmpty()) {
-                        mView.updateIssueList(issuesList, false);
-                    } else {
-                        mView.showEmptyIssueListScreen();
+            mView.initFilter(mFilter, taskManager.getAllRepositories());
+            // Show the issues cached in the last session, and then revalidate them with the repositories, removing
+            // the issues that were closed or deleted since
+            final IssueFilter filter = mFilter;
+            final Application application = ApplicationManager.getApplication();
+            mScheduler.execute(() -> {
+                final long start = Timings.start();
+                final List<Task> cachedIssues = IssueCache.forProject(project).load(taskManager.getAllRepositories());
+                Timings.stop("cache load", start);
+                mFingerprints.putCached(cachedIssues);
+                listCachedIssues(filter, cachedIssues);
+                application.invokeLater(() -> {
+                    if (project.isDisposed()) {
+                        return;
                     }
-                }
-            };
-            final ProgressIndicator indicator = new BackgroundableProcessIndicator(backgroundableTask);
-            ProgressManager.getInstance().runProcessWithProgressAsynchronously(backgroundableTask, indicator);
+                    if (!cachedIssues.isEmpty()) {
+                        mView.updateIssueList(cachedIssues, false);
+                        logTimeToFirstRow("cache");
+                    }
+                    pullIssues(project, mFilter, true);
+                });
+            }, Priority.INTERACTIVE, new EmptyProgressIndicator());
+        }
+    }
+
+    @Override
+    public void setToolWindowShown(boolean shown) {
+        if (mAutoRefresh != null) {
+            mAutoRefresh.setToolWindowShown(shown);
         }
     }
 
@@ -139,11 +612,147 @@ public class ListIssuesPresenter implements IListIssuesContract.IPresenter {
     }
 
     @Override
-    public void openUrl(@NotNull Task selectedIssue) {
-        final String issueUrl = selectedIssue.getIssueUrl();
-        if (issueUrl != null) {
-            mView.openInBrowser(issueUrl);
+    public void openUrl(@NotNull Project project, @NotNull String issueId) {
+        final Task issue = mTaskStore.get(issueId);
+        if (issue != null) {
+            openUrl(issue);
+            return;
+        }
+        final IssueRow row = mView.getIssueRow(issueId);
+        if (row != null) {
+            loadIssue(project, row, this::openUrl);
+        }
+    }
+
+    @Override
+    public void exportIssues(@NotNull Project project, @NotNull File file, @NotNull IssueExporter.Format format,
+                             boolean includeDetails) {
+        final String requestKey = file.getAbsolutePath();
+        if (mExportRequests.isInFlight(requestKey)) {
+            return;
+        }
+        // Only the rows are copied, the details of each issue are pulled as it is written
+        final List<IssueRow> rows = mView.getVisibleIssueRows();
+        final IssueExporter exporter = new IssueExporter(format, includeDetails, mTaskStore,
+                CommentCache.getInstance(project));
+        final Backgroundable backgroundableTask = new Backgroundable(project, "Exporting Issues...", true) {
+
+            private int failed;
+            private String error;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                indicator.setIndeterminate(false);
+                // Write to a temporary file and then move it, so that an export that fails or is cancelled never
+                // leaves a partial file behind, nor replaces the file that was there before
+                File tempFile = null;
+                try {
+                    tempFile = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+                    try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                            new FileOutputStream(tempFile), StandardCharsets.UTF_8))) {
+                        failed = exporter.export(rows, writer, indicator);
+                    }
+                    Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    tempFile = null;
+                } catch (IOException e) {
+                    error = e.getMessage() != null ? e.getMessage() : e.toString();
+                } finally {
+                    if (tempFile != null && tempFile.exists() && !tempFile.delete()) {
+                        LOG.info("Could not delete the partial export " + tempFile);
+                    }
+                }
+            }
+
+            @Override
+            public void onSuccess() {
+                mExportRequests.finish(requestKey, this);
+                if (mView == null) {
+                    return;
+                }
+                if (error != null) {
+                    mView.showExportResult("Could not export the issues: " + error, true);
+                } else if (failed > 0) {
+                    mView.showExportResult(String.format(Locale.US,
+                            "Exported %d issues to %s. The details of %d issues could not be pulled.",
+                            rows.size(), file.getName(), failed), false);
+                } else {
+                    mView.showExportResult(String.format(Locale.US, "Exported %d issues to %s",
+                            rows.size(), file.getName()), false);
+                }
+            }
+
+            @Override
+            public void onCancel() {
+                // The partial export was written to a temporary file, which is already deleted
+                mExportRequests.finish(requestKey, this);
+            }
+        };
+        final ProgressIndicator indicator = new ProgressIndicatorBase();
+        if (mExportRequests.start(requestKey, backgroundableTask, indicator)) {
+            mScheduler.run(backgroundableTask, Priority.BULK, indicator);
+        }
+    }
+
+    @Override
+    public void showOlderComments() {
+        final String issueId = mDetailsIssueId;
+        final Comment[] comments = mDetailsComments;
+        final ProgressIndicator indicator = mRenderIndicator;
+        if (comments == null || indicator == null || mShownCommentCount >= comments.length) {
+            return;
         }
+        final int to = comments.length - mShownCommentCount;
+        final int from = Math.max(0, to - IssueDetailsRenderer.COMMENTS_PAGE_SIZE);
+        // Counted as shown right away, so that clicking the link again does not render the same batch twice
+        mShownCommentCount = comments.length - from;
+        final Application application = ApplicationManager.getApplication();
+        mScheduler.execute(() -> {
+            final long start = Timings.start();
+            final String commentsHtml;
+            try {
+                commentsHtml = mDetailsRenderer.renderComments(issueId, comments, from, to, indicator);
+            } catch (ProcessCanceledException e) {
+                return;
+            }
+            Timings.stop("render older comments", start);
+            application.invokeLater(() -> {
+                if (!indicator.isCanceled() && mView != null) {
+                    mView.prependComments(commentsHtml, from);
+                }
+            });
+        }, Priority.INTERACTIVE, indicator);
+    }
+
+    @Nullable
+    @Override
+    public Image getCachedImage(@NotNull String url, int maxWidth) {
+        return ImageCache.getInstance().getCached(url, maxWidth);
+    }
+
+    @Override
+    public void loadImage(@NotNull String url, int maxWidth, @NotNull Consumer<Image> consumer) {
+        final String requestKey = maxWidth + ":" + url;
+        final List<Consumer<Image>> consumers = mImageRequests.get(requestKey);
+        if (consumers != null) {
+            // The same image is already loading for another view
+            consumers.add(consumer);
+            return;
+        }
+        final List<Consumer<Image>> newConsumers = new ArrayList<>();
+        newConsumers.add(consumer);
+        mImageRequests.put(requestKey, newConsumers);
+        final ImageCache imageCache = ImageCache.getInstance();
+        final Application application = ApplicationManager.getApplication();
+        // Not cancelled when another issue is selected, so that the image is cached for when it is shown again
+        mScheduler.execute(() -> {
+            final Image image = imageCache.load(url, maxWidth, new EmptyProgressIndicator());
+            application.invokeLater(() -> {
+                final List<Consumer<Image>> waitingConsumers = mImageRequests.remove(requestKey);
+                if (waitingConsumers != null && mView != null) {
+                    waitingConsumers.forEach(waitingConsumer -> waitingConsumer.accept(image));
+                }
+            });
+        }, Priority.PREFETCH, new EmptyProgressIndicator());
     }
 
     @Override
@@ -157,11 +766,268 @@ public class ListIssuesPresenter implements IListIssuesContract.IPresenter {
     }
 
     /**
-     * Get an instance of the Presenter
+     * Opens the issue url in the browser
+     *
+     * @param issue the full issue
+     */
+    private void openUrl(@NotNull Task issue) {
+        final String issueUrl = issue.getIssueUrl();
+        if (issueUrl != null) {
+            mView.openInBrowser(issueUrl);
+        }
+    }
+
+    /**
+     * Pull the full issue of a row from its repository asynchronously. If it cannot be pulled and the issue is still
+     * selected, the reason is shown in the details panel.
+     *
+     * @param project  the current project
+     * @param row      the row of the issue
+     * @param consumer receives the full issue on the EDT
+     */
+    private void loadIssue(@NotNull Project project, @NotNull IssueRow row, @NotNull Consumer<Task> consumer) {
+        final String issueId = row.getId();
+        final Backgroundable backgroundableTask = new Backgroundable(project, "Getting Issue...", true) {
+
+            private Task issue;
+            private String error;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                final long start = Timings.start();
+                try {
+                    issue = mTaskStore.load(issueId, row.getRepository());
+                    if (issue == null) {
+                        error = "The issue is no longer in its repository";
+                    }
+                } catch (ProcessCanceledException e) {
+                    throw e;
+                } catch (Exception e) {
+                    error = e.getMessage() != null ? e.getMessage() : e.toString();
+                } finally {
+                    Timings.stop("issue fetch", start, issueId);
+                }
+            }
+
+            @Override
+            public void onSuccess() {
+                mCommentRequests.finish(issueId, this);
+                if (issue != null) {
+                    consumer.accept(issue);
+                } else if (issueId.equals(mSelectedIssueId)) {
+                    renderDetails(null, "Could not get the issue: " + error, null, null);
+                }
+            }
+
+            @Override
+            public void onCancel() {
+                mCommentRequests.finish(issueId, this);
+            }
+        };
+        final ProgressIndicator indicator = new ProgressIndicatorBase();
+        if (mCommentRequests.start(issueId, backgroundableTask, indicator)) {
+            mScheduler.run(backgroundableTask, Priority.INTERACTIVE, indicator);
+        }
+    }
+
+    /**
+     * Pull the comments of the issue asynchronously, and show them if the issue is still selected
+     *
+     * @param project       the current project
+     * @param selectedIssue the issue
+     */
+    private void pullComments(@NotNull Project project, @NotNull Task selectedIssue) {
+        final String issueId = selectedIssue.getId();
+        final String description = selectedIssue.getDescription();
+        final String issueUrl = selectedIssue.getIssueUrl();
+        final CommentCache commentCache = CommentCache.getInstance(project);
+        final Backgroundable backgroundableTask = new Backgroundable(project, "Getting Comments...", true) {
+
+            private Comment[] comments;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                final long start = Timings.start();
+                comments = selectedIssue.getComments();
+                Timings.stop("comment fetch", start, issueId);
+                commentCache.put(selectedIssue, comments);
+            }
+
+            @Override
+            public void onSuccess() {
+                mCommentRequests.finish(issueId, this);
+                if (comments != null) {
+                    mView.indexComments(issueId, comments);
+                }
+                if (issueId.equals(mSelectedIssueId)) {
+                    renderDetails(issueId, description, issueUrl, comments);
+                }
+            }
+
+            @Override
+            public void onCancel() {
+                mCommentRequests.finish(issueId, this);
+            }
+        };
+        final ProgressIndicator indicator = new ProgressIndicatorBase();
+        if (mCommentRequests.start(issueId, backgroundableTask, indicator)) {
+            mScheduler.run(backgroundableTask, Priority.INTERACTIVE, indicator);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        mSyncRequests.cancelAll();
+        mCommentRequests.cancelAll();
+        mExportRequests.cancelAll();
+        if (mRenderIndicator != null) {
+            mRenderIndicator.cancel();
+        }
+        if (mCacheAlarm.cancelAllRequests() > 0 && mView != null) {
+            // Write the issues that were waiting to be cached, so that they are shown when the project is reopened
+            IssueCache.forProject(mProject).save(mView.getIssueRows(), mFingerprints.snapshot());
+        }
+        mCacheAlarm.dispose();
+        mCommentsAlarm.dispose();
+        mScheduler.dispose();
+        mView = null;
+    }
+
+    /**
+     * Refresh the issues on behalf of the {@link AutoRefreshScheduler}, unless a sync is already in progress
+     *
+     * @param project the current project
+     */
+    private void autoRefresh(@NotNull Project project) {
+        if (!project.isDisposed() && !mSyncRequests.isAnyInFlight()) {
+            refreshIssues(project);
+        }
+    }
+
+    /**
+     * Report the outcome of a refresh to the {@link AutoRefreshScheduler}, so that it adapts its interval
+     *
+     * @param changed true if updated issues were found
+     * @param failed  true if a repository could not be synced
+     */
+    private void onRefreshed(boolean changed, boolean failed) {
+        if (mAutoRefresh != null) {
+            mAutoRefresh.onRefreshed(changed, failed);
+        }
+    }
+
+    /**
+     * Render the details of an issue in the background and show them in the details panel. The rendering of the
+     * details requested earlier is cancelled, so that the details of a previously selected issue are never shown.
+     * Only the newest comments are rendered, the older ones are rendered by {@link #showOlderComments()}.
+     *
+     * @param issueId     the id of the issue, or null if the details are not those of an issue
+     * @param description The description of the issue
+     * @param issueUrl    the IssueUrl of the issue
+     * @param comments    the comments of the issue
+     */
+    private void renderDetails(@Nullable String issueId, @Nullable String description, @Nullable String issueUrl,
+                               @Nullable Comment[] comments) {
+        if (mRenderIndicator != null) {
+            mRenderIndicator.cancel();
+        }
+        final ProgressIndicator indicator = new EmptyProgressIndicator();
+        mRenderIndicator = indicator;
+        mDetailsIssueId = issueId;
+        mDetailsComments = comments;
+        mShownCommentCount = comments != null ? Math.min(comments.length, IssueDetailsRenderer.COMMENTS_PAGE_SIZE) : 0;
+        final Application application = ApplicationManager.getApplication();
+        mScheduler.execute(() -> {
+            final String detailsHtml;
+            try {
+                detailsHtml = mDetailsRenderer.render(issueId, description, issueUrl, comments, indicator);
+            } catch (ProcessCanceledException e) {
+                return;
+            }
+            application.invokeLater(() -> {
+                if (!indicator.isCanceled() && mView != null) {
+                    mView.showDetails(detailsHtml);
+                }
+            });
+        }, Priority.INTERACTIVE, indicator);
+    }
+
+    /**
+     * Record the cached issues that the filter lists as listed by their repositories, in the order they were cached,
+     * so that the first sync pulls them again and removes the ones that are gone. The issues that the filter may not
+     * list, like the issues cached for another filter, are left out and never removed.
+     *
+     * @param filter       the filter of the first sync
+     * @param cachedIssues the issues restored from the cache
+     */
+    private void listCachedIssues(@NotNull IssueFilter filter, @NotNull List<Task> cachedIssues) {
+        mListing.setFilter(filter);
+        if (filter.getText() != null) {
+            // The text is searched by the repositories, in ways that cannot be matched locally
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        final Map<String, List<String>> listedIds = new LinkedHashMap<>();
+        for (Task issue : cachedIssues) {
+            final TaskRepository repository = issue.getRepository();
+            if (repository != null && filter.matches(new IssueRow(issue), now)) {
+                listedIds.computeIfAbsent(repository.getUrl(), key -> new ArrayList<>()).add(issue.getId());
+            }
+        }
+        listedIds.forEach((repositoryUrl, issueIds) -> mListing.add(filter, repositoryUrl, issueIds));
+    }
+
+    /**
+     * Write the issues in the table to the {@link IssueCache}. Requests made within {@link #CACHE_SAVE_DELAY_MS}
+     * of each other are written only once.
      *
-     * @return the singleton instance
+     * @param project the current project
      */
-    public static ListIssuesPresenter getInstance() {
-        return mInstance;
+    private void saveToCache(@NotNull Project project) {
+        // The fingerprints are taken along with the rows, as both are only changed on the EDT
+        final List<IssueRow> issues = mView.getIssueRows();
+        final Map<String, Long> fingerprints = mFingerprints.snapshot();
+        final IssueCache cache = IssueCache.forProject(project);
+        mCacheAlarm.cancelAllRequests();
+        mCacheAlarm.addRequest(() -> cache.save(issues, fingerprints), CACHE_SAVE_DELAY_MS);
+    }
+
+    /**
+     * Log the time taken for the first rows to be shown after the ToolWindow was opened, to compare the warm start
+     * from the {@link IssueCache} with the cold start from the repositories
+     *
+     * @param source where the first rows were loaded from
+     */
+    private void logTimeToFirstRow(@NotNull String source) {
+        if (mLoadStartTime != 0) {
+            LOG.info("First issues shown from the " + source + " in "
+                    + (System.currentTimeMillis() - mLoadStartTime) + " ms");
+            mLoadStartTime = 0;
+        }
+    }
+
+    /**
+     * Get the key that identifies a sync request
+     *
+     * @param filter the filter
+     * @param offset the offset
+     * @param limit  the limit
+     * @param force  whether the sync replaces the issues in the table
+     * @return the key of the request
+     */
+    @NotNull
+    private static String getSyncKey(@NotNull IssueFilter filter, int offset, int limit, boolean force) {
+        return String.format(Locale.US, "%s:%d:%d:%b", filter, offset, limit, force);
+    }
+
+    /**
+     * Get the Presenter of the project
+     *
+     * @param project the current project
+     * @return the presenter of the project
+     */
+    @NotNull
+    public static ListIssuesPresenter getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, ListIssuesPresenter.class);
     }
 }
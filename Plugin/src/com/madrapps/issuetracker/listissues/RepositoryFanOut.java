@@ -0,0 +1,245 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.tasks.Task;
+import com.intellij.tasks.TaskRepository;
+import com.madrapps.issuetracker.diagnostics.Timings;
+import com.madrapps.issuetracker.listissues.BackgroundExecutor.Priority;
+import com.madrapps.issuetracker.listissues.BackgroundExecutor.Request;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pulls the issues from every repository concurrently, reporting a failing repository on its own.
+ */
+final class RepositoryFanOut {
+
+    /** Interval at which the waiting thread checks whether the sync has been cancelled */
+    private static final long CANCEL_CHECK_INTERVAL_MS = 100;
+
+    /**
+     * Listener to receive the result of each repository, in the order they arrive
+     */
+    interface Listener {
+        /**
+         * Called on the pulling thread once a repository has responded, failed or timed out
+         *
+         * @param result the result of the repository
+         */
+        void onResult(@NotNull Result result);
+    }
+
+    /**
+     * The result of pulling the issues from a single repository
+     */
+    static final class Result {
+        /** The repository */
+        @NotNull
+        private final TaskRepository mRepository;
+        /** The issues pulled, empty if pulling failed */
+        @NotNull
+        private final List<Task> mIssues;
+        /** The reason pulling failed, or null if it succeeded */
+        @Nullable
+        private final String mError;
+
+        private Result(@NotNull TaskRepository repository, @NotNull List<Task> issues, @Nullable String error) {
+            mRepository = repository;
+            mIssues = issues;
+            mError = error;
+        }
+
+        /**
+         * @return the repository
+         */
+        @NotNull
+        TaskRepository getRepository() {
+            return mRepository;
+        }
+
+        /**
+         * @return the issues pulled, empty if pulling failed
+         */
+        @NotNull
+        List<Task> getIssues() {
+            return mIssues;
+        }
+
+        /**
+         * @return the reason pulling failed, or null if it succeeded
+         */
+        @Nullable
+        String getError() {
+            return mError;
+        }
+    }
+
+    private RepositoryFanOut() {
+    }
+
+    /**
+     * Pull the issues from every configured repository concurrently. This blocks until every repository has
+     * responded or timed out, and should be called from a background thread.
+     *
+     * @param repositories the repositories
+     * @param filter       the filter, pushed down to each repository
+     * @param offset       the offset
+     * @param limit        the limit per repository
+     * @param priority     the priority of the sync
+     * @param indicator    the indicator of the sync, cancelling it cancels every repository
+     * @param listener     the listener to receive the result of each repository
+     */
+    static void pull(@NotNull TaskRepository[] repositories, @NotNull IssueFilter filter, int offset, int limit,
+                     @NotNull Priority priority, @NotNull ProgressIndicator indicator,
+                     @NotNull Listener listener) {
+        final BlockingQueue<Pending> completed = new LinkedBlockingQueue<>();
+        final List<Pending> pending = new ArrayList<>();
+        for (TaskRepository repository : repositories) {
+            if (repository.isConfigured()) {
+                final Pending request = new Pending(repository, new EmptyProgressIndicator());
+                request.mRequest = BackgroundExecutor.getInstance().submitRequest(() -> {
+                    try {
+                        return pull(repository, filter, offset, limit, request.mIndicator);
+                    } finally {
+                        completed.add(request);
+                    }
+                }, priority);
+                pending.add(request);
+            }
+        }
+
+        try {
+            while (!pending.isEmpty()) {
+                indicator.checkCanceled();
+                final long wait = timeOut(pending, listener);
+                if (pending.isEmpty()) {
+                    return;
+                }
+                final Pending request = completed.poll(wait, TimeUnit.MILLISECONDS);
+                if (request != null && pending.remove(request)) {
+                    listener.onResult(getResult(request));
+                }
+            }
+        } catch (InterruptedException e) {
+            cancel(pending);
+            throw new ProcessCanceledException();
+        } catch (ProcessCanceledException e) {
+            cancel(pending);
+            throw e;
+        }
+    }
+
+    /**
+     * Cancel the pulls that have run for longer than {@link BackgroundExecutor#REQUEST_TIMEOUT_MS} or waited for a
+     * thread for longer than {@link BackgroundExecutor#QUEUE_TIMEOUT_MS}, and report them as timed out
+     *
+     * @param pending  the pulls in progress, from which the pulls timed out are removed
+     * @param listener the listener to receive the result of each repository
+     * @return the time to wait for the next result before checking again
+     */
+    private static long timeOut(@NotNull List<Pending> pending, @NotNull Listener listener) {
+        final long now = System.currentTimeMillis();
+        long wait = CANCEL_CHECK_INTERVAL_MS;
+        final Iterator<Pending> requests = pending.iterator();
+        while (requests.hasNext()) {
+            final Pending request = requests.next();
+            final long remaining = request.mRequest.getRemainingMs(now);
+            if (remaining > 0) {
+                wait = Math.min(wait, remaining);
+                continue;
+            }
+            requests.remove();
+            request.mIndicator.cancel();
+            request.mRequest.cancel(true);
+            listener.onResult(new Result(request.mRepository, Collections.emptyList(),
+                    request.mRequest.isStarted() ? "Timed out" : "Timed out waiting for other requests"));
+        }
+        return wait;
+    }
+
+    /**
+     * Pull the issues from a single repository
+     *
+     * @param repository the repository
+     * @param filter     the filter
+     * @param offset     the offset
+     * @param limit      the limit
+     * @param indicator  the indicator of this repository
+     * @return the result
+     */
+    @NotNull
+    private static Result pull(@NotNull TaskRepository repository, @NotNull IssueFilter filter, int offset, int limit,
+                               @NotNull ProgressIndicator indicator) {
+        final long start = Timings.start();
+        try {
+            final Task[] issues = repository.getIssues(filter.getQuery(repository), offset, limit,
+                    filter.isWithClosed(), indicator);
+            Timings.count("issues per fetch", issues != null ? issues.length : 0);
+            return new Result(repository, issues != null ? Arrays.asList(issues) : Collections.emptyList(), null);
+        } catch (ProcessCanceledException e) {
+            return new Result(repository, Collections.emptyList(), "Cancelled");
+        } catch (Exception e) {
+            final String message = e.getMessage();
+            return new Result(repository, Collections.emptyList(), message != null ? message : e.toString());
+        } finally {
+            Timings.stop("fetch", start, repository.getPresentableName());
+        }
+    }
+
+    /**
+     * Get the result of a completed pull
+     *
+     * @param request the pull
+     * @return the result
+     */
+    @NotNull
+    private static Result getResult(@NotNull Pending request) {
+        try {
+            return request.mRequest.get();
+        } catch (InterruptedException | ExecutionException e) {
+            return new Result(request.mRepository, Collections.emptyList(), e.toString());
+        }
+    }
+
+    /**
+     * Cancel the pulls in progress
+     *
+     * @param pending the pulls in progress
+     */
+    private static void cancel(@NotNull List<Pending> pending) {
+        for (Pending request : pending) {
+            request.mIndicator.cancel();
+            request.mRequest.cancel(true);
+        }
+    }
+
+    /**
+     * A repository that has not responded yet
+     */
+    private static final class Pending {
+        /** The repository */
+        private final TaskRepository mRepository;
+        /** The indicator passed to the repository */
+        private final ProgressIndicator mIndicator;
+        /** The request of the pull, set once it is submitted */
+        private Request<Result> mRequest;
+
+        private Pending(@NotNull TaskRepository repository, @NotNull ProgressIndicator indicator) {
+            mRepository = repository;
+            mIndicator = indicator;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.tasks.Task;
+import com.intellij.tasks.TaskRepository;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the latest update time synced from every repository, so that a refresh only asks for what changed since.
+ */
+final class SyncWatermarks {
+
+    /** Interval after which a refresh does a full sync, to remove the issues deleted in the repositories */
+    static final long FULL_SYNC_INTERVAL_MS = TimeUnit.MINUTES.toMillis(30);
+
+    /** The filter the watermarks were synced with */
+    @NotNull
+    private IssueFilter mFilter = IssueFilter.DEFAULT;
+    /** The latest updated time seen for every repository */
+    private final Map<TaskRepository, Long> mWatermarks = new IdentityHashMap<>();
+    /** The repositories that returned issues older than the watermark, i.e. they do not filter by updated time */
+    private final Set<TaskRepository> mUnfilteredRepositories = Collections.newSetFromMap(new IdentityHashMap<>());
+    /** The time the last full sync completed, or 0 if there was none */
+    private long mLastFullSyncTime;
+
+    /**
+     * Sync the issues of another filter. The watermarks of the previous filter are dropped, as the issues it did not
+     * match were never synced.
+     *
+     * @param filter the filter
+     */
+    synchronized void setFilter(@NotNull IssueFilter filter) {
+        if (!filter.equals(mFilter)) {
+            mFilter = filter;
+            mWatermarks.clear();
+            mLastFullSyncTime = 0;
+        }
+    }
+
+    /**
+     * Advance the watermarks with the synced issues
+     *
+     * @param filter the filter the issues were synced with, they are ignored if it has since changed
+     * @param issues the synced issues
+     */
+    synchronized void advance(@NotNull IssueFilter filter, @NotNull Collection<Task> issues) {
+        if (!filter.equals(mFilter)) {
+            return;
+        }
+        for (Task issue : issues) {
+            final TaskRepository repository = issue.getRepository();
+            final Date updated = issue.getUpdated();
+            if (repository != null && updated != null) {
+                mWatermarks.merge(repository, updated.getTime(), Math::max);
+            }
+        }
+    }
+
+    /**
+     * Record that a full sync has completed
+     *
+     * @param filter the filter of the sync, which is ignored if it has since changed
+     */
+    synchronized void fullSyncCompleted(@NotNull IssueFilter filter) {
+        if (!filter.equals(mFilter)) {
+            return;
+        }
+        mLastFullSyncTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Record that a repository does not filter the issues by their updated time
+     *
+     * @param repository the repository
+     */
+    synchronized void markUnfiltered(@NotNull TaskRepository repository) {
+        mUnfilteredRepositories.add(repository);
+    }
+
+    /**
+     * Determine if the next refresh has to be a full sync
+     *
+     * @param filter       the filter of the refresh
+     * @param repositories the configured repositories
+     * @return true if a full sync is required
+     */
+    synchronized boolean isFullSyncRequired(@NotNull IssueFilter filter, @NotNull TaskRepository[] repositories) {
+        if (!filter.equals(mFilter) || mLastFullSyncTime == 0 || System.currentTimeMillis() - mLastFullSyncTime > FULL_SYNC_INTERVAL_MS) {
+            return true;
+        }
+        for (TaskRepository repository : repositories) {
+            if (!mWatermarks.containsKey(repository) || mUnfilteredRepositories.contains(repository)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the watermark of a repository
+     *
+     * @param filter     the filter of the refresh
+     * @param repository the repository
+     * @return the latest updated time seen in the repository, or 0 if none was seen with the filter
+     */
+    synchronized long getWatermark(@NotNull IssueFilter filter, @NotNull TaskRepository repository) {
+        final Long watermark = filter.equals(mFilter) ? mWatermarks.get(repository) : null;
+        return watermark != null ? watermark : 0;
+    }
+}
@@ -1,8 +1,5 @@
 package com.madrapps.issuetracker.listissues;
 
-import com.intellij.openapi.util.Comparing;
-import com.intellij.tasks.Task;
-import com.intellij.tasks.TaskRepository;
 import com.intellij.util.text.DateFormatUtil;
 import com.intellij.util.ui.ColumnInfo;
 
@@ -16,56 +13,42 @@ import javax.swing.Icon;
 import javax.swing.JTable;
 
 /**
- * This defines all the ColumnsInfos used in the Issue List Table
+ * This defines all the ColumnsInfos used in the Issue List Table. The values and sort keys are precomputed by
+ * {@link IssueRow}, so that painting and sorting the table are cheap.
  * <p>
  * Created by Henry on 10/23/2016.
  */
 final class TableColumns {
-    private final static ColumnInfo<Task, String> PRESENTABLE_NAME = new ColumnInfo<Task, String>("Name") {
-        public String valueOf(Task object) {
+    private final static ColumnInfo<IssueRow, String> PRESENTABLE_NAME = new ColumnInfo<IssueRow, String>("Name") {
+        public String valueOf(IssueRow object) {
             return object.getPresentableName();
         }
 
-        public Comparator<Task> getComparator() {
+        public Comparator<IssueRow> getComparator() {
             return (o, o1) -> o.getPresentableName().compareTo(o1.getPresentableName());
         }
     };
-    private final static ColumnInfo<Task, String> REPOSITORY_TYPE = new ColumnInfo<Task, String>("Repository") {
-        public String valueOf(Task object) {
-            final TaskRepository repository = object.getRepository();
-            if (repository != null) {
-                return repository.getRepositoryType().getName();
-            }
-            return "";
+    private final static ColumnInfo<IssueRow, String> REPOSITORY_TYPE = new ColumnInfo<IssueRow, String>("Repository") {
+        public String valueOf(IssueRow object) {
+            return object.getRepositoryName();
         }
 
-        public Comparator<Task> getComparator() {
-            return (o, o1) -> {
-                if (o.getRepository() != null && o1.getRepository() != null) {
-                    return o.getRepository().getRepositoryType().getName().compareTo(o1.getRepository().getRepositoryType().getName());
-                } else {
-                    return 0;
-                }
-            };
+        public Comparator<IssueRow> getComparator() {
+            // The names are interned, so rows of the same repository type compare by reference
+            return (o, o1) -> o.getRepositoryName() == o1.getRepositoryName() ? 0 : o.getRepositoryName().compareTo(o1.getRepositoryName());
         }
     };
-    private final static ColumnInfo<Task, Icon> ICON = new ColumnInfo<Task, Icon>("") {
+    private final static ColumnInfo<IssueRow, Icon> ICON = new ColumnInfo<IssueRow, Icon>("") {
         @Nullable
         @Override
-        public Icon valueOf(Task task) {
-            return task.getIcon();
+        public Icon valueOf(IssueRow row) {
+            return row.getIcon();
         }
 
         @Nullable
         @Override
-        public Comparator<Task> getComparator() {
-            return (o, o1) -> {
-                if (o != null && o1 != null) {
-                    return o.getIcon().toString().compareTo(o1.getIcon().toString());
-                } else {
-                    return 0;
-                }
-            };
+        public Comparator<IssueRow> getComparator() {
+            return (o, o1) -> Integer.compare(o.getIconOrdinal(), o1.getIconOrdinal());
         }
 
         @Override
@@ -80,22 +63,22 @@ final class TableColumns {
             return 50;
         }
     };
-    private final static ColumnInfo<Task, String> CREATED_ON = new ColumnInfo<Task, String>("Created On") {
-        public String valueOf(Task object) {
-            return getValueOfDate(object.getCreated());
+    private final static ColumnInfo<IssueRow, String> CREATED_ON = new ColumnInfo<IssueRow, String>("Created On") {
+        public String valueOf(IssueRow object) {
+            return object.getCreatedText();
         }
 
-        public Comparator<Task> getComparator() {
-            return (o, o1) -> Comparing.compare(o.getCreated(), o1.getCreated());
+        public Comparator<IssueRow> getComparator() {
+            return (o, o1) -> Long.compare(o.getCreated(), o1.getCreated());
         }
     };
-    private final static ColumnInfo<Task, String> LAST_UPDATED = new ColumnInfo<Task, String>("Last Updated On") {
-        public String valueOf(Task object) {
-            return getValueOfDate(object.getUpdated());
+    private final static ColumnInfo<IssueRow, String> LAST_UPDATED = new ColumnInfo<IssueRow, String>("Last Updated On") {
+        public String valueOf(IssueRow object) {
+            return object.getUpdatedText();
         }
 
-        public Comparator<Task> getComparator() {
-            return (o, o1) -> Comparing.compare(o.getUpdated(), o1.getUpdated());
+        public Comparator<IssueRow> getComparator() {
+            return (o, o1) -> Long.compare(o.getUpdated(), o1.getUpdated());
         }
     };
     /** The columns of the issues table */
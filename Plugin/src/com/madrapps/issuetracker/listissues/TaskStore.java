@@ -0,0 +1,81 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.tasks.Task;
+import com.intellij.tasks.TaskRepository;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the full {@link Task} of the most recently synced and selected issues.
+ */
+final class TaskStore {
+
+    /** Maximum number of full issues kept */
+    static final int MAX_TASKS = 200;
+
+    /** The full issues keyed by issue id, in the order of access */
+    private final Map<String, Task> mTasks = new LinkedHashMap<String, Task>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Task> eldest) {
+            return size() > MAX_TASKS;
+        }
+    };
+
+    /**
+     * Keep the full issue, replacing its previous version
+     *
+     * @param issue the issue
+     */
+    synchronized void put(@NotNull Task issue) {
+        if (!(issue instanceof CachedTask)) {
+            mTasks.put(issue.getId(), issue);
+        }
+    }
+
+    /**
+     * Keep the full issues, replacing their previous versions
+     *
+     * @param issues the issues
+     */
+    synchronized void putAll(@NotNull List<Task> issues) {
+        issues.forEach(this::put);
+    }
+
+    /**
+     * Get the full issue if it is kept
+     *
+     * @param issueId the id of the issue
+     * @return the issue, or null if it has to be pulled again
+     */
+    @Nullable
+    synchronized Task get(@NotNull String issueId) {
+        return mTasks.get(issueId);
+    }
+
+    /**
+     * Get the full issue, pulling it from its repository if it is not kept. This may do network IO and should not
+     * be called from the EDT.
+     *
+     * @param issueId    the id of the issue
+     * @param repository the repository of the issue
+     * @return the issue, or null if the repository does not know it anymore
+     * @throws Exception if the repository could not be reached
+     */
+    @Nullable
+    Task load(@NotNull String issueId, @Nullable TaskRepository repository) throws Exception {
+        final Task task = get(issueId);
+        if (task != null || repository == null) {
+            return task;
+        }
+        final Task loadedTask = repository.findTask(issueId);
+        if (loadedTask != null) {
+            put(loadedTask);
+        }
+        return loadedTask;
+    }
+}
@@ -0,0 +1,152 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.madrapps.issuetracker.listissues.BackgroundExecutor.Priority;
+import com.madrapps.issuetracker.listissues.BackgroundExecutor.Request;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.madrapps.issuetracker.listissues.BackgroundExecutor.MAX_REQUESTS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that requests which hang do not hold up the requests waiting behind them
+ */
+public class BackgroundExecutorTest {
+
+    /** The longest a test waits for a request */
+    private static final long TIMEOUT_SECONDS = 10;
+
+    /** The executor */
+    private BackgroundExecutor mExecutor;
+    /** Released at the end of the test, to end the requests that hang */
+    private final CountDownLatch mRelease = new CountDownLatch(1);
+
+    @Before
+    public void setUp() {
+        mExecutor = new BackgroundExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        mRelease.countDown();
+        mExecutor.dispose();
+    }
+
+    /**
+     * Cancelling a request that ignores the interrupt frees its place for a waiting request
+     */
+    @Test
+    public void cancelRunningRequest() throws Exception {
+        final List<Request<String>> hanging = submitHanging(MAX_REQUESTS);
+        final Request<String> waiting = mExecutor.submitRequest(() -> "done", Priority.INTERACTIVE);
+        assertFalse(waiting.isStarted());
+
+        hanging.get(0).cancel(true);
+        assertEquals("done", waiting.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        // The place freed is taken again, and the others are still held
+        submitHanging(1);
+        final Request<String> next = mExecutor.submitRequest(() -> "next", Priority.INTERACTIVE);
+        Thread.sleep(100);
+        assertFalse(next.isStarted());
+        hanging.get(1).cancel(true);
+        assertEquals("next", next.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Cancelling a request that waits for a thread removes it, without freeing the place of a running one
+     */
+    @Test
+    public void cancelWaitingRequest() throws Exception {
+        final List<Request<String>> hanging = submitHanging(MAX_REQUESTS);
+        final Request<String> cancelled = mExecutor.submitRequest(() -> "cancelled", Priority.INTERACTIVE);
+        final Request<String> waiting = mExecutor.submitRequest(() -> "done", Priority.BULK);
+        cancelled.cancel(true);
+        Thread.sleep(100);
+        assertFalse(cancelled.isStarted());
+        assertFalse(waiting.isStarted());
+
+        hanging.get(0).cancel(true);
+        assertEquals("done", waiting.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertFalse(cancelled.isStarted());
+    }
+
+    /**
+     * Requests are given a thread in the order of their priority
+     */
+    @Test
+    public void runByPriority() throws Exception {
+        final List<Request<String>> hanging = submitHanging(MAX_REQUESTS);
+        final List<String> order = new ArrayList<>();
+        final Request<String> bulk = mExecutor.submitRequest(() -> add(order, "bulk"), Priority.BULK);
+        final Request<String> interactive = mExecutor.submitRequest(() -> add(order, "interactive"),
+                Priority.INTERACTIVE);
+
+        hanging.get(0).cancel(true);
+        bulk.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        interactive.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        synchronized (order) {
+            assertEquals("interactive", order.get(0));
+            assertEquals("bulk", order.get(1));
+        }
+    }
+
+    /**
+     * A request that has run out of time reports no time left
+     */
+    @Test
+    public void remainingTime() throws Exception {
+        final Request<String> request = mExecutor.submitRequest(() -> "done", Priority.INTERACTIVE);
+        request.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertTrue(request.isStarted());
+        final long now = System.currentTimeMillis();
+        assertTrue(request.getRemainingMs(now) <= BackgroundExecutor.REQUEST_TIMEOUT_MS);
+        assertTrue(request.getRemainingMs(now + BackgroundExecutor.REQUEST_TIMEOUT_MS) <= 0);
+    }
+
+    /**
+     * Take places of the requests with requests that hang until the end of the test, ignoring interrupts
+     *
+     * @param count the number of places to take
+     * @return the requests, all of them running
+     */
+    private List<Request<String>> submitHanging(int count) throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(count);
+        final List<Request<String>> requests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            requests.add(mExecutor.submitRequest(() -> {
+                started.countDown();
+                while (true) {
+                    try {
+                        mRelease.await();
+                        return "released";
+                    } catch (InterruptedException e) {
+                        // Hangs like a repository that does not respond to the interrupt
+                    }
+                }
+            }, Priority.INTERACTIVE));
+        }
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        return requests;
+    }
+
+    /**
+     * @param order the list to add to
+     * @param name  the name to add
+     * @return the name
+     */
+    private static String add(List<String> order, String name) {
+        synchronized (order) {
+            order.add(name);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,83 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.tasks.Comment;
+import com.intellij.tasks.Task;
+import com.madrapps.issuetracker.diagnostics.Timings;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests caching the comments of the issues, and counting the hits, misses and evictions
+ */
+public class CommentCacheTest {
+
+    /** The issues */
+    private List<Task> mIssues;
+    /** The cache */
+    private CommentCache mCache;
+
+    @Before
+    public void setUp() {
+        mIssues = SyntheticIssues.issues(CommentCache.MAX_ENTRIES + 1, 1);
+        mCache = new CommentCache();
+    }
+
+    /**
+     * The comments cached are found until the issue is updated
+     */
+    @Test
+    public void getUntilUpdated() {
+        final SyntheticIssues.SyntheticTask issue = (SyntheticIssues.SyntheticTask) mIssues.get(0);
+        final Comment[] comments = SyntheticIssues.comments(3, 100, 1);
+        assertNull(mCache.get(issue));
+        mCache.put(issue, comments);
+
+        assertSame(comments, mCache.get(issue));
+        assertTrue(mCache.contains(issue));
+        final SyntheticIssues.SyntheticTask updated = issue.withSummary("renamed",
+                issue.getUpdated().getTime() + 1);
+        assertFalse(mCache.contains(updated));
+        assertNull(mCache.get(updated));
+        assertEquals("Comment cache: 0 issues, 0 chars, 1 hits, 2 misses, 0 evictions", mCache.toString());
+    }
+
+    /**
+     * The least recently used issue is evicted once too many are cached
+     */
+    @Test
+    public void evict() {
+        final Comment[] comments = SyntheticIssues.comments(1, 10, 1);
+        for (int i = 0; i < CommentCache.MAX_ENTRIES; i++) {
+            mCache.put(mIssues.get(i), comments);
+        }
+        // The first issue is used again, so the second is evicted
+        mCache.get(mIssues.get(0));
+        mCache.put(mIssues.get(CommentCache.MAX_ENTRIES), comments);
+
+        assertTrue(mCache.contains(mIssues.get(0)));
+        assertFalse(mCache.contains(mIssues.get(1)));
+        assertTrue(mCache.toString(), mCache.toString().endsWith("1 hits, 0 misses, 1 evictions"));
+    }
+
+    /**
+     * The hits, misses and evictions are reported in the diagnostics
+     */
+    @Test
+    public void reportCounters() {
+        mCache.get(mIssues.get(0));
+        if (Timings.isEnabled()) {
+            final String report = Timings.getReport();
+            assertTrue(report, report.contains("\nCounters\n"));
+            assertTrue(report, report.contains("comment cache misses: "));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.tasks.Task;
+import com.intellij.tasks.TaskRepository;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests caching the rows of the Issue table between sessions
+ */
+public class IssueCacheTest {
+
+    /** The size of the header of the cache file */
+    private static final int HEADER_SIZE = 24;
+
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+    /** The repository of the cached issues */
+    private final TaskRepository mRepository = new FakeTaskRepository("app", 0, 1);
+    /** The cache file */
+    private File mFile;
+    /** The cache */
+    private IssueCache mCache;
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = new File(mFolder.newFolder(), "project.issues");
+        mCache = new IssueCache(mFile);
+    }
+
+    /**
+     * The rows are restored as they were cached, with their fingerprints and repositories
+     */
+    @Test
+    public void roundTrip() {
+        final List<IssueRow> rows = rows(20);
+        final Map<String, Long> fingerprints = new HashMap<>();
+        fingerprints.put("APP-3", 42L);
+        mCache.save(rows, fingerprints);
+
+        final List<Task> issues = mCache.load(new TaskRepository[]{mRepository});
+
+        assertEquals(rows.size(), issues.size());
+        for (int i = 0; i < rows.size(); i++) {
+            final IssueRow row = rows.get(i);
+            final CachedTask issue = (CachedTask) issues.get(i);
+            assertEquals(row.getId(), issue.getId());
+            assertEquals(row.getPresentableName(), issue.getPresentableName());
+            assertEquals(IssueRow.toDate(row.getCreated()), issue.getCreated());
+            assertEquals(IssueRow.toDate(row.getUpdated()), issue.getUpdated());
+            assertEquals(row.getType(), issue.getType());
+            assertEquals(row.isClosed(), issue.isClosed());
+            assertTrue(issue.isIssue());
+            assertSame(mRepository, issue.getRepository());
+            assertEquals(row.getId().equals("APP-3") ? 42L : CachedTask.NO_FINGERPRINT, issue.getFingerprint());
+        }
+    }
+
+    /**
+     * The issues of a repository that is no longer configured are restored without their repository
+     */
+    @Test
+    public void loadWithoutRepository() {
+        mCache.save(rows(3), new HashMap<>());
+
+        final List<Task> issues = mCache.load(new TaskRepository[0]);
+
+        assertEquals(3, issues.size());
+        assertNull(issues.get(0).getRepository());
+    }
+
+    /**
+     * Only the first rows are cached
+     */
+    @Test
+    public void saveMaxIssues() {
+        mCache.save(rows(IssueCache.MAX_ISSUES + 10), new HashMap<>());
+
+        final List<Task> issues = mCache.load(new TaskRepository[]{mRepository});
+
+        assertEquals(IssueCache.MAX_ISSUES, issues.size());
+        assertEquals("APP-1", issues.get(0).getId());
+    }
+
+    /**
+     * Saving again replaces the cached rows
+     */
+    @Test
+    public void saveAgain() {
+        mCache.save(rows(10), new HashMap<>());
+        mCache.save(rows(2), new HashMap<>());
+
+        assertEquals(2, mCache.load(new TaskRepository[]{mRepository}).size());
+        assertFalse(new File(mFile.getParentFile(), mFile.getName() + ".tmp").exists());
+    }
+
+    /**
+     * There is nothing to restore before the first save
+     */
+    @Test
+    public void loadMissing() {
+        assertTrue(mCache.load(new TaskRepository[]{mRepository}).isEmpty());
+    }
+
+    /**
+     * A cache whose payload does not match its checksum is discarded
+     */
+    @Test
+    public void loadCorrupted() throws IOException {
+        mCache.save(rows(10), new HashMap<>());
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "rw")) {
+            file.seek(HEADER_SIZE + 20);
+            final int value = file.read();
+            file.seek(HEADER_SIZE + 20);
+            file.write(value ^ 0xff);
+        }
+
+        assertTrue(mCache.load(new TaskRepository[]{mRepository}).isEmpty());
+        assertFalse(mFile.exists());
+    }
+
+    /**
+     * A cache cut short, like by a full disk, is discarded
+     */
+    @Test
+    public void loadTruncated() throws IOException {
+        mCache.save(rows(10), new HashMap<>());
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "rw")) {
+            file.setLength(file.length() / 2);
+        }
+
+        assertTrue(mCache.load(new TaskRepository[]{mRepository}).isEmpty());
+        assertFalse(mFile.exists());
+    }
+
+    /**
+     * A cache written by another version of the plugin is discarded
+     */
+    @Test
+    public void loadOtherVersion() throws IOException {
+        mCache.save(rows(10), new HashMap<>());
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "rw")) {
+            file.seek(4);
+            file.writeInt(IssueCache.SCHEMA_VERSION + 1);
+        }
+
+        assertTrue(mCache.load(new TaskRepository[]{mRepository}).isEmpty());
+    }
+
+    /**
+     * A header that claims more issues than are ever cached is not trusted
+     */
+    @Test
+    public void loadInvalidHeader() throws IOException {
+        mCache.save(rows(10), new HashMap<>());
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "rw")) {
+            file.seek(8);
+            file.writeInt(IssueCache.MAX_ISSUES + 1);
+        }
+
+        assertTrue(mCache.load(new TaskRepository[]{mRepository}).isEmpty());
+    }
+
+    /**
+     * @param count the number of rows
+     * @return the rows of issues of {@link #mRepository}, numbered from 1
+     */
+    private List<IssueRow> rows(int count) {
+        final Random random = new Random(1);
+        final List<IssueRow> rows = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            rows.add(new IssueRow(SyntheticIssues.issue("APP", i, random, mRepository)));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,96 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.tasks.Comment;
+import com.intellij.tasks.TaskType;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests exporting the rows of the Issue table without their details, which have no description, comments or error
+ * columns. Exporting the details is tested with the presenter, as it pulls them on the threads of the IDE.
+ */
+public class IssueExporterTest {
+
+    /** The creation time of the issues, 2016-10-09T08:00:00Z */
+    private static final long CREATED = 1_476_000_000_000L;
+    /** The update time of the issues, 2016-10-09T08:01:00Z */
+    private static final long UPDATED = CREATED + 60_000;
+
+    /**
+     * The cells with separators, quotes or line breaks are quoted
+     */
+    @Test
+    public void csv() throws IOException {
+        final String exported = export(IssueExporter.Format.CSV, Arrays.asList(
+                row("APP-1", "Plain summary", false),
+                row("APP-2", "Crash, then \"freeze\"", true),
+                row("APP-3", "Two\r\nlines", false)));
+
+        assertEquals("id,name,type,repository,created,updated,closed\r\n"
+                + "APP-1,APP-1: Plain summary,BUG,,2016-10-09T08:00:00Z,2016-10-09T08:01:00Z,false\r\n"
+                + "APP-2,\"APP-2: Crash, then \"\"freeze\"\"\",BUG,,2016-10-09T08:00:00Z,2016-10-09T08:01:00Z,true\r\n"
+                + "APP-3,\"APP-3: Two\r\nlines\",BUG,,2016-10-09T08:00:00Z,2016-10-09T08:01:00Z,false\r\n",
+                exported);
+    }
+
+    /**
+     * The strings are escaped, with the control characters as unicode escapes
+     */
+    @Test
+    public void json() throws IOException {
+        final String exported = export(IssueExporter.Format.JSON_LINES, Arrays.asList(
+                row("APP-1", "Say \"hi\" to C:\\temp", false),
+                row("APP-2", "Tab\tand\nnew line, caf\u00e9 \u2713", true)));
+
+        assertEquals("{\"id\":\"APP-1\",\"name\":\"APP-1: Say \\\"hi\\\" to C:\\\\temp\",\"type\":\"BUG\","
+                + "\"repository\":\"\",\"created\":\"2016-10-09T08:00:00Z\",\"updated\":\"2016-10-09T08:01:00Z\","
+                + "\"closed\":false}\n"
+                + "{\"id\":\"APP-2\",\"name\":\"APP-2: Tab\\u0009and\\u000anew line, caf\u00e9 \u2713\",\"type\":\"BUG\","
+                + "\"repository\":\"\",\"created\":\"2016-10-09T08:00:00Z\",\"updated\":\"2016-10-09T08:01:00Z\","
+                + "\"closed\":true}\n",
+                exported);
+    }
+
+    /**
+     * Nothing but the header is written for an empty table
+     */
+    @Test
+    public void empty() throws IOException {
+        assertEquals("id,name,type,repository,created,updated,closed\r\n",
+                export(IssueExporter.Format.CSV, Collections.emptyList()));
+        assertEquals("", export(IssueExporter.Format.JSON_LINES, Collections.emptyList()));
+    }
+
+    /**
+     * @param format the format
+     * @param rows   the rows to export
+     * @return the exported rows
+     * @throws IOException if writing fails
+     */
+    private static String export(IssueExporter.Format format, List<IssueRow> rows) throws IOException {
+        final IssueExporter exporter = new IssueExporter(format, false, new TaskStore(), new CommentCache());
+        final StringWriter writer = new StringWriter();
+        assertEquals(0, exporter.export(rows, writer, new EmptyProgressIndicator()));
+        return writer.toString();
+    }
+
+    /**
+     * @param id      the id of the issue
+     * @param summary the summary
+     * @param closed  whether the issue is closed
+     * @return the row of the issue
+     */
+    private static IssueRow row(String id, String summary, boolean closed) {
+        return new IssueRow(new SyntheticIssues.SyntheticTask(id, summary, null, CREATED, UPDATED, TaskType.BUG,
+                closed, Comment.EMPTY_ARRAY, null));
+    }
+}
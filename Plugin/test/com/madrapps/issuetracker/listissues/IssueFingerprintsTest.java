@@ -0,0 +1,146 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.tasks.Task;
+import com.intellij.tasks.TaskType;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests comparing the issues pulled with the issues in the table
+ */
+public class IssueFingerprintsTest {
+
+    /** The key of the result of the first page */
+    private static final String RESULT_KEY = "first page";
+
+    /** The issues of the first sync */
+    private List<Task> mIssues;
+    /** The fingerprints, holding the issues of the first sync */
+    private IssueFingerprints mFingerprints;
+
+    @Before
+    public void setUp() {
+        mIssues = SyntheticIssues.issues(5, 1);
+        mFingerprints = new IssueFingerprints();
+        final IssueFingerprints.Diff diff = mFingerprints.diff(RESULT_KEY, mIssues);
+        assertEquals(5, diff.getAddedCount());
+        assertEquals(0, diff.getChangedCount());
+        mFingerprints.commit(diff);
+    }
+
+    /**
+     * The same result is not merged again
+     */
+    @Test
+    public void diffUnchanged() {
+        assertTrue(mFingerprints.diff(RESULT_KEY, mIssues).isEmpty());
+        // The same issues from another request are compared one by one
+        assertTrue(mFingerprints.diff("other page", mIssues).isEmpty());
+        assertTrue(mFingerprints.diff(null, mIssues.subList(1, 3)).isEmpty());
+    }
+
+    /**
+     * An issue that changed is reported as changed, and a new issue as added
+     */
+    @Test
+    public void diffChanged() {
+        final List<Task> issues = new ArrayList<>(mIssues);
+        final SyntheticIssues.SyntheticTask issue = (SyntheticIssues.SyntheticTask) issues.get(2);
+        issues.set(2, issue.withSummary("renamed", issue.getUpdated().getTime()));
+        issues.add(SyntheticIssues.issues(6, 1).get(5));
+
+        final IssueFingerprints.Diff diff = mFingerprints.diff(RESULT_KEY, issues);
+
+        assertEquals(1, diff.getAddedCount());
+        assertEquals(1, diff.getChangedCount());
+        assertEquals(2, diff.getIssues().size());
+        assertEquals("ISSUE-6", diff.getIssues().get(0).getId());
+        assertEquals("ISSUE-3", diff.getIssues().get(1).getId());
+    }
+
+    /**
+     * An issue is reported again until its diff is committed, as it is not in the table until then
+     */
+    @Test
+    public void diffUncommitted() {
+        final List<Task> issues = SyntheticIssues.issues(6, 1).subList(5, 6);
+        assertEquals(1, mFingerprints.diff(null, issues).getAddedCount());
+        final IssueFingerprints.Diff diff = mFingerprints.diff(null, issues);
+        assertEquals(1, diff.getAddedCount());
+
+        mFingerprints.commit(diff);
+
+        assertTrue(mFingerprints.diff(null, issues).isEmpty());
+        assertEquals(6, mFingerprints.snapshot().size());
+    }
+
+    /**
+     * A removed issue is reported as added when it is pulled again
+     */
+    @Test
+    public void remove() {
+        mFingerprints.remove(Collections.singletonList("ISSUE-2"));
+
+        final IssueFingerprints.Diff diff = mFingerprints.diff(RESULT_KEY, mIssues);
+
+        assertEquals(1, diff.getAddedCount());
+        assertEquals("ISSUE-2", diff.getIssues().get(0).getId());
+        assertFalse(mFingerprints.snapshot().containsKey("ISSUE-2"));
+    }
+
+    /**
+     * A cached issue that has not changed is merged once, to fill in what its row lacks, but is not reported as
+     * changed
+     */
+    @Test
+    public void diffRestored() {
+        final IssueFingerprints fingerprints = new IssueFingerprints();
+        final Task issue = mIssues.get(0);
+        final long fingerprint = mFingerprints.snapshot().get(issue.getId());
+        fingerprints.putCached(Collections.singletonList(new CachedTask(issue.getId(), issue.getPresentableName(),
+                issue.getCreated(), issue.getUpdated(), issue.getType(), issue.isClosed(), true, null, fingerprint)));
+
+        final IssueFingerprints.Diff diff = fingerprints.diff(null, Collections.singletonList(issue));
+        assertEquals(0, diff.getAddedCount());
+        assertEquals(0, diff.getChangedCount());
+        assertEquals(Collections.singletonList(issue), diff.getIssues());
+
+        fingerprints.commit(diff);
+        assertTrue(fingerprints.diff(null, Collections.singletonList(issue)).isEmpty());
+    }
+
+    /**
+     * A cached issue without a fingerprint is merged by the next sync
+     */
+    @Test
+    public void putCachedWithoutFingerprint() {
+        final IssueFingerprints fingerprints = new IssueFingerprints();
+        fingerprints.putCached(Collections.singletonList(new CachedTask("ISSUE-1", "ISSUE-1: cached",
+                new Date(SyntheticIssues.BASE_TIME), null, TaskType.BUG, false, true, null,
+                CachedTask.NO_FINGERPRINT)));
+
+        assertTrue(fingerprints.snapshot().isEmpty());
+        assertEquals(1, fingerprints.diff(null, mIssues.subList(0, 1)).getAddedCount());
+    }
+
+    /**
+     * The fingerprint of a text tells texts apart
+     */
+    @Test
+    public void ofText() {
+        assertEquals(IssueFingerprints.ofText("some text"), IssueFingerprints.ofText("some text"));
+        assertNotEquals(IssueFingerprints.ofText("some text"), IssueFingerprints.ofText("some test"));
+        assertNotEquals(IssueFingerprints.ofText(null), IssueFingerprints.ofText(""));
+    }
+}
@@ -0,0 +1,198 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.tasks.Task;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests keeping the groups of the grouped view and the indexes of their nodes as rows are merged and removed
+ */
+public class IssueGroupTreeModelTest {
+
+    /** The number of issues of the first sync */
+    private static final int ISSUE_COUNT = 40;
+
+    /** The issues of the first sync */
+    private List<Task> mIssues;
+    /** The table, holding the issues of the first sync */
+    private IssueTableModel mIssuesModel;
+    /** The tree, grouping the issues by state */
+    private IssueGroupTreeModel mTreeModel;
+    /** The nodes changed since the first sync, as paths ending with the index of the node and the node */
+    private final List<String> mChanged = new ArrayList<>();
+    /** The nodes removed since the first sync, as paths ending with the index of the node */
+    private final List<String> mRemoved = new ArrayList<>();
+    /** The nodes inserted since the first sync, as paths ending with the index of the node */
+    private final List<String> mInserted = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        mIssues = SyntheticIssues.issues(ISSUE_COUNT, 1);
+        mIssuesModel = new IssueTableModel();
+        mIssuesModel.merge(mIssues, false);
+        mTreeModel = new IssueGroupTreeModel(mIssuesModel);
+        mIssuesModel.setRowListener(mTreeModel);
+        mTreeModel.setGroupBy(IssueGroupTreeModel.GroupBy.STATE);
+        mTreeModel.addTreeModelListener(new TreeModelListener() {
+            @Override
+            public void treeNodesChanged(TreeModelEvent e) {
+                mChanged.add(describe(e, e.getChildIndices()[0] + "/" + e.getChildren()[0]));
+            }
+
+            @Override
+            public void treeNodesInserted(TreeModelEvent e) {
+                mInserted.add(describe(e, e.getChildIndices()[0]));
+            }
+
+            @Override
+            public void treeNodesRemoved(TreeModelEvent e) {
+                mRemoved.add(describe(e, e.getChildIndices()[0]));
+            }
+
+            @Override
+            public void treeStructureChanged(TreeModelEvent e) {
+            }
+        });
+    }
+
+    /**
+     * The issues are grouped by state, and each node is found at the index it is shown at
+     */
+    @Test
+    public void groups() {
+        final Object root = mTreeModel.getRoot();
+        int count = 0;
+        for (int i = 0; i < mTreeModel.getChildCount(root); i++) {
+            final IssueGroupTreeModel.IssueGroup group = (IssueGroupTreeModel.IssueGroup) mTreeModel.getChild(root, i);
+            assertEquals(i, mTreeModel.getIndexOfChild(root, group));
+            count += group.getCount();
+        }
+        assertEquals(ISSUE_COUNT, count);
+        assertIndexes();
+    }
+
+    /**
+     * An updated issue that stays in its group is changed at its index
+     */
+    @Test
+    public void updateInExpandedGroup() {
+        final IssueGroupTreeModel.IssueGroup group = getGroup(mIssues.get(10));
+        final Task issue = ((SyntheticIssues.SyntheticTask) mIssues.get(10)).withSummary("renamed",
+                SyntheticIssues.BASE_TIME);
+        final int index = mTreeModel.getIndexOfChild(group, issue.getId());
+
+        mIssuesModel.merge(Arrays.asList(issue), false);
+
+        assertEquals(Arrays.asList(group.getName() + "/" + index + "/" + issue.getId()), mChanged);
+    }
+
+    /**
+     * Removed issues are removed at their index, and the issues after them are found at their new index
+     */
+    @Test
+    public void removeFromExpandedGroup() {
+        final IssueGroupTreeModel.IssueGroup group = getGroup(mIssues.get(0));
+        final List<String> ids = new ArrayList<>();
+        for (int i = 0; i < mTreeModel.getChildCount(group); i++) {
+            ids.add((String) mTreeModel.getChild(group, i));
+        }
+
+        mIssuesModel.remove(new HashSet<>(Arrays.asList(ids.get(1))));
+        // The first removal shifted the issues after it
+        mIssuesModel.remove(new HashSet<>(Arrays.asList(ids.get(3))));
+
+        assertEquals(Arrays.asList(group.getName() + "/1", group.getName() + "/2"), mRemoved);
+        assertEquals(ids.size() - 2, mTreeModel.getChildCount(group));
+        assertEquals(2, mTreeModel.getIndexOfChild(group, ids.get(4)));
+        assertEquals(-1, mTreeModel.getIndexOfChild(group, ids.get(1)));
+        assertIndexes();
+    }
+
+    /**
+     * New issues are appended to their expanded group
+     */
+    @Test
+    public void addToExpandedGroup() {
+        final List<Task> issues = SyntheticIssues.issues(ISSUE_COUNT + 1, 1);
+        final Task issue = issues.get(ISSUE_COUNT);
+        final IssueGroupTreeModel.IssueGroup group = getGroup(issue);
+        // Expanding the group lists its ids
+        mTreeModel.getChild(group, 0);
+        final int count = mTreeModel.getChildCount(group);
+
+        mIssuesModel.merge(issues.subList(ISSUE_COUNT, ISSUE_COUNT + 1), false);
+
+        assertEquals(Arrays.asList(group.getName() + "/" + count), mInserted);
+        assertEquals(count, mTreeModel.getIndexOfChild(group, issue.getId()));
+        assertIndexes();
+    }
+
+    /**
+     * Collapsing a group drops its list, which is built again when it is expanded
+     */
+    @Test
+    public void collapse() {
+        final IssueGroupTreeModel.IssueGroup group = getGroup(mIssues.get(0));
+        final String last = (String) mTreeModel.getChild(group, mTreeModel.getChildCount(group) - 1);
+        mTreeModel.collapsed(group);
+        mIssuesModel.remove(new HashSet<>(Arrays.asList(mIssues.get(0).getId())));
+
+        assertEquals(mTreeModel.getChildCount(group) - 1, mTreeModel.getIndexOfChild(group, last));
+        assertIndexes();
+    }
+
+    /**
+     * @param issue an issue
+     * @return the group of the issue
+     */
+    private IssueGroupTreeModel.IssueGroup getGroup(Task issue) {
+        final Object root = mTreeModel.getRoot();
+        final String name = issue.isClosed() ? "Closed" : "Open";
+        for (int i = 0; i < mTreeModel.getChildCount(root); i++) {
+            final IssueGroupTreeModel.IssueGroup group = (IssueGroupTreeModel.IssueGroup) mTreeModel.getChild(root, i);
+            if (group.getName().equals(name)) {
+                return group;
+            }
+        }
+        throw new AssertionError("No group " + name);
+    }
+
+    /**
+     * Check that every issue of every group is found at the index it is shown at
+     */
+    private void assertIndexes() {
+        final Object root = mTreeModel.getRoot();
+        for (int i = 0; i < mTreeModel.getChildCount(root); i++) {
+            final Object group = mTreeModel.getChild(root, i);
+            for (int j = 0; j < mTreeModel.getChildCount(group); j++) {
+                final Object issueId = mTreeModel.getChild(group, j);
+                assertEquals(issueId.toString(), j, mTreeModel.getIndexOfChild(group, issueId));
+                assertSame(group, mTreeModel.getChild(root, mTreeModel.getIndexOfChild(root, group)));
+            }
+        }
+    }
+
+    /**
+     * @param event an event of the tree
+     * @param last  what ends the description
+     * @return the name of the parent of the event, or the empty string for the root, followed by the last part
+     */
+    private static String describe(TreeModelEvent event, Object last) {
+        final Object parent = event.getTreePath().getLastPathComponent();
+        final String parentName = parent instanceof IssueGroupTreeModel.IssueGroup
+                ? ((IssueGroupTreeModel.IssueGroup) parent).getName() : "";
+        return parentName + "/" + last;
+    }
+}
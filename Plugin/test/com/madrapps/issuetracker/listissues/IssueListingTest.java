@@ -0,0 +1,101 @@
+package com.madrapps.issuetracker.listissues;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests finding the issues that are gone from the issues listed by the repositories
+ */
+public class IssueListingTest {
+
+    /** The url of the first repository */
+    private static final String FIRST_URL = "https://example.com/first";
+    /** The url of the second repository */
+    private static final String SECOND_URL = "https://example.com/second";
+
+    /** The listing, holding the first page of both repositories */
+    private IssueListing mListing;
+
+    @Before
+    public void setUp() {
+        mListing = new IssueListing();
+        mListing.setFilter(IssueFilter.DEFAULT);
+        mListing.add(IssueFilter.DEFAULT, FIRST_URL, Arrays.asList("A-1", "A-2", "A-3", "A-4"));
+        mListing.add(IssueFilter.DEFAULT, SECOND_URL, Arrays.asList("B-1", "B-2"));
+    }
+
+    /**
+     * The next pages are listed after the first, and the largest listing is the range to pull again
+     */
+    @Test
+    public void addPages() {
+        assertEquals(4, mListing.getMaxSize());
+        mListing.add(IssueFilter.DEFAULT, SECOND_URL, Arrays.asList("B-3", "B-4", "B-5"));
+        assertEquals(5, mListing.getMaxSize());
+        // Listed again by a page that overlaps the previous one
+        mListing.add(IssueFilter.DEFAULT, SECOND_URL, Arrays.asList("B-5", "B-6"));
+        assertEquals(6, mListing.getMaxSize());
+    }
+
+    /**
+     * The issues listed for a filter that has since been replaced are ignored
+     */
+    @Test
+    public void addForPreviousFilter() {
+        final IssueFilter filter = IssueFilter.DEFAULT.withText("crash");
+        mListing.setFilter(filter);
+        assertEquals(0, mListing.getMaxSize());
+
+        mListing.add(IssueFilter.DEFAULT, FIRST_URL, Arrays.asList("A-5", "A-6"));
+        assertEquals(0, mListing.getMaxSize());
+        mListing.add(filter, FIRST_URL, Collections.singletonList("A-1"));
+        assertEquals(1, mListing.getMaxSize());
+    }
+
+    /**
+     * Setting the same filter again keeps the issues listed
+     */
+    @Test
+    public void setSameFilter() {
+        mListing.setFilter(IssueFilter.DEFAULT);
+        assertEquals(4, mListing.getMaxSize());
+    }
+
+    /**
+     * A repository with no more issues than the ones pulled reports every issue missing from the pull as gone
+     */
+    @Test
+    public void reconcileLastPage() {
+        final List<String> missingIds = mListing.reconcile(FIRST_URL, Arrays.asList("A-1", "A-3"), false);
+        assertEquals(Arrays.asList("A-2", "A-4"), missingIds);
+        // The pull replaces what the repository listed
+        assertEquals(Collections.emptyList(), mListing.reconcile(FIRST_URL, Arrays.asList("A-1", "A-3"), false));
+    }
+
+    /**
+     * The issues pushed beyond the range pulled by the issues that entered it are not reported as gone
+     */
+    @Test
+    public void reconcileWithMore() {
+        // A-0 and A-5 entered the range, A-2 is gone, and A-3 and A-4 were pushed beyond the range
+        final List<String> missingIds = mListing.reconcile(FIRST_URL, Arrays.asList("A-0", "A-1", "A-5"), true);
+        assertEquals(Collections.singletonList("A-2"), missingIds);
+    }
+
+    /**
+     * A repository that was never listed has nothing to reconcile
+     */
+    @Test
+    public void reconcileUnlisted() {
+        assertEquals(Collections.emptyList(),
+                mListing.reconcile("https://example.com/third", Collections.singletonList("C-1"), false));
+        assertEquals(Collections.singletonList("B-2"),
+                mListing.reconcile(SECOND_URL, Collections.singletonList("B-1"), false));
+    }
+}
@@ -0,0 +1,105 @@
+package com.madrapps.issuetracker.listissues;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.madrapps.issuetracker.listissues.IssuePager.MAX_PAGES;
+import static com.madrapps.issuetracker.listissues.IssuePager.PAGE_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests requesting the pages of the Issue table as the user scrolls
+ */
+public class IssuePagerTest {
+
+    /** The pager, with the first page loaded */
+    private IssuePager mPager;
+    /** The generation of the pager */
+    private int mGeneration;
+
+    @Before
+    public void setUp() {
+        mPager = new IssuePager();
+        mGeneration = mPager.reset(IssueFilter.DEFAULT);
+        mPager.endPage(mGeneration, 0, PAGE_SIZE, PAGE_SIZE);
+    }
+
+    /**
+     * The next page is requested only once the last visible row is within the prefetch window
+     */
+    @Test
+    public void requestNearTheEnd() {
+        assertEquals(-1, mPager.requestNextPage(-1, PAGE_SIZE * 2));
+        assertEquals(PAGE_SIZE, mPager.requestNextPage(0, PAGE_SIZE));
+    }
+
+    /**
+     * No page is requested while another is in flight
+     */
+    @Test
+    public void requestOnePageAtATime() {
+        assertEquals(PAGE_SIZE, mPager.requestNextPage(0, PAGE_SIZE));
+        assertEquals(-1, mPager.requestNextPage(PAGE_SIZE - 1, PAGE_SIZE));
+        mPager.endPage(mGeneration, PAGE_SIZE, PAGE_SIZE, PAGE_SIZE);
+        assertEquals(PAGE_SIZE * 2, mPager.requestNextPage(PAGE_SIZE * 2 - 1, PAGE_SIZE * 2));
+    }
+
+    /**
+     * A page that failed is requested again at the same offset
+     */
+    @Test
+    public void requestAgainAfterFailure() {
+        assertEquals(PAGE_SIZE, mPager.requestNextPage(0, PAGE_SIZE));
+        mPager.endPage(mGeneration, PAGE_SIZE, PAGE_SIZE, -1);
+        assertEquals(PAGE_SIZE, mPager.requestNextPage(0, PAGE_SIZE));
+    }
+
+    /**
+     * A short page is the last one, and no limit is reported for it
+     */
+    @Test
+    public void stopAtLastPage() {
+        assertEquals(PAGE_SIZE, mPager.requestNextPage(0, PAGE_SIZE));
+        mPager.endPage(mGeneration, PAGE_SIZE, PAGE_SIZE, 10);
+        assertEquals(-1, mPager.requestNextPage(PAGE_SIZE + 9, PAGE_SIZE + 10));
+        assertFalse(mPager.reportLimit(PAGE_SIZE + 9, PAGE_SIZE + 10));
+    }
+
+    /**
+     * A page of the previous filter does not advance the paging of the new one
+     */
+    @Test
+    public void ignoreOlderGeneration() {
+        assertEquals(PAGE_SIZE, mPager.requestNextPage(0, PAGE_SIZE));
+        final int generation = mPager.reset(IssueFilter.DEFAULT.withText("crash"));
+        mPager.endPage(mGeneration, PAGE_SIZE, PAGE_SIZE, PAGE_SIZE);
+        assertEquals(-1, mPager.requestNextPage(0, 0));
+        mPager.endPage(generation, 0, PAGE_SIZE, PAGE_SIZE);
+        assertEquals(PAGE_SIZE, mPager.requestNextPage(0, PAGE_SIZE));
+    }
+
+    /**
+     * Paging stops at the page cap, which is reported once the user scrolls to the last row
+     */
+    @Test
+    public void stopAtMaxPages() {
+        for (int page = 1; page < MAX_PAGES; page++) {
+            final int rowCount = page * PAGE_SIZE;
+            assertEquals(rowCount, mPager.requestNextPage(rowCount - 1, rowCount));
+            assertFalse(mPager.reportLimit(rowCount - 1, rowCount));
+            mPager.endPage(mGeneration, rowCount, PAGE_SIZE, PAGE_SIZE);
+        }
+        final int rowCount = MAX_PAGES * PAGE_SIZE;
+        assertEquals(-1, mPager.requestNextPage(rowCount - 1, rowCount));
+        assertFalse(mPager.reportLimit(rowCount - 2, rowCount));
+        assertTrue(mPager.reportLimit(rowCount - 1, rowCount));
+        assertFalse(mPager.reportLimit(rowCount - 1, rowCount));
+
+        // A new filter starts paging again
+        mGeneration = mPager.reset(IssueFilter.DEFAULT.withText("crash"));
+        mPager.endPage(mGeneration, 0, PAGE_SIZE, PAGE_SIZE);
+        assertEquals(PAGE_SIZE, mPager.requestNextPage(0, PAGE_SIZE));
+    }
+}
@@ -0,0 +1,169 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.tasks.Comment;
+import com.intellij.tasks.TaskType;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests searching the issues of the table locally
+ */
+public class IssueSearchIndexTest {
+
+    /** The index, holding three issues */
+    private IssueSearchIndex mIndex;
+
+    @Before
+    public void setUp() {
+        mIndex = new IssueSearchIndex();
+        mIndex.add(issue("APP-1", "Crash when opening settings", "Stack trace attached"));
+        mIndex.add(issue("APP-2", "Settings are not saved", null));
+        mIndex.add(issue("APP-3", "Slow scrolling", "The table freezes while scrolling"));
+    }
+
+    /**
+     * Every word of the query has to start a word of the issue, regardless of case
+     */
+    @Test
+    public void search() {
+        assertEquals(set("APP-1", "APP-2"), mIndex.search("settings"));
+        assertEquals(set("APP-1", "APP-2"), mIndex.search("SETT"));
+        assertEquals(set("APP-1"), mIndex.search("sett crash"));
+        assertEquals(set("APP-3"), mIndex.search("freez"));
+        assertEquals(Collections.emptySet(), mIndex.search("settings slow"));
+        assertEquals(Collections.emptySet(), mIndex.search("ettings"));
+    }
+
+    /**
+     * A query without words matches every issue
+     */
+    @Test
+    public void searchWithoutWords() {
+        assertNull(mIndex.search(null));
+        assertNull(mIndex.search(" -- "));
+        assertTrue(mIndex.matches("APP-2", null));
+    }
+
+    /**
+     * An issue is found by its id, whole or by its parts
+     */
+    @Test
+    public void searchById() {
+        assertEquals(set("APP-2"), mIndex.search("app-2"));
+        assertEquals(set("APP-1", "APP-2", "APP-3"), mIndex.search("app"));
+    }
+
+    /**
+     * A single issue is matched the same way as a search
+     */
+    @Test
+    public void matches() {
+        assertTrue(mIndex.matches("APP-3", "table scroll"));
+        assertFalse(mIndex.matches("APP-3", "table crash"));
+        assertFalse(mIndex.matches("APP-4", "table"));
+    }
+
+    /**
+     * A new version of an issue replaces the words of the previous one, and keeps its comments
+     */
+    @Test
+    public void replace() {
+        mIndex.addComments("APP-2", comments("Reproduced by bob"));
+        mIndex.add(issue("APP-2", "Preferences are not saved", null));
+
+        assertEquals(set("APP-1"), mIndex.search("settings"));
+        assertEquals(set("APP-2"), mIndex.search("preferences"));
+        assertEquals(set("APP-2"), mIndex.search("bob"));
+    }
+
+    /**
+     * The comments of an issue replace the comments indexed before, and are ignored for issues not in the index
+     */
+    @Test
+    public void addComments() {
+        mIndex.addComments("APP-1", comments("Happens on Linux", "Also on Windows"));
+        assertEquals(set("APP-1"), mIndex.search("linux windows"));
+        assertEquals(set("APP-1"), mIndex.search("alice"));
+
+        mIndex.addComments("APP-1", comments("Fixed on Linux"));
+        assertEquals(Collections.emptySet(), mIndex.search("windows"));
+        assertEquals(set("APP-1"), mIndex.search("crash fixed"));
+
+        mIndex.addComments("APP-9", comments("Windows"));
+        assertEquals(Collections.emptySet(), mIndex.search("windows"));
+    }
+
+    /**
+     * A removed issue is no longer found, and the issue added after it is found
+     */
+    @Test
+    public void remove() {
+        mIndex.addComments("APP-1", comments("Happens on Linux"));
+        mIndex.remove("APP-1");
+        assertEquals(set("APP-2"), mIndex.search("settings"));
+        assertEquals(Collections.emptySet(), mIndex.search("linux"));
+        assertFalse(mIndex.matches("APP-1", "crash"));
+
+        mIndex.add(issue("APP-4", "Crash on Linux", null));
+        assertEquals(set("APP-4"), mIndex.search("crash"));
+        assertEquals(set("APP-4"), mIndex.search("linux"));
+    }
+
+    /**
+     * Only the start of a long description is indexed
+     */
+    @Test
+    public void longDescription() {
+        final StringBuilder description = new StringBuilder();
+        while (description.length() < IssueSearchIndex.MAX_INDEXED_CHARS) {
+            description.append("filler ");
+        }
+        description.append("needle");
+        mIndex.add(issue("APP-5", "Long", description.toString()));
+
+        assertEquals(set("APP-5"), mIndex.search("filler"));
+        assertEquals(Collections.emptySet(), mIndex.search("needle"));
+    }
+
+    /**
+     * @param id          the id of the issue
+     * @param summary     the summary
+     * @param description the description, or null
+     * @return the issue
+     */
+    private static SyntheticIssues.SyntheticTask issue(String id, String summary, String description) {
+        return new SyntheticIssues.SyntheticTask(id, summary, description, SyntheticIssues.BASE_TIME,
+                SyntheticIssues.BASE_TIME, TaskType.BUG, false, Comment.EMPTY_ARRAY, null);
+    }
+
+    /**
+     * @param texts the text of each comment
+     * @return the comments, written by alice
+     */
+    private static Comment[] comments(String... texts) {
+        final Comment[] comments = new Comment[texts.length];
+        for (int i = 0; i < texts.length; i++) {
+            comments[i] = new SyntheticIssues.SyntheticComment(texts[i], "alice", new Date(SyntheticIssues.BASE_TIME));
+        }
+        return comments;
+    }
+
+    /**
+     * @param ids the ids
+     * @return the ids as a set
+     */
+    private static HashSet<String> set(String... ids) {
+        return new HashSet<>(Arrays.asList(ids));
+    }
+}
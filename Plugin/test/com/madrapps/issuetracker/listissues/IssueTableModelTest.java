@@ -0,0 +1,183 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.tasks.Comment;
+import com.intellij.tasks.Task;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+import javax.swing.event.TableModelEvent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests merging issues into the Issue table and removing them
+ */
+public class IssueTableModelTest {
+
+    /** The issues of the first sync */
+    private List<Task> mIssues;
+    /** The table, holding the issues of the first sync */
+    private IssueTableModel mModel;
+    /** The events the table fired since the first sync */
+    private final List<TableModelEvent> mEvents = new ArrayList<>();
+    /** The number of rows the table reported as added, replaced or removed since the first sync */
+    private int mRowChanges;
+    /** The number of rows the table reported as removed since the first sync */
+    private int mRemovedRows;
+
+    @Before
+    public void setUp() {
+        mIssues = SyntheticIssues.issues(10, 1);
+        mModel = new IssueTableModel();
+        mModel.merge(mIssues, false);
+        mModel.addTableModelListener(mEvents::add);
+        mModel.setRowListener((oldRow, newRow) -> {
+            mRowChanges++;
+            if (newRow == null) {
+                mRemovedRows++;
+            }
+        });
+    }
+
+    /**
+     * The issues of the first sync are added in order
+     */
+    @Test
+    public void mergeIntoEmptyTable() {
+        assertEquals(10, mModel.getRowCount());
+        for (int i = 0; i < mIssues.size(); i++) {
+            assertEquals(mIssues.get(i).getId(), mModel.getItem(i).getId());
+        }
+        assertNotNull(mModel.getRow("ISSUE-7"));
+        assertNull(mModel.getRow("ISSUE-11"));
+    }
+
+    /**
+     * A sync of the same issues fires no update
+     */
+    @Test
+    public void mergeUnchanged() {
+        mModel.merge(mIssues, true);
+
+        assertEquals(10, mModel.getRowCount());
+        assertTrue(mEvents.isEmpty());
+    }
+
+    /**
+     * An updated issue replaces its row in place, and only that row is notified
+     */
+    @Test
+    public void mergeUpdated() {
+        final SyntheticIssues.SyntheticTask issue = (SyntheticIssues.SyntheticTask) mIssues.get(3);
+        mModel.merge(Collections.singletonList(issue.withSummary("renamed", SyntheticIssues.BASE_TIME)), false);
+
+        assertEquals(10, mModel.getRowCount());
+        assertEquals("ISSUE-4: renamed", mModel.getItem(3).getPresentableName());
+        assertSame(mModel.getItem(3), mModel.getRow("ISSUE-4"));
+        assertEquals(1, mEvents.size());
+        assertEquals(TableModelEvent.UPDATE, mEvents.get(0).getType());
+        assertEquals(3, mEvents.get(0).getFirstRow());
+        assertEquals(3, mEvents.get(0).getLastRow());
+        assertEquals(1, mRowChanges);
+    }
+
+    /**
+     * New issues are added after the rows already in the table, in a single insert
+     */
+    @Test
+    public void mergeNewIssues() {
+        final List<Task> issues = new ArrayList<>(SyntheticIssues.issues(12, 1).subList(10, 12));
+        mModel.merge(issues, false);
+
+        assertEquals(12, mModel.getRowCount());
+        assertEquals("ISSUE-12", mModel.getItem(11).getId());
+        assertEquals(1, mEvents.size());
+        assertEquals(TableModelEvent.INSERT, mEvents.get(0).getType());
+        assertEquals(10, mEvents.get(0).getFirstRow());
+        assertEquals(11, mEvents.get(0).getLastRow());
+    }
+
+    /**
+     * A sync that replaces the table removes the issues it does not have
+     */
+    @Test
+    public void mergeRemovesMissing() {
+        final List<Task> issues = new ArrayList<>(mIssues);
+        issues.remove(9);
+        issues.remove(0);
+        mModel.merge(issues, true);
+
+        assertEquals(8, mModel.getRowCount());
+        assertNull(mModel.getRow("ISSUE-1"));
+        assertNull(mModel.getRow("ISSUE-10"));
+        assertEquals("ISSUE-2", mModel.getItem(0).getId());
+        assertEquals(2, mRemovedRows);
+    }
+
+    /**
+     * Removing issues keeps the rows of the other issues findable by their id
+     */
+    @Test
+    public void remove() {
+        mModel.remove(new HashSet<>(Arrays.asList("ISSUE-2", "ISSUE-3", "ISSUE-8", "ISSUE-42")));
+
+        assertEquals(7, mModel.getRowCount());
+        assertNull(mModel.getRow("ISSUE-3"));
+        for (int i = 0; i < mModel.getRowCount(); i++) {
+            assertSame(mModel.getItem(i), mModel.getRow(mModel.getItem(i).getId()));
+        }
+        // The consecutive rows are removed together
+        assertEquals(2, mEvents.size());
+        assertEquals(TableModelEvent.DELETE, mEvents.get(0).getType());
+        assertEquals(7, mEvents.get(0).getFirstRow());
+        assertEquals(1, mEvents.get(1).getFirstRow());
+        assertEquals(2, mEvents.get(1).getLastRow());
+        assertEquals(3, mRemovedRows);
+    }
+
+    /**
+     * The issues merged while the table is searched are matched against the query
+     */
+    @Test
+    public void searchWhileMerging() {
+        final SyntheticIssues.SyntheticTask issue = (SyntheticIssues.SyntheticTask) mIssues.get(0);
+        mModel.setQuery("zebra");
+        assertFalse(mModel.isMatching(mModel.getItem(0)));
+
+        mModel.merge(Collections.singletonList(issue.withSummary("zebra crossing", SyntheticIssues.BASE_TIME)), false);
+
+        assertTrue(mModel.isMatching(mModel.getItem(0)));
+        assertFalse(mModel.isMatching(mModel.getItem(1)));
+        mModel.setQuery(null);
+        assertTrue(mModel.isMatching(mModel.getItem(1)));
+    }
+
+    /**
+     * The comments of an issue make it match
+     */
+    @Test
+    public void searchComments() {
+        mModel.setQuery("user7");
+        assertFalse(mModel.isMatching(mModel.getItem(5)));
+
+        mModel.indexComments("ISSUE-6", new Comment[]{new SyntheticIssues.SyntheticComment("looks fine", "user7",
+                new Date(SyntheticIssues.BASE_TIME))});
+
+        assertTrue(mModel.isMatching(mModel.getItem(5)));
+        assertEquals(1, mEvents.size());
+        assertEquals(5, mEvents.get(0).getFirstRow());
+    }
+}
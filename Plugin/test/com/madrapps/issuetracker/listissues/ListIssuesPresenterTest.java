@@ -0,0 +1,188 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.tasks.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the presenter headless against fake repositories
+ */
+public class ListIssuesPresenterTest extends PresenterTestCase {
+
+    /** The latency of the repositories */
+    private static final long LATENCY_MS = 20;
+
+    /**
+     * The first page of every repository is shown
+     */
+    public void testInitialLoad() {
+        final FakeTaskRepository first = addRepository("first", 30, LATENCY_MS, 5);
+        final FakeTaskRepository second = addRepository("second", IssuePager.PAGE_SIZE * 3, LATENCY_MS, 5);
+        startPresenter();
+        waitUntilSettled("the initial issues", new int[2]);
+
+        // The default filter lists the open issues
+        final List<Task> firstIssues = getOpenIssues(first);
+        assertEquals(firstIssues.size() + IssuePager.PAGE_SIZE, mView.getRowCount());
+        for (Task issue : firstIssues) {
+            assertNotNull(issue.getId(), mView.getIssueRow(issue.getId()));
+        }
+        assertNotNull(mView.getIssueRow(getOpenIssues(second).get(0).getId()));
+        assertTrue(mView.getRepositoryErrors().isEmpty());
+    }
+
+    /**
+     * A refresh shows the issues updated since the last sync, and reports them as changes
+     */
+    public void testRefresh() {
+        final FakeTaskRepository repository = addRepository("refresh", 100, LATENCY_MS, 5);
+        startPresenter();
+        waitUntilSettled("the initial issues", new int[1]);
+        final List<String> updatedIds = repository.update(3);
+
+        final int[] requestCounts = getRequestCounts();
+        mPresenter.refreshIssues(getProject());
+        waitUntilSettled("the updated issues", requestCounts);
+
+        for (String issueId : updatedIds) {
+            assertEquals(repository.getIssue(issueId).getPresentableName(),
+                    mView.getIssueRow(issueId).getPresentableName());
+        }
+        final int[] changes = mView.getChanges().get(mView.getChanges().size() - 1);
+        assertEquals(3, changes[0] + changes[1]);
+    }
+
+    /**
+     * A forced sync removes the issues that are no longer in the repository
+     */
+    public void testForcedSyncRemovesIssues() {
+        final FakeTaskRepository repository = addRepository("removed", 20, LATENCY_MS, 5);
+        startPresenter();
+        waitUntilSettled("the initial issues", new int[1]);
+        final int rowCount = mView.getRowCount();
+        final String removedId = getOpenIssues(repository).get(5).getId();
+        repository.remove(Collections.singletonList(removedId));
+
+        final int[] requestCounts = getRequestCounts();
+        mPresenter.pullIssues(getProject(), IssueFilter.DEFAULT, true);
+        waitUntil("the removal", () -> mView.getIssueRow(removedId) == null);
+        waitUntilSettled("the sync", requestCounts);
+
+        assertEquals(rowCount - 1, mView.getRowCount());
+    }
+
+    /**
+     * A repository that fails is reported, and the issues of the other repositories are shown
+     */
+    public void testRepositoryError() {
+        final FakeTaskRepository failing = addRepository("failing", 20, LATENCY_MS, 5);
+        failing.setErrorRate(1);
+        final FakeTaskRepository working = addRepository("working", 20, LATENCY_MS, 5);
+        startPresenter();
+        waitUntilSettled("the initial issues", new int[2]);
+
+        assertEquals(getOpenIssues(working).size(), mView.getRowCount());
+        assertEquals(1, mView.getRepositoryErrors().size());
+        assertTrue(mView.getRepositoryErrors().get(0), mView.getRepositoryErrors().get(0).startsWith(
+                failing.getPresentableName()));
+    }
+
+    /**
+     * Selecting an issue shows its details at once, and its comments once they are pulled
+     */
+    public void testShowDetails() {
+        final FakeTaskRepository repository = addRepository("details", 20, LATENCY_MS, 5);
+        repository.setComments(3, 100);
+        startPresenter();
+        waitUntilSettled("the initial issues", new int[1]);
+        final Task issue = getOpenIssues(repository).get(0);
+
+        mPresenter.showDetails(getProject(), issue.getId());
+        waitUntil("the details", () -> isShowingDetails(issue));
+        waitUntil("the comments", () -> mView.getIndexedCommentsTime(issue.getId()) != null);
+
+        final String detailsHtml = mView.getDetails().get(mView.getDetails().size() - 1).mText;
+        assertTrue(detailsHtml, detailsHtml.contains(issue.getComments()[2].getAuthor()));
+    }
+
+    /**
+     * The export with details writes the description of every issue
+     */
+    public void testExportWithDetails() throws IOException {
+        final FakeTaskRepository repository = addRepository("export", 10, LATENCY_MS, 5);
+        startPresenter();
+        waitUntilSettled("the initial issues", new int[1]);
+        final List<Task> issues = getOpenIssues(repository);
+        final File file = Files.createTempFile("issues", ".jsonl").toFile();
+        file.deleteOnExit();
+
+        mPresenter.exportIssues(getProject(), file, IssueExporter.Format.JSON_LINES, true);
+        waitUntil("the export", () -> !mView.getExportResults().isEmpty());
+
+        assertEquals("Exported " + issues.size() + " issues to " + file.getName(), mView.getExportResults().get(0));
+        final String exported = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        assertEquals(issues.size(), exported.split("\n").length);
+        for (Task issue : issues) {
+            assertTrue(issue.getId(), exported.contains("\"id\":\"" + issue.getId() + "\""));
+        }
+        assertFalse(exported.contains("\"error\""));
+    }
+
+    /**
+     * The CSV export with details reports the issues whose details could not be pulled in the error column
+     */
+    public void testExportCsvWithFailedDetails() throws IOException {
+        final FakeTaskRepository repository = addRepository("failed", 5, LATENCY_MS, 5);
+        startPresenter();
+        waitUntilSettled("the initial issues", new int[1]);
+        final List<Task> issues = getOpenIssues(repository);
+        // The issues are kept by the presenter, but their comments have to be pulled
+        repository.setErrorRate(1);
+        final File file = Files.createTempFile("issues", ".csv").toFile();
+        file.deleteOnExit();
+
+        mPresenter.exportIssues(getProject(), file, IssueExporter.Format.CSV, true);
+        waitUntil("the export", () -> !mView.getExportResults().isEmpty());
+
+        assertEquals("Exported " + issues.size() + " issues to " + file.getName() + ". The details of "
+                + issues.size() + " issues could not be pulled.", mView.getExportResults().get(0));
+        final String[] lines = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).split("\r\n");
+        assertEquals("id,name,type,repository,created,updated,closed,description,comments,error", lines[0]);
+        assertEquals(issues.size() + 1, lines.length);
+        for (int i = 1; i < lines.length; i++) {
+            // Neither the description nor the comments are written, only the reason
+            assertTrue(lines[i], lines[i].endsWith(",,,java.lang.Exception: Simulated failure of "
+                    + repository.getPresentableName()));
+        }
+    }
+
+    /**
+     * @param repository a repository
+     * @return the open issues of the repository, which the default filter lists, the most recently updated first
+     */
+    private static List<Task> getOpenIssues(FakeTaskRepository repository) {
+        final List<Task> issues = new ArrayList<>();
+        for (Task issue : repository.getAllIssues()) {
+            if (!issue.isClosed()) {
+                issues.add(issue);
+            }
+        }
+        return issues;
+    }
+
+    /**
+     * @param issue an issue
+     * @return true if the details of the issue are shown
+     */
+    private boolean isShowingDetails(Task issue) {
+        final List<RecordingView.Shown> details = mView.getDetails();
+        return !details.isEmpty() && details.get(details.size() - 1).mText.contains(
+                "href=" + issue.getIssueUrl() + ">");
+    }
+}
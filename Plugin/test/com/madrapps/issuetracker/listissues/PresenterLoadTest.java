@@ -0,0 +1,321 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.tasks.Task;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the presenter through the load of a user against slow repositories.
+ */
+public class PresenterLoadTest extends PresenterTestCase {
+
+    /** The number of issues of each repository */
+    private static final int ISSUES = Integer.getInteger("issuetracker.load.issues", 2_000);
+    /** The number of repositories, and four times as many for the fan-out */
+    private static final int REPOSITORIES = Integer.getInteger("issuetracker.load.repositories", 2);
+    /** The time each request takes */
+    private static final long LATENCY_MS = Long.getLong("issuetracker.load.latencyMs", 50);
+    /** The largest time added to or taken off the latency of a request at random */
+    private static final long JITTER_MS = Long.getLong("issuetracker.load.jitterMs", 20);
+    /** The chance of a request failing during the fan-out, from 0 to 1 */
+    private static final double ERROR_RATE =
+            Double.parseDouble(System.getProperty("issuetracker.load.errorRate", "0.1"));
+    /** The number of comments of each issue */
+    private static final int COMMENTS = Integer.getInteger("issuetracker.load.comments", 50);
+    /** The length of each comment, in characters */
+    private static final int COMMENT_LENGTH = Integer.getInteger("issuetracker.load.commentLength", 500);
+    /** The number of times each scenario is repeated */
+    private static final int ITERATIONS = Integer.getInteger("issuetracker.load.iterations", 5);
+    /** The number of refreshes requested at once by a refresh storm */
+    private static final int STORM_SIZE = 10;
+    /** The number of issues updated in each repository before a refresh storm */
+    private static final int STORM_UPDATES = 10;
+    /** The number of issues selected one after the other by a selection run */
+    private static final int SELECTIONS = 20;
+    /** The time between two selections, as fast as holding down the arrow key */
+    private static final long SELECTION_INTERVAL_MS = 30;
+
+    /**
+     * Opening the ToolWindow without a cache, until the first page of every repository is shown
+     */
+    public void testInitialLoad() {
+        addRepositories(REPOSITORIES, 0);
+        final Stats firstRows = new Stats("first rows shown");
+        final Stats firstPage = new Stats("first page synced");
+        final long start = startMeasuring();
+        int rowCount = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            stopPresenter();
+            IssueCache.forProject(getProject()).delete();
+            final int[] requestCounts = getRequestCounts();
+            final long loadStart = System.nanoTime();
+            startPresenter();
+            final long settled = waitUntilSettled("the initial issues", requestCounts);
+            firstRows.add(mView.getFirstRowsTime() - loadStart);
+            firstPage.add(settled - loadStart);
+            rowCount += mView.getRowCount();
+        }
+        report("initial load", start, rowCount, "rows", firstRows, firstPage);
+    }
+
+    /**
+     * Refreshes requested many times at once, as by the refresh button and the automatic refresh, after issues were
+     * updated in every repository
+     */
+    public void testRefreshStorm() {
+        addRepositories(REPOSITORIES, 0);
+        startPresenter();
+        waitUntilSettled("the initial issues", new int[mRepositories.size()]);
+        final Stats latency = new Stats("updates shown");
+        final long start = startMeasuring();
+        final int firstRequestCount = sum(getRequestCounts());
+        for (int i = 0; i < ITERATIONS; i++) {
+            final List<String> updatedIds = new ArrayList<>();
+            mRepositories.forEach(repository -> updatedIds.addAll(repository.update(STORM_UPDATES)));
+            final int[] requestCounts = getRequestCounts();
+            final long stormStart = System.nanoTime();
+            for (int j = 0; j < STORM_SIZE; j++) {
+                mPresenter.refreshIssues(getProject());
+                pumpFor(1);
+            }
+            waitUntilSettled("the updated issues", requestCounts);
+            assertTrue("The updated issues are not shown", isShowingLatest(updatedIds));
+            latency.add(mView.getLastChangeTime() - stormStart);
+        }
+        final int requestCount = sum(getRequestCounts()) - firstRequestCount;
+        report("refresh storm", start, ITERATIONS * STORM_SIZE, "refreshes", latency);
+        System.out.printf(Locale.US, "  %.1f requests per repository per storm%n",
+                requestCount / (double) (ITERATIONS * mRepositories.size()));
+    }
+
+    /**
+     * Issues selected one after the other faster than their comments can be pulled, until the comments of the last
+     * one are shown
+     */
+    public void testRapidSelection() {
+        addRepositories(REPOSITORIES, 0);
+        mRepositories.forEach(repository -> repository.setComments(COMMENTS, COMMENT_LENGTH));
+        startPresenter();
+        waitUntilSettled("the initial issues", new int[mRepositories.size()]);
+        final List<IssueRow> rows = mView.getIssueRows();
+        final Stats details = new Stats("details shown");
+        final Stats comments = new Stats("comments of the last selection shown");
+        final long start = startMeasuring();
+        int shownCount = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            final long[] selectionTimes = new long[SELECTIONS];
+            final List<IssueRow> selectedRows = new ArrayList<>(SELECTIONS);
+            for (int j = 0; j < SELECTIONS; j++) {
+                final IssueRow row = rows.get((i * SELECTIONS + j) % rows.size());
+                selectedRows.add(row);
+                selectionTimes[j] = System.nanoTime();
+                mPresenter.showDetails(getProject(), row.getId());
+                pumpFor(SELECTION_INTERVAL_MS);
+            }
+            final IssueRow lastRow = selectedRows.get(SELECTIONS - 1);
+            waitUntil("the comments of " + lastRow.getId(), () -> {
+                final Long indexed = mView.getIndexedCommentsTime(lastRow.getId());
+                return indexed != null && indexed > selectionTimes[SELECTIONS - 1];
+            });
+            comments.add(mView.getIndexedCommentsTime(lastRow.getId()) - selectionTimes[SELECTIONS - 1]);
+            for (int j = 0; j < SELECTIONS; j++) {
+                final long shown = findDetailsTime(selectedRows.get(j), selectionTimes[j]);
+                if (shown != 0) {
+                    details.add(shown - selectionTimes[j]);
+                    shownCount++;
+                }
+            }
+        }
+        report("rapid selection", start, ITERATIONS * SELECTIONS, "selections", details, comments);
+        System.out.printf(Locale.US, "  details shown for %d of %d selections%n", shownCount, ITERATIONS * SELECTIONS);
+    }
+
+    /**
+     * A forced sync of many repositories at once, some of whose requests fail
+     */
+    public void testFanOut() {
+        addRepositories(REPOSITORIES * 4, ERROR_RATE);
+        startPresenter();
+        waitUntilSettled("the initial issues", new int[mRepositories.size()]);
+        final Stats latency = new Stats("forced sync");
+        final long start = startMeasuring();
+        final int firstFailureCount = getFailureCount();
+        final int firstErrorCount = mView.getRepositoryErrors().size();
+        for (int i = 0; i < ITERATIONS; i++) {
+            mRepositories.forEach(repository -> repository.update(STORM_UPDATES));
+            final int[] requestCounts = getRequestCounts();
+            final long syncStart = System.nanoTime();
+            mPresenter.pullIssues(getProject(), IssueFilter.DEFAULT, true);
+            latency.add(waitUntilSettled("the forced sync", requestCounts) - syncStart);
+        }
+        report("fan-out", start, ITERATIONS * mRepositories.size(), "repository syncs", latency);
+        System.out.printf(Locale.US, "  %d failed requests, %d errors shown%n", getFailureCount() - firstFailureCount,
+                mView.getRepositoryErrors().size() - firstErrorCount);
+    }
+
+    /**
+     * Configure repositories with the issues, latency and jitter of the load
+     *
+     * @param count     the number of repositories
+     * @param errorRate the chance of a request failing, from 0 to 1
+     */
+    private void addRepositories(int count, double errorRate) {
+        for (int i = 0; i < count; i++) {
+            addRepository("load", ISSUES, LATENCY_MS, JITTER_MS).setErrorRate(errorRate);
+        }
+    }
+
+    /**
+     * @param issueIds the ids of issues
+     * @return true if the issues are shown as the repositories have them now
+     */
+    private boolean isShowingLatest(List<String> issueIds) {
+        for (String issueId : issueIds) {
+            final IssueRow row = mView.getIssueRow(issueId);
+            final Task issue = findIssue(issueId);
+            if (row == null || issue == null || !row.getPresentableName().equals(issue.getPresentableName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param row  the row of a selected issue
+     * @param time the time the issue was selected
+     * @return the time the details of the issue were first shown after it was selected, or 0 if they were not
+     */
+    private long findDetailsTime(IssueRow row, long time) {
+        final Task issue = findIssue(row.getId());
+        if (issue == null) {
+            return 0;
+        }
+        final String link = "href=" + issue.getIssueUrl() + ">";
+        for (RecordingView.Shown shown : mView.getDetails()) {
+            if (shown.mTime >= time && shown.mText.contains(link)) {
+                return shown.mTime;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param issueId the id of an issue
+     * @return the issue as its repository has it now, or null if no repository has it
+     */
+    private Task findIssue(String issueId) {
+        for (FakeTaskRepository repository : mRepositories) {
+            final Task issue = repository.getIssue(issueId);
+            if (issue != null) {
+                return issue;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of requests of the repositories that failed
+     */
+    private int getFailureCount() {
+        int failureCount = 0;
+        for (FakeTaskRepository repository : mRepositories) {
+            failureCount += repository.getFailureCount();
+        }
+        return failureCount;
+    }
+
+    /**
+     * @param values numbers
+     * @return the sum of the numbers
+     */
+    private static int sum(int[] values) {
+        return Arrays.stream(values).sum();
+    }
+
+    /**
+     * Collect the garbage and reset the peak usage of the heap, before a scenario
+     *
+     * @return the {@link System#nanoTime()} at which the scenario starts
+     */
+    private static long startMeasuring() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Print the throughput, the latency percentiles and the peak heap of a scenario
+     *
+     * @param scenario   the name of the scenario
+     * @param start      the time the scenario started
+     * @param operations the number of operations of the scenario
+     * @param unit       what an operation is
+     * @param stats      the latencies measured
+     */
+    private static void report(String scenario, long start, int operations, String unit, Stats... stats) {
+        final double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+        // The sum of the peak of each pool, which may have peaked at different times, so an upper bound
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.out.printf(Locale.US, "%s: %.1f %s/s, peak heap %.1f MB (%d issues x %d repositories, latency %d"
+                        + " ms +- %d ms)%n", scenario, operations / seconds, unit, peakHeap / (1024.0 * 1024.0), ISSUES, REPOSITORIES, LATENCY_MS, JITTER_MS);
+        for (Stats stat : stats) {
+            System.out.println("  " + stat);
+        }
+    }
+
+    /**
+     * The latencies of an operation
+     */
+    private static final class Stats {
+        /** What is measured */
+        private final String mName;
+        /** The latencies, in nanoseconds */
+        private final List<Long> mLatencies = new ArrayList<>();
+
+        private Stats(String name) {
+            mName = name;
+        }
+
+        /**
+         * @param latency a latency, in nanoseconds
+         */
+        void add(long latency) {
+            mLatencies.add(latency);
+        }
+
+        /**
+         * @param percentile the percentile, from 0 to 100
+         * @return the latency at the percentile, in milliseconds, by the nearest rank
+         */
+        private double get(double percentile) {
+            final long[] sorted = mLatencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            final int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+            return sorted[Math.max(0, rank - 1)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        @Override
+        public String toString() {
+            if (mLatencies.isEmpty()) {
+                return mName + ": none";
+            }
+            return String.format(Locale.US, "%s: p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, max %.1f ms (%d samples)",
+                    mName, get(50), get(90), get(99), get(100), mLatencies.size());
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.openapi.util.Disposer;
+import com.intellij.tasks.Task;
+import com.intellij.tasks.TaskManager;
+import com.intellij.tasks.impl.TaskManagerImpl;
+import com.intellij.testFramework.LightPlatformTestCase;
+import com.intellij.util.ui.UIUtil;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs a {@link ListIssuesPresenter} headless against {@link FakeTaskRepository}s, with a {@link RecordingView} in place
+ * of the ToolWindow. The test runs on the EDT, which it pumps while it waits for the presenter.
+ */
+abstract class PresenterTestCase extends LightPlatformTestCase {
+
+    /** The longest a test waits for the presenter */
+    static final long TIMEOUT_MS = TimeUnit.MINUTES.toMillis(2);
+    /** Interval at which the EDT is pumped while waiting */
+    private static final long POLL_INTERVAL_MS = 5;
+    /** The number of repositories created, so that the ids of the issues of every test differ */
+    private static int sRepositoryCount;
+
+    /** The repositories configured in the TaskManager */
+    final List<FakeTaskRepository> mRepositories = new ArrayList<>();
+    /** The presenter, or null until it is started */
+    ListIssuesPresenter mPresenter;
+    /** The view of {@link #mPresenter} */
+    RecordingView mView;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        IssueCache.forProject(getProject()).delete();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try {
+            stopPresenter();
+            getTaskManager().setRepositories(Collections.emptyList());
+            IssueFilterSettings.getInstance(getProject()).setFilter(IssueFilter.DEFAULT);
+            IssueCache.forProject(getProject()).delete();
+        } finally {
+            super.tearDown();
+        }
+    }
+
+    /**
+     * Configure another repository
+     *
+     * @param name       the name of the repository, made unique
+     * @param issueCount the number of issues
+     * @param latencyMs  the time each request takes
+     * @param jitterMs   the largest time added to or taken off the latency of a request at random
+     * @return the repository
+     */
+    @NotNull
+    FakeTaskRepository addRepository(@NotNull String name, int issueCount, long latencyMs, long jitterMs) {
+        final FakeTaskRepository repository = new FakeTaskRepository(name + ++sRepositoryCount, issueCount,
+                sRepositoryCount);
+        repository.setLatency(latencyMs, jitterMs);
+        mRepositories.add(repository);
+        getTaskManager().setRepositories(mRepositories);
+        return repository;
+    }
+
+    /**
+     * Create the presenter with a new view and load the initial issues, as opening the ToolWindow does. The
+     * presenter started before is disposed.
+     */
+    void startPresenter() {
+        stopPresenter();
+        mView = new RecordingView();
+        mPresenter = new ListIssuesPresenter(getProject());
+        mPresenter.setView(mView);
+        mPresenter.loadInitialIssues(getProject());
+    }
+
+    /**
+     * Dispose the presenter, cancelling its work
+     */
+    void stopPresenter() {
+        if (mPresenter != null) {
+            Disposer.dispose(mPresenter);
+            mPresenter = null;
+        }
+    }
+
+    /**
+     * Pump the EDT until the condition holds
+     *
+     * @param what      what is waited for, to report a timeout
+     * @param condition the condition, checked on the EDT
+     * @return the {@link System#nanoTime()} at which the condition was found to hold
+     */
+    long waitUntil(@NotNull String what, @NotNull BooleanSupplier condition) {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (true) {
+            UIUtil.dispatchAllInvocationEvents();
+            if (condition.getAsBoolean()) {
+                return System.nanoTime();
+            }
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting for " + what);
+            }
+            pause(POLL_INTERVAL_MS);
+        }
+    }
+
+    /**
+     * Pump the EDT until every issue served by the repositories since the given request counts is shown as it was
+     * served, and neither the repositories nor the view have changed for a while
+     *
+     * @param what          what is waited for, to report a timeout
+     * @param requestCounts the number of requests of each repository before the work waited for was started
+     * @return the {@link System#nanoTime()} of the last request or change of the view before they stopped
+     */
+    long waitUntilSettled(@NotNull String what, @NotNull int[] requestCounts) {
+        final long quietNanos = TimeUnit.MILLISECONDS.toNanos(getQuietPeriodMs());
+        final long[] lastActivity = new long[1];
+        waitUntil(what, () -> {
+            if (!isShowingServedIssues()) {
+                return false;
+            }
+            boolean requested = false;
+            long activity = mView.getLastChangeTime();
+            for (int i = 0; i < mRepositories.size(); i++) {
+                final FakeTaskRepository repository = mRepositories.get(i);
+                if (repository.getActiveRequestCount() > 0) {
+                    return false;
+                }
+                requested |= repository.getRequestCount() > requestCounts[i];
+                activity = Math.max(activity, repository.getLastRequestEnd());
+            }
+            lastActivity[0] = activity;
+            return requested && System.nanoTime() - activity >= quietNanos;
+        });
+        return lastActivity[0];
+    }
+
+    /**
+     * @return the number of requests of each repository so far
+     */
+    @NotNull
+    int[] getRequestCounts() {
+        final int[] requestCounts = new int[mRepositories.size()];
+        for (int i = 0; i < requestCounts.length; i++) {
+            requestCounts[i] = mRepositories.get(i).getRequestCount();
+        }
+        return requestCounts;
+    }
+
+    /**
+     * @return true if every issue served by the repositories is shown as it was last served
+     */
+    boolean isShowingServedIssues() {
+        for (FakeTaskRepository repository : mRepositories) {
+            for (Task issue : repository.getServedIssues()) {
+                final IssueRow row = mView.getIssueRow(issue.getId());
+                if (row == null || !row.getPresentableName().equals(issue.getPresentableName())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Pump the EDT for a while, as the user would take between two actions
+     *
+     * @param millis the time to pump the EDT for
+     */
+    static void pumpFor(long millis) {
+        final long end = System.currentTimeMillis() + millis;
+        do {
+            UIUtil.dispatchAllInvocationEvents();
+            pause(Math.min(POLL_INTERVAL_MS, Math.max(0, end - System.currentTimeMillis())));
+        } while (System.currentTimeMillis() < end);
+    }
+
+    /**
+     * @return the time without any request or change of the view after which the presenter is taken to be done,
+     * longer than the gap between the requests of consecutive chunks
+     */
+    private long getQuietPeriodMs() {
+        long latencyMs = 0;
+        for (FakeTaskRepository repository : mRepositories) {
+            latencyMs = Math.max(latencyMs, repository.getMaxLatencyMs());
+        }
+        return 2 * latencyMs + 200;
+    }
+
+    /**
+     * @return the TaskManager of the project
+     */
+    @NotNull
+    private static TaskManagerImpl getTaskManager() {
+        return (TaskManagerImpl) getProject().getComponent(TaskManager.class);
+    }
+
+    /**
+     * Sleep without being interrupted
+     *
+     * @param millis the time to sleep
+     */
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
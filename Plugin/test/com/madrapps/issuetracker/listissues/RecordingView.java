@@ -0,0 +1,250 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.tasks.Comment;
+import com.intellij.tasks.Task;
+import com.intellij.tasks.TaskRepository;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A view without components, which keeps the rows in an {@link IssueTableModel} like the ToolWindow does and records
+ * what the presenter shows, with the {@link System#nanoTime()} it was shown at. It is only called on the EDT.
+ */
+final class RecordingView implements IListIssuesContract.IView {
+
+    /** The rows of the Issue table */
+    private final IssueTableModel mModel = new IssueTableModel();
+    /** The details shown, in the order they were shown */
+    private final List<Shown> mDetails = new ArrayList<>();
+    /** The time the comments of each issue were last indexed, keyed by issue id */
+    private final Map<String, Long> mIndexedComments = new HashMap<>();
+    /** The repository errors shown */
+    private final List<String> mRepositoryErrors = new ArrayList<>();
+    /** The changes shown, as pairs of added and updated counts */
+    private final List<int[]> mChanges = new ArrayList<>();
+    /** The export results shown */
+    private final List<String> mExportResults = new ArrayList<>();
+    /** The time the rows were first shown, or 0 */
+    private long mFirstRowsTime;
+    /** The time the rows were last changed, or 0 */
+    private long mLastChangeTime;
+    /** The row count of the last page limit reported, or -1 */
+    private int mPageLimitRowCount = -1;
+    /** Whether the empty screen is shown */
+    private boolean mEmptyScreenShown;
+    /** Whether the details panel is shown */
+    private boolean mDetailsPanelShown = true;
+
+    /**
+     * Something the presenter showed
+     */
+    static final class Shown {
+        /** The {@link System#nanoTime()} at which it was shown */
+        final long mTime;
+        /** What was shown */
+        @NotNull
+        final String mText;
+
+        private Shown(long time, @NotNull String text) {
+            mTime = time;
+            mText = text;
+        }
+    }
+
+    @Override
+    public void updateIssueList(@NotNull List<Task> issuesList, boolean forceUpdate) {
+        mModel.merge(issuesList, forceUpdate);
+        onRowsChanged();
+    }
+
+    @Override
+    public void init(@NotNull Project project) {
+    }
+
+    @Override
+    public void initFilter(@NotNull IssueFilter filter, @NotNull TaskRepository[] repositories) {
+    }
+
+    @Override
+    public void showDetails(@NotNull String detailsHtml) {
+        mDetails.add(new Shown(System.nanoTime(), detailsHtml));
+    }
+
+    @Override
+    public void prependComments(@NotNull String commentsHtml, int olderCount) {
+        mDetails.add(new Shown(System.nanoTime(), commentsHtml));
+    }
+
+    @Override
+    public void showLoadingScreen(boolean shouldShow) {
+    }
+
+    @Override
+    public void showEmptyIssueListScreen() {
+        mEmptyScreenShown = true;
+    }
+
+    @Override
+    public void showRepositoryError(@NotNull String repositoryName, @NotNull String message) {
+        mRepositoryErrors.add(repositoryName + ": " + message);
+    }
+
+    @Override
+    public void showPageLimitReached(int rowCount) {
+        mPageLimitRowCount = rowCount;
+    }
+
+    @Override
+    public void removeIssues(@NotNull Set<String> issueIds) {
+        mModel.remove(issueIds);
+        onRowsChanged();
+    }
+
+    @Override
+    public void showChanges(int addedCount, int updatedCount) {
+        mChanges.add(new int[]{addedCount, updatedCount});
+    }
+
+    @Override
+    public void indexComments(@NotNull String issueId, @NotNull Comment[] comments) {
+        mModel.indexComments(issueId, comments);
+        mIndexedComments.put(issueId, System.nanoTime());
+    }
+
+    @Override
+    public void openInBrowser(@NotNull String issueUrl) {
+    }
+
+    @Override
+    public void showDetailsPanel(boolean shouldShow) {
+        mDetailsPanelShown = shouldShow;
+    }
+
+    @Nullable
+    @Override
+    public String getSelectedIssueId() {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public IssueRow getIssueRow(@NotNull String issueId) {
+        return mModel.getRow(issueId);
+    }
+
+    @NotNull
+    @Override
+    public List<IssueRow> getIssueRows() {
+        return new ArrayList<>(mModel.getItems());
+    }
+
+    @NotNull
+    @Override
+    public List<IssueRow> getVisibleIssueRows() {
+        return getIssueRows();
+    }
+
+    @Override
+    public void showExportResult(@NotNull String message, boolean failed) {
+        mExportResults.add(message);
+    }
+
+    @Override
+    public boolean isDetailsPanelShown() {
+        return mDetailsPanelShown;
+    }
+
+    /**
+     * @return the number of rows
+     */
+    int getRowCount() {
+        return mModel.getRowCount();
+    }
+
+    /**
+     * @return the details shown, in the order they were shown
+     */
+    @NotNull
+    List<Shown> getDetails() {
+        return mDetails;
+    }
+
+    /**
+     * @param issueId the id of an issue
+     * @return the time the comments of the issue were last indexed, or null if they never were
+     */
+    @Nullable
+    Long getIndexedCommentsTime(@NotNull String issueId) {
+        return mIndexedComments.get(issueId);
+    }
+
+    /**
+     * @return the repository errors shown
+     */
+    @NotNull
+    List<String> getRepositoryErrors() {
+        return mRepositoryErrors;
+    }
+
+    /**
+     * @return the changes shown, as pairs of added and updated counts
+     */
+    @NotNull
+    List<int[]> getChanges() {
+        return mChanges;
+    }
+
+    /**
+     * @return the export results shown
+     */
+    @NotNull
+    List<String> getExportResults() {
+        return mExportResults;
+    }
+
+    /**
+     * @return the time the rows were first shown, or 0
+     */
+    long getFirstRowsTime() {
+        return mFirstRowsTime;
+    }
+
+    /**
+     * @return the time the rows were last changed, or 0
+     */
+    long getLastChangeTime() {
+        return mLastChangeTime;
+    }
+
+    /**
+     * @return the row count of the last page limit reported, or -1 if none was
+     */
+    int getPageLimitRowCount() {
+        return mPageLimitRowCount;
+    }
+
+    /**
+     * @return whether the empty screen was shown
+     */
+    boolean isEmptyScreenShown() {
+        return mEmptyScreenShown;
+    }
+
+    /**
+     * Record the time of a change of the rows
+     */
+    private void onRowsChanged() {
+        mLastChangeTime = System.nanoTime();
+        if (mFirstRowsTime == 0 && mModel.getRowCount() > 0) {
+            mFirstRowsTime = mLastChangeTime;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.tasks.Task;
+import com.intellij.tasks.TaskRepository;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests keeping the watermarks of the delta syncs for the filter they were synced with
+ */
+public class SyncWatermarksTest {
+
+    /** The filter of the first sync */
+    private static final IssueFilter CRASHES = IssueFilter.DEFAULT.withText("crash");
+
+    /** The repository of the issues */
+    private final TaskRepository mRepository = new FakeTaskRepository("app", 0, 1);
+    /** The watermarks, after a full sync of two issues with {@link #CRASHES} */
+    private SyncWatermarks mWatermarks;
+    /** The issue updated last */
+    private Task mLatest;
+
+    @Before
+    public void setUp() {
+        final Random random = new Random(1);
+        final Task first = SyntheticIssues.issue(1, random, mRepository);
+        final Task second = SyntheticIssues.issue(2, random, mRepository);
+        mLatest = first.getUpdated().after(second.getUpdated()) ? first : second;
+        mWatermarks = new SyncWatermarks();
+        mWatermarks.setFilter(CRASHES);
+        mWatermarks.advance(CRASHES, Arrays.asList(first, second));
+        mWatermarks.fullSyncCompleted(CRASHES);
+    }
+
+    /**
+     * The watermark is the latest updated time synced, and a refresh only has to pull what was updated since
+     */
+    @Test
+    public void advance() {
+        assertEquals(mLatest.getUpdated().getTime(), mWatermarks.getWatermark(CRASHES, mRepository));
+        assertFalse(mWatermarks.isFullSyncRequired(CRASHES, new TaskRepository[]{mRepository}));
+    }
+
+    /**
+     * Another filter starts without watermarks, and needs a full sync
+     */
+    @Test
+    public void otherFilter() {
+        assertEquals(0, mWatermarks.getWatermark(IssueFilter.DEFAULT, mRepository));
+        assertTrue(mWatermarks.isFullSyncRequired(IssueFilter.DEFAULT, new TaskRepository[]{mRepository}));
+
+        mWatermarks.setFilter(IssueFilter.DEFAULT);
+
+        assertEquals(0, mWatermarks.getWatermark(IssueFilter.DEFAULT, mRepository));
+        assertEquals(0, mWatermarks.getWatermark(CRASHES, mRepository));
+        assertTrue(mWatermarks.isFullSyncRequired(IssueFilter.DEFAULT, new TaskRepository[]{mRepository}));
+    }
+
+    /**
+     * The issues synced with a filter that has since been replaced do not advance the watermarks
+     */
+    @Test
+    public void advanceForPreviousFilter() {
+        mWatermarks.setFilter(IssueFilter.DEFAULT);
+        mWatermarks.advance(CRASHES, Collections.singletonList(mLatest));
+        mWatermarks.fullSyncCompleted(CRASHES);
+
+        assertEquals(0, mWatermarks.getWatermark(IssueFilter.DEFAULT, mRepository));
+        assertTrue(mWatermarks.isFullSyncRequired(IssueFilter.DEFAULT, new TaskRepository[]{mRepository}));
+    }
+
+    /**
+     * Setting the same filter again keeps the watermarks
+     */
+    @Test
+    public void setSameFilter() {
+        mWatermarks.setFilter(IssueFilter.DEFAULT.withText("crash"));
+
+        assertEquals(mLatest.getUpdated().getTime(), mWatermarks.getWatermark(CRASHES, mRepository));
+    }
+
+    /**
+     * A repository that ignores the "since" filter always needs a full sync
+     */
+    @Test
+    public void unfiltered() {
+        mWatermarks.markUnfiltered(mRepository);
+
+        assertTrue(mWatermarks.isFullSyncRequired(CRASHES, new TaskRepository[]{mRepository}));
+    }
+}
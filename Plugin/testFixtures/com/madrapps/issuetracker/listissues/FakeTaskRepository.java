@@ -0,0 +1,418 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.tasks.Comment;
+import com.intellij.tasks.Task;
+import com.intellij.tasks.TaskRepository;
+import com.intellij.tasks.TaskRepositoryType;
+import com.intellij.tasks.config.TaskRepositoryEditor;
+import com.intellij.util.Consumer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.Icon;
+
+/**
+ * A repository that serves synthetic issues from memory, with the latency, jitter and failures of a remote repository.
+ * The issues are listed by their updated date, the most recent first, and their comments are pulled on demand.
+ */
+final class FakeTaskRepository extends TaskRepository {
+
+    /** The type of every fake repository */
+    static final FakeRepositoryType TYPE = new FakeRepositoryType();
+    /** Interval at which a request checks whether it has been cancelled while waiting */
+    private static final long CANCEL_CHECK_INTERVAL_MS = 10;
+
+    /** The name of the repository, which the ids of its issues start with */
+    @NotNull
+    private final String mName;
+    /** The seed of the content */
+    private final long mSeed;
+    /** The issues, the most recently updated first */
+    private final List<FakeTask> mIssues = new ArrayList<>();
+    /** The issues served by the requests that succeeded, as they were last served, keyed by issue id */
+    private final Map<String, Task> mServedIssues = new HashMap<>();
+    /** The number of requests made */
+    private final AtomicInteger mRequestCount = new AtomicInteger();
+    /** The number of requests that failed */
+    private final AtomicInteger mFailureCount = new AtomicInteger();
+    /** The number of requests in progress */
+    private final AtomicInteger mActiveRequestCount = new AtomicInteger();
+    /** The {@link System#nanoTime()} at which the last request ended */
+    private volatile long mLastRequestEnd;
+    /** The time of the last update, in the time of the synthetic issues */
+    private long mLastUpdated;
+    /** The time each request takes */
+    private volatile long mLatencyMs;
+    /** The largest time added to or taken off the latency of a request at random */
+    private volatile long mJitterMs;
+    /** The chance of a request failing, from 0 to 1 */
+    private volatile double mErrorRate;
+    /** The number of comments of each issue */
+    private volatile int mCommentCount;
+    /** The length of each comment, in characters */
+    private volatile int mCommentLength = 200;
+
+    /**
+     * Constructor
+     *
+     * @param name       the name of the repository, which the ids of its issues start with
+     * @param issueCount the number of issues
+     * @param seed       the seed of the content
+     */
+    FakeTaskRepository(@NotNull String name, int issueCount, long seed) {
+        mName = name;
+        mSeed = seed;
+        final Random random = new Random(seed);
+        final String prefix = name.toUpperCase(Locale.US);
+        for (int i = 1; i <= issueCount; i++) {
+            mIssues.add(new FakeTask(SyntheticIssues.issue(prefix, i, random, this), this));
+        }
+        mIssues.sort((first, second) -> Long.compare(second.getUpdated().getTime(), first.getUpdated().getTime()));
+        mLastUpdated = mIssues.isEmpty() ? SyntheticIssues.BASE_TIME : mIssues.get(0).getUpdated().getTime();
+    }
+
+    /**
+     * Constructor, for {@link #clone()}
+     *
+     * @param other the repository to copy, whose issues are shared
+     */
+    private FakeTaskRepository(@NotNull FakeTaskRepository other) {
+        mName = other.mName;
+        mSeed = other.mSeed;
+        synchronized (other) {
+            mIssues.addAll(other.mIssues);
+            mLastUpdated = other.mLastUpdated;
+        }
+        mLatencyMs = other.mLatencyMs;
+        mJitterMs = other.mJitterMs;
+        mErrorRate = other.mErrorRate;
+        mCommentCount = other.mCommentCount;
+        mCommentLength = other.mCommentLength;
+    }
+
+    /**
+     * @param latencyMs the time each request takes
+     * @param jitterMs  the largest time added to or taken off the latency of a request at random
+     */
+    void setLatency(long latencyMs, long jitterMs) {
+        mLatencyMs = latencyMs;
+        mJitterMs = jitterMs;
+    }
+
+    /**
+     * @return the longest time a request takes
+     */
+    long getMaxLatencyMs() {
+        return mLatencyMs + mJitterMs;
+    }
+
+    /**
+     * @param errorRate the chance of a request failing, from 0 to 1
+     */
+    void setErrorRate(double errorRate) {
+        mErrorRate = errorRate;
+    }
+
+    /**
+     * @param count  the number of comments of each issue
+     * @param length the length of each comment, in characters
+     */
+    void setComments(int count, int length) {
+        mCommentCount = count;
+        mCommentLength = length;
+    }
+
+    /**
+     * Update issues picked at random with another summary, which moves them to the start of the listing
+     *
+     * @param count the number of issues to update
+     * @return the ids of the updated issues
+     */
+    @NotNull
+    synchronized List<String> update(int count) {
+        final Random random = new Random(mSeed + mLastUpdated);
+        final List<String> updatedIds = new ArrayList<>(count);
+        for (int i = 0; i < count && !mIssues.isEmpty(); i++) {
+            final FakeTask issue = mIssues.remove(random.nextInt(mIssues.size()));
+            mLastUpdated += TimeUnit.MINUTES.toMillis(1);
+            mIssues.add(0, new FakeTask(issue.withSummary(issue.getSummary() + " " + i, mLastUpdated), this));
+            updatedIds.add(issue.getId());
+        }
+        return updatedIds;
+    }
+
+    /**
+     * Remove issues from the repository, like issues that were deleted or moved
+     *
+     * @param issueIds the ids of the issues
+     */
+    synchronized void remove(@NotNull Collection<String> issueIds) {
+        mIssues.removeIf(issue -> issueIds.contains(issue.getId()));
+        mServedIssues.keySet().removeAll(issueIds);
+    }
+
+    /**
+     * @return the issues, the most recently updated first
+     */
+    @NotNull
+    synchronized List<Task> getAllIssues() {
+        return new ArrayList<>(mIssues);
+    }
+
+    /**
+     * @param issueId the id of an issue
+     * @return the issue as the repository has it now, or null if it is not in the repository
+     */
+    @Nullable
+    synchronized Task getIssue(@NotNull String issueId) {
+        for (FakeTask issue : mIssues) {
+            if (issue.getId().equals(issueId)) {
+                return issue;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the issues served by the requests that succeeded, as they were last served
+     */
+    @NotNull
+    synchronized List<Task> getServedIssues() {
+        return new ArrayList<>(mServedIssues.values());
+    }
+
+    /**
+     * @return the number of requests made
+     */
+    int getRequestCount() {
+        return mRequestCount.get();
+    }
+
+    /**
+     * @return the number of requests that failed
+     */
+    int getFailureCount() {
+        return mFailureCount.get();
+    }
+
+    /**
+     * @return the number of requests in progress
+     */
+    int getActiveRequestCount() {
+        return mActiveRequestCount.get();
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} at which the last request ended, or 0 if none has
+     */
+    long getLastRequestEnd() {
+        return mLastRequestEnd;
+    }
+
+    @Override
+    public Task[] getIssues(@Nullable String query, int offset, int limit, boolean withClosed,
+                            @NotNull ProgressIndicator cancelled) throws Exception {
+        request(cancelled);
+        final List<Task> issues = new ArrayList<>();
+        synchronized (this) {
+            int index = 0;
+            for (FakeTask issue : mIssues) {
+                if (issue.isClosed() && !withClosed) {
+                    continue;
+                }
+                if (index++ >= offset) {
+                    issues.add(issue);
+                    if (issues.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            issues.forEach(issue -> mServedIssues.put(issue.getId(), issue));
+        }
+        return issues.toArray(new Task[issues.size()]);
+    }
+
+    @Override
+    public Task[] getIssues(@Nullable String query, int max, long since, @NotNull ProgressIndicator cancelled)
+            throws Exception {
+        request(cancelled);
+        final List<Task> issues = new ArrayList<>();
+        synchronized (this) {
+            for (FakeTask issue : mIssues) {
+                if (issue.getUpdated().getTime() < since || issues.size() == max) {
+                    break;
+                }
+                issues.add(issue);
+            }
+            issues.forEach(issue -> mServedIssues.put(issue.getId(), issue));
+        }
+        return issues.toArray(new Task[issues.size()]);
+    }
+
+    @Nullable
+    @Override
+    public Task findTask(@NotNull String id) throws Exception {
+        request(null);
+        return getIssue(id);
+    }
+
+    @NotNull
+    @Override
+    public FakeTaskRepository clone() {
+        return new FakeTaskRepository(this);
+    }
+
+    @Nullable
+    @Override
+    public CancellableConnection createCancellableConnection() {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public String extractId(@NotNull String taskName) {
+        return taskName.startsWith(mName.toUpperCase(Locale.US) + "-") ? taskName : null;
+    }
+
+    @Override
+    public TaskRepositoryType getRepositoryType() {
+        return TYPE;
+    }
+
+    @NotNull
+    @Override
+    public String getUrl() {
+        return "https://example.com/" + mName;
+    }
+
+    @NotNull
+    @Override
+    public String getPresentableName() {
+        return mName;
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return true;
+    }
+
+    /**
+     * Pull the comments of an issue, as the comments of the issues it serves do
+     *
+     * @param issueId the id of the issue
+     * @return the comments
+     * @throws Exception if the request fails
+     */
+    @NotNull
+    private Comment[] pullComments(@NotNull String issueId) throws Exception {
+        request(null);
+        return SyntheticIssues.comments(mCommentCount, mCommentLength, mSeed ^ issueId.hashCode());
+    }
+
+    /**
+     * Wait for the latency of a request, and fail it at the error rate
+     *
+     * @param indicator the indicator of the request, or null if it cannot be cancelled
+     * @throws Exception if the request fails
+     */
+    private void request(@Nullable ProgressIndicator indicator) throws Exception {
+        mRequestCount.incrementAndGet();
+        mActiveRequestCount.incrementAndGet();
+        try {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            final long jitter = mJitterMs > 0 ? random.nextLong(-mJitterMs, mJitterMs + 1) : 0;
+            final long end = System.currentTimeMillis() + Math.max(0, mLatencyMs + jitter);
+            long remaining;
+            while ((remaining = end - System.currentTimeMillis()) > 0) {
+                if (indicator != null) {
+                    indicator.checkCanceled();
+                }
+                Thread.sleep(Math.min(remaining, CANCEL_CHECK_INTERVAL_MS));
+            }
+            if (random.nextDouble() < mErrorRate) {
+                mFailureCount.incrementAndGet();
+                throw new Exception("Simulated failure of " + mName);
+            }
+        } finally {
+            mLastRequestEnd = System.nanoTime();
+            mActiveRequestCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * An issue of the repository, whose comments are pulled from the repository when they are asked for
+     */
+    private static final class FakeTask extends SyntheticIssues.SyntheticTask {
+        /** The repository */
+        @NotNull
+        private final FakeTaskRepository mRepository;
+
+        private FakeTask(@NotNull SyntheticIssues.SyntheticTask issue, @NotNull FakeTaskRepository repository) {
+            super(issue.getId(), issue.getSummary(), issue.getDescription(), issue.getCreated().getTime(),
+                    issue.getUpdated().getTime(), issue.getType(), issue.isClosed(), Comment.EMPTY_ARRAY, repository);
+            mRepository = repository;
+        }
+
+        @NotNull
+        @Override
+        public Comment[] getComments() {
+            try {
+                return mRepository.pullComments(getId());
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * The type of the fake repositories
+     */
+    static final class FakeRepositoryType extends TaskRepositoryType<FakeTaskRepository> {
+
+        @NotNull
+        @Override
+        public String getName() {
+            return "Fake";
+        }
+
+        @Nullable
+        @Override
+        public Icon getIcon() {
+            return null;
+        }
+
+        @NotNull
+        @Override
+        public TaskRepositoryEditor createEditor(FakeTaskRepository repository, Project project,
+                                                 Consumer<FakeTaskRepository> changeListener) {
+            throw new UnsupportedOperationException("The fake repository is not configured from the settings");
+        }
+
+        @Override
+        public Class<FakeTaskRepository> getRepositoryClass() {
+            return FakeTaskRepository.class;
+        }
+
+        @NotNull
+        @Override
+        public TaskRepository createRepository() {
+            return new FakeTaskRepository("fake", 0, 0);
+        }
+    }
+}
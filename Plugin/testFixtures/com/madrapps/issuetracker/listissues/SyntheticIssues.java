@@ -0,0 +1,333 @@
+package com.madrapps.issuetracker.listissues;
+
+import com.intellij.tasks.Comment;
+import com.intellij.tasks.Task;
+import com.intellij.tasks.TaskRepository;
+import com.intellij.tasks.TaskType;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.Icon;
+
+/**
+ * Builds issues and comments with generated content for the tests and the benchmarks. The same seed always builds
+ * the same issues.
+ */
+final class SyntheticIssues {
+
+    /** The time the generated issues are created after, a fixed time so that runs can be compared */
+    static final long BASE_TIME = 1_476_000_000_000L;
+    /** The words the summaries, descriptions and comments are made of */
+    private static final String[] WORDS = {"sync", "table", "crash", "when", "opening", "the", "issue", "list",
+            "repository", "timeout", "slow", "render", "markdown", "comment", "thread", "scroll", "filter", "search",
+            "login", "token", "expired", "editor", "freeze", "memory", "leak", "after", "update", "plugin", "settings",
+            "project"};
+
+    private SyntheticIssues() {
+    }
+
+    /**
+     * Build issues with short descriptions and no comments
+     *
+     * @param count the number of issues
+     * @param seed  the seed of the content
+     * @return the issues, numbered from 1
+     */
+    @NotNull
+    static List<Task> issues(int count, long seed) {
+        final Random random = new Random(seed);
+        final List<Task> issues = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            issues.add(issue(i, random, null));
+        }
+        return issues;
+    }
+
+    /**
+     * Build an issue with a short description and no comments
+     *
+     * @param number     the number of the issue, which its id is made of
+     * @param random     the source of the content
+     * @param repository the repository of the issue, or null
+     * @return the issue
+     */
+    @NotNull
+    static SyntheticTask issue(int number, @NotNull Random random, @Nullable TaskRepository repository) {
+        return issue("ISSUE", number, random, repository);
+    }
+
+    /**
+     * Build an issue with a short description and no comments
+     *
+     * @param prefix     the prefix of the id, like the key of a project, so that the issues of repositories differ
+     * @param number     the number of the issue, which its id is made of
+     * @param random     the source of the content
+     * @param repository the repository of the issue, or null
+     * @return the issue
+     */
+    @NotNull
+    static SyntheticTask issue(@NotNull String prefix, int number, @NotNull Random random,
+                               @Nullable TaskRepository repository) {
+        final long created = BASE_TIME + TimeUnit.MINUTES.toMillis(number);
+        final long updated = created + TimeUnit.MINUTES.toMillis(random.nextInt(100_000));
+        final TaskType type = TaskType.values()[random.nextInt(TaskType.values().length)];
+        return new SyntheticTask(prefix + "-" + number, sentence(random, 3 + random.nextInt(8)),
+                markdown(random, 200 + random.nextInt(800)), created, updated, type, random.nextInt(4) == 0,
+                Comment.EMPTY_ARRAY, repository);
+    }
+
+    /**
+     * Build a thread of comments, the oldest first
+     *
+     * @param count  the number of comments
+     * @param length the length of each comment, in characters
+     * @param seed   the seed of the content
+     * @return the comments
+     */
+    @NotNull
+    static Comment[] comments(int count, int length, long seed) {
+        final Random random = new Random(seed);
+        final Comment[] comments = new Comment[count];
+        for (int i = 0; i < count; i++) {
+            comments[i] = new SyntheticComment(markdown(random, length), "user" + random.nextInt(50),
+                    new Date(BASE_TIME + TimeUnit.MINUTES.toMillis(i)));
+        }
+        return comments;
+    }
+
+    /**
+     * Build markdown with paragraphs, emphasis, links, lists and code blocks
+     *
+     * @param random the source of the content
+     * @param length the length of the markdown, in characters
+     * @return the markdown
+     */
+    @NotNull
+    static String markdown(@NotNull Random random, int length) {
+        final StringBuilder markdown = new StringBuilder(length + 100);
+        while (markdown.length() < length) {
+            switch (random.nextInt(5)) {
+                case 0:
+                    markdown.append("* ").append(sentence(random, 6)).append('\n')
+                            .append("* ").append(sentence(random, 4)).append("\n\n");
+                    break;
+                case 1:
+                    markdown.append("```\n").append(sentence(random, 8)).append("();\n```\n\n");
+                    break;
+                case 2:
+                    markdown.append("See [").append(WORDS[random.nextInt(WORDS.length)])
+                            .append("](https://example.com/issues/").append(random.nextInt(10_000)).append(")\n\n");
+                    break;
+                default:
+                    markdown.append(sentence(random, 10)).append(" **").append(WORDS[random.nextInt(WORDS.length)])
+                            .append("** ").append(sentence(random, 10)).append(".\n\n");
+                    break;
+            }
+        }
+        return markdown.substring(0, length);
+    }
+
+    /**
+     * @param random the source of the words
+     * @param count  the number of words
+     * @return the words separated by spaces
+     */
+    @NotNull
+    private static String sentence(@NotNull Random random, int count) {
+        final StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.toString();
+    }
+
+    /**
+     * An issue with fixed content
+     */
+    static class SyntheticTask extends Task {
+        /** The id */
+        @NotNull
+        private final String mId;
+        /** The summary */
+        @NotNull
+        private final String mSummary;
+        /** The description */
+        @Nullable
+        private final String mDescription;
+        /** The time the issue was created */
+        private final long mCreated;
+        /** The time the issue was last updated */
+        private final long mUpdated;
+        /** The type */
+        @NotNull
+        private final TaskType mType;
+        /** Whether the issue is closed */
+        private final boolean mClosed;
+        /** The comments */
+        @NotNull
+        private final Comment[] mComments;
+        /** The repository, or null */
+        @Nullable
+        private final TaskRepository mRepository;
+
+        SyntheticTask(@NotNull String id, @NotNull String summary, @Nullable String description, long created,
+                      long updated, @NotNull TaskType type, boolean closed, @NotNull Comment[] comments,
+                      @Nullable TaskRepository repository) {
+            mId = id;
+            mSummary = summary;
+            mDescription = description;
+            mCreated = created;
+            mUpdated = updated;
+            mType = type;
+            mClosed = closed;
+            mComments = comments;
+            mRepository = repository;
+        }
+
+        /**
+         * @param summary the new summary
+         * @param updated the time of the update
+         * @return a copy of this issue, updated with another summary
+         */
+        @NotNull
+        SyntheticTask withSummary(@NotNull String summary, long updated) {
+            return new SyntheticTask(mId, summary, mDescription, mCreated, updated, mType, mClosed, mComments,
+                    mRepository);
+        }
+
+        /**
+         * @param comments the comments
+         * @return a copy of this issue with the comments
+         */
+        @NotNull
+        SyntheticTask withComments(@NotNull Comment[] comments) {
+            return new SyntheticTask(mId, mSummary, mDescription, mCreated, mUpdated, mType, mClosed, comments,
+                    mRepository);
+        }
+
+        @NotNull
+        @Override
+        public String getId() {
+            return mId;
+        }
+
+        @NotNull
+        @Override
+        public String getSummary() {
+            return mSummary;
+        }
+
+        @Nullable
+        @Override
+        public String getDescription() {
+            return mDescription;
+        }
+
+        @NotNull
+        @Override
+        public Comment[] getComments() {
+            return mComments;
+        }
+
+        @Nullable
+        @Override
+        public Icon getIcon() {
+            return null;
+        }
+
+        @NotNull
+        @Override
+        public TaskType getType() {
+            return mType;
+        }
+
+        @NotNull
+        @Override
+        public Date getUpdated() {
+            return new Date(mUpdated);
+        }
+
+        @NotNull
+        @Override
+        public Date getCreated() {
+            return new Date(mCreated);
+        }
+
+        @Override
+        public boolean isClosed() {
+            return mClosed;
+        }
+
+        @Override
+        public boolean isIssue() {
+            return true;
+        }
+
+        @NotNull
+        @Override
+        public String getIssueUrl() {
+            return "https://example.com/issues/" + mId;
+        }
+
+        @Nullable
+        @Override
+        public TaskRepository getRepository() {
+            return mRepository;
+        }
+
+        @NotNull
+        @Override
+        public String getPresentableName() {
+            return mId + ": " + mSummary;
+        }
+    }
+
+    /**
+     * A comment with fixed content
+     */
+    static final class SyntheticComment extends Comment {
+        /** The text */
+        @NotNull
+        private final String mText;
+        /** The author */
+        @NotNull
+        private final String mAuthor;
+        /** The date */
+        @NotNull
+        private final Date mDate;
+
+        SyntheticComment(@NotNull String text, @NotNull String author, @NotNull Date date) {
+            mText = text;
+            mAuthor = author;
+            mDate = date;
+        }
+
+        @NotNull
+        @Override
+        public String getText() {
+            return mText;
+        }
+
+        @NotNull
+        @Override
+        public String getAuthor() {
+            return mAuthor;
+        }
+
+        @NotNull
+        @Override
+        public Date getDate() {
+            return mDate;
+        }
+    }
+}